@@ -3,10 +3,21 @@ package pl.tremeq.simplesession;
 import org.bukkit.Bukkit;
 import org.bukkit.plugin.java.JavaPlugin;
 import pl.tremeq.simplesession.command.SimpleSessionCommand;
+import pl.tremeq.simplesession.debug.DebugRecorder;
+import pl.tremeq.simplesession.debug.TickMonitor;
+import pl.tremeq.simplesession.history.RollupManager;
+import pl.tremeq.simplesession.history.SessionExporter;
+import pl.tremeq.simplesession.history.SessionJournal;
+import pl.tremeq.simplesession.leaderboard.PlaytimeTracker;
 import pl.tremeq.simplesession.manager.MessageManager;
 import pl.tremeq.simplesession.manager.SessionManager;
 import pl.tremeq.simplesession.milestone.MilestoneManager;
+import pl.tremeq.simplesession.network.NetworkSync;
 import pl.tremeq.simplesession.placeholder.SimpleSessionExpansion;
+import pl.tremeq.simplesession.scheduler.TaskScheduler;
+import pl.tremeq.simplesession.scoreboard.SidebarManager;
+import pl.tremeq.simplesession.stats.SessionStatistics;
+import pl.tremeq.simplesession.storage.IoExecutor;
 
 /**
  * SimpleSession - Modern session time tracking plugin for Minecraft
@@ -19,9 +30,20 @@ import pl.tremeq.simplesession.placeholder.SimpleSessionExpansion;
  */
 public class SimpleSession extends JavaPlugin {
 
+    private TaskScheduler taskScheduler;
+    private IoExecutor ioExecutor;
     private MessageManager messageManager;
+    private DebugRecorder debugRecorder;
+    private TickMonitor tickMonitor;
     private SessionManager sessionManager;
+    private SessionStatistics sessionStatistics;
+    private SessionJournal sessionJournal;
+    private SessionExporter sessionExporter;
+    private RollupManager rollupManager;
+    private PlaytimeTracker playtimeTracker;
     private MilestoneManager milestoneManager;
+    private NetworkSync networkSync;
+    private SidebarManager sidebarManager;
     private boolean placeholderAPIEnabled = false;
 
     /**
@@ -33,6 +55,12 @@ public class SimpleSession extends JavaPlugin {
         // Save default configuration if it doesn't exist
         saveDefaultConfig();
 
+        // Pick the scheduler for this server (Bukkit or Folia)
+        taskScheduler = TaskScheduler.create(this);
+
+        // Background thread for all file IO
+        ioExecutor = new IoExecutor(this);
+
         // Initialize message manager first
         messageManager = new MessageManager(this);
 
@@ -40,8 +68,13 @@ public class SimpleSession extends JavaPlugin {
             getLogger().info("[DEBUG] Debug mode is enabled");
             getLogger().info("[DEBUG] Loading configuration...");
             getLogger().info("[DEBUG] MessageManager initialized");
+            getLogger().info("[DEBUG] Scheduler: " + (taskScheduler.isRegionThreaded() ? "Folia (region threaded)" : "Bukkit"));
         }
 
+        // Initialize debug recorder and tick monitor before anything that reports to them
+        debugRecorder = new DebugRecorder(this);
+        tickMonitor = new TickMonitor(this);
+
         // Initialize session manager
         sessionManager = new SessionManager(this);
 
@@ -49,6 +82,19 @@ public class SimpleSession extends JavaPlugin {
             getLogger().info("[DEBUG] SessionManager initialized");
         }
 
+        // Collect session length distribution from finished sessions
+        sessionStatistics = new SessionStatistics(this);
+
+        // Persist finished sessions for /ss export
+        sessionJournal = new SessionJournal(this);
+        sessionExporter = new SessionExporter(this, sessionJournal);
+
+        // Roll old history up into per-player hourly and daily playtime
+        rollupManager = new RollupManager(this, sessionJournal);
+
+        // Period leaderboards (daily, weekly, monthly, all time)
+        playtimeTracker = new PlaytimeTracker(this);
+
         // Initialize milestone manager
         milestoneManager = new MilestoneManager(this);
 
@@ -56,6 +102,15 @@ public class SimpleSession extends JavaPlugin {
             getLogger().info("[DEBUG] MilestoneManager initialized");
         }
 
+        // Carry sessions over when players switch servers behind a proxy
+        if (getConfig().getBoolean("network.enabled", false)) {
+            networkSync = new NetworkSync(this);
+            getLogger().info("Network sessions enabled as server '" + networkSync.getServerId() + "'");
+        }
+
+        // Initialize sidebar and tab list renderer (does nothing unless enabled)
+        sidebarManager = new SidebarManager(this);
+
         // Register command
         SimpleSessionCommand commandExecutor = new SimpleSessionCommand(this);
         if (getCommand("simplesession") != null) {
@@ -91,14 +146,60 @@ public class SimpleSession extends JavaPlugin {
      */
     @Override
     public void onDisable() {
+        // Stop tick monitor
+        if (tickMonitor != null) {
+            tickMonitor.stop();
+        }
+
+        // Restore players' scoreboards
+        if (sidebarManager != null) {
+            sidebarManager.disable();
+        }
+
+        // Hand off online sessions to the rest of the network
+        // (before the milestone manager forgets their milestone progress)
+        if (networkSync != null) {
+            networkSync.shutdown();
+        }
+
+        // Clear all active sessions (saved with their milestone progress if restore is enabled)
+        if (sessionManager != null) {
+            sessionManager.clearAllSessions();
+        }
+
         // Shutdown milestone manager
         if (milestoneManager != null) {
             milestoneManager.shutdown();
         }
 
-        // Clear all active sessions
-        if (sessionManager != null) {
-            sessionManager.clearAllSessions();
+        // Save period leaderboards
+        if (playtimeTracker != null) {
+            playtimeTracker.shutdown();
+        }
+
+        // Stop history compaction
+        if (rollupManager != null) {
+            rollupManager.shutdown();
+        }
+
+        // Cancel a running export so it doesn't hold up the IO thread shutdown
+        if (sessionExporter != null) {
+            sessionExporter.shutdown();
+        }
+
+        // Close the session history segment after the last sessions are written
+        if (sessionJournal != null) {
+            sessionJournal.shutdown();
+        }
+
+        // Finish pending saves
+        if (ioExecutor != null) {
+            ioExecutor.shutdown();
+        }
+
+        // Flush pending debug events and stop the writer thread
+        if (debugRecorder != null) {
+            debugRecorder.shutdown();
         }
 
         if (messageManager != null) {
@@ -106,6 +207,24 @@ public class SimpleSession extends JavaPlugin {
         }
     }
 
+    /**
+     * Gets the task scheduler for this server.
+     *
+     * @return TaskScheduler instance
+     */
+    public TaskScheduler getTaskScheduler() {
+        return taskScheduler;
+    }
+
+    /**
+     * Gets the background IO executor.
+     *
+     * @return IoExecutor instance
+     */
+    public IoExecutor getIoExecutor() {
+        return ioExecutor;
+    }
+
     /**
      * Gets the message manager instance.
      *
@@ -115,6 +234,24 @@ public class SimpleSession extends JavaPlugin {
         return messageManager;
     }
 
+    /**
+     * Gets the debug recorder instance.
+     *
+     * @return DebugRecorder instance
+     */
+    public DebugRecorder getDebugRecorder() {
+        return debugRecorder;
+    }
+
+    /**
+     * Gets the tick monitor instance.
+     *
+     * @return TickMonitor instance
+     */
+    public TickMonitor getTickMonitor() {
+        return tickMonitor;
+    }
+
     /**
      * Gets the session manager instance.
      *
@@ -124,6 +261,51 @@ public class SimpleSession extends JavaPlugin {
         return sessionManager;
     }
 
+    /**
+     * Gets the session statistics instance.
+     *
+     * @return SessionStatistics instance
+     */
+    public SessionStatistics getSessionStatistics() {
+        return sessionStatistics;
+    }
+
+    /**
+     * Gets the session history journal instance.
+     *
+     * @return SessionJournal instance
+     */
+    public SessionJournal getSessionJournal() {
+        return sessionJournal;
+    }
+
+    /**
+     * Gets the session history exporter instance.
+     *
+     * @return SessionExporter instance
+     */
+    public SessionExporter getSessionExporter() {
+        return sessionExporter;
+    }
+
+    /**
+     * Gets the session history rollup manager instance.
+     *
+     * @return RollupManager instance
+     */
+    public RollupManager getRollupManager() {
+        return rollupManager;
+    }
+
+    /**
+     * Gets the period playtime tracker instance.
+     *
+     * @return PlaytimeTracker instance
+     */
+    public PlaytimeTracker getPlaytimeTracker() {
+        return playtimeTracker;
+    }
+
     /**
      * Gets the milestone manager instance.
      *
@@ -133,6 +315,24 @@ public class SimpleSession extends JavaPlugin {
         return milestoneManager;
     }
 
+    /**
+     * Gets the network session sync.
+     *
+     * @return NetworkSync instance, or null if network mode is disabled
+     */
+    public NetworkSync getNetworkSync() {
+        return networkSync;
+    }
+
+    /**
+     * Gets the sidebar manager instance.
+     *
+     * @return SidebarManager instance
+     */
+    public SidebarManager getSidebarManager() {
+        return sidebarManager;
+    }
+
     /**
      * Checks if PlaceholderAPI is enabled.
      *
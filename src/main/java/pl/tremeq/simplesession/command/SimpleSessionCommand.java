@@ -1,17 +1,34 @@
 package pl.tremeq.simplesession.command;
 
-import org.bukkit.ChatColor;
+import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
+import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import pl.tremeq.simplesession.SimpleSession;
-
+import pl.tremeq.simplesession.debug.DebugRecorder;
+import pl.tremeq.simplesession.debug.TickMonitor;
+import pl.tremeq.simplesession.history.RollupManager;
+import pl.tremeq.simplesession.history.SessionExporter;
+import pl.tremeq.simplesession.leaderboard.LeaderboardRenderer;
+import pl.tremeq.simplesession.leaderboard.Period;
+import pl.tremeq.simplesession.leaderboard.PlaytimeTracker;
+import pl.tremeq.simplesession.manager.SessionManager;
+import pl.tremeq.simplesession.stats.SessionHistogram;
+import pl.tremeq.simplesession.stats.SessionStatistics;
+import pl.tremeq.simplesession.storage.PlayerProfile;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
 
 /**
  * Main command executor for SimpleSession plugin.
@@ -23,6 +40,7 @@ import java.util.List;
 public class SimpleSessionCommand implements CommandExecutor, TabCompleter {
 
     private final SimpleSession plugin;
+    private final LeaderboardRenderer leaderboardRenderer;
 
     /**
      * Creates a new command executor.
@@ -31,6 +49,7 @@ public class SimpleSessionCommand implements CommandExecutor, TabCompleter {
      */
     public SimpleSessionCommand(SimpleSession plugin) {
         this.plugin = plugin;
+        this.leaderboardRenderer = new LeaderboardRenderer(plugin);
     }
 
     /**
@@ -63,11 +82,33 @@ public class SimpleSessionCommand implements CommandExecutor, TabCompleter {
                 break;
 
             case "debug":
-                handleDebug(sender);
+                if (args.length > 1 && args[1].equalsIgnoreCase("ticks")) {
+                    handleDebugTicks(sender);
+                } else if (args.length > 1 && args[1].equalsIgnoreCase("dump")) {
+                    handleDebugDump(sender, args);
+                } else {
+                    handleDebug(sender);
+                }
                 break;
 
             case "top":
-                handleTop(sender);
+                handleTop(sender, args);
+                break;
+
+            case "stats":
+                handleStats(sender, args);
+                break;
+
+            case "lookup":
+                handleLookup(sender, args);
+                break;
+
+            case "export":
+                handleExport(sender, args);
+                break;
+
+            case "history":
+                handleHistory(sender, args);
                 break;
 
             case "help":
@@ -75,7 +116,7 @@ public class SimpleSessionCommand implements CommandExecutor, TabCompleter {
                 break;
 
             default:
-                sender.sendMessage(plugin.getMessageManager().getMessage("commands.unknown-command"));
+                sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.unknown-command"));
                 return true;
         }
 
@@ -90,7 +131,7 @@ public class SimpleSessionCommand implements CommandExecutor, TabCompleter {
      */
     private void handleReload(CommandSender sender) {
         if (!sender.hasPermission("simplesession.admin")) {
-            sender.sendMessage(plugin.getMessageManager().getMessage("commands.no-permission"));
+            sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.no-permission"));
             return;
         }
 
@@ -102,9 +143,24 @@ public class SimpleSessionCommand implements CommandExecutor, TabCompleter {
                 plugin.getMessageManager().reload();
             }
 
-            // Reload debug mode in SessionManager
+            // Reload debug recorder settings
+            if (plugin.getDebugRecorder() != null) {
+                plugin.getDebugRecorder().reload();
+            }
+
+            // Reload session settings (grace window)
             if (plugin.getSessionManager() != null) {
-                plugin.getSessionManager().reloadDebugMode();
+                plugin.getSessionManager().reload();
+            }
+
+            // Reload playtime leaderboards (period timezone, board size)
+            if (plugin.getPlaytimeTracker() != null) {
+                plugin.getPlaytimeTracker().reload();
+            }
+
+            // Reload tick monitor
+            if (plugin.getTickMonitor() != null) {
+                plugin.getTickMonitor().reload();
             }
 
             // Reload milestones
@@ -112,13 +168,26 @@ public class SimpleSessionCommand implements CommandExecutor, TabCompleter {
                 plugin.getMilestoneManager().reload();
             }
 
-            sender.sendMessage(plugin.getMessageManager().getMessage("commands.reload.success"));
+            // Reload history retention
+            if (plugin.getRollupManager() != null) {
+                plugin.getRollupManager().reload();
+            }
+
+            // Drop rendered leaderboard pages
+            leaderboardRenderer.reload();
+
+            // Reload sidebar and tab list
+            if (plugin.getSidebarManager() != null) {
+                plugin.getSidebarManager().reload();
+            }
+
+            sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.reload.success"));
 
             if (plugin.getConfig().getBoolean("debug", false)) {
                 plugin.getLogger().info("[DEBUG] Configuration reloaded by " + sender.getName());
             }
         } catch (Exception e) {
-            sender.sendMessage(plugin.getMessageManager().getMessage("commands.reload.error"));
+            sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.reload.error"));
             plugin.getLogger().severe("Error reloading configuration: " + e.getMessage());
             e.printStackTrace();
         }
@@ -132,12 +201,12 @@ public class SimpleSessionCommand implements CommandExecutor, TabCompleter {
      */
     private void handleInfo(CommandSender sender) {
         String placeholderStatus = plugin.isPlaceholderAPIEnabled() ?
-                plugin.getMessageManager().getMessage("commands.info.placeholderapi-enabled") :
-                plugin.getMessageManager().getMessage("commands.info.placeholderapi-disabled");
+                plugin.getMessageManager().getMessage(sender, "commands.info.placeholderapi-enabled") :
+                plugin.getMessageManager().getMessage(sender, "commands.info.placeholderapi-disabled");
 
-        sender.sendMessage(plugin.getMessageManager().getMessage("commands.info.header"));
+        sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.info.header"));
 
-        List<String> infoLines = plugin.getMessageManager().getMessageList("commands.info.lines",
+        List<String> infoLines = plugin.getMessageManager().getMessageList(sender, "commands.info.lines",
                 "{version}", plugin.getDescription().getVersion(),
                 "{placeholderapi}", placeholderStatus);
 
@@ -145,7 +214,7 @@ public class SimpleSessionCommand implements CommandExecutor, TabCompleter {
             sender.sendMessage(line);
         }
 
-        sender.sendMessage(plugin.getMessageManager().getMessage("commands.info.footer"));
+        sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.info.footer"));
     }
 
     /**
@@ -156,7 +225,7 @@ public class SimpleSessionCommand implements CommandExecutor, TabCompleter {
      */
     private void handleDebug(CommandSender sender) {
         if (!sender.hasPermission("simplesession.admin")) {
-            sender.sendMessage(plugin.getMessageManager().getMessage("commands.no-permission"));
+            sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.no-permission"));
             return;
         }
 
@@ -166,14 +235,14 @@ public class SimpleSessionCommand implements CommandExecutor, TabCompleter {
         plugin.getConfig().set("debug", newDebug);
         plugin.saveConfig();
 
-        // Reload debug mode in SessionManager
-        if (plugin.getSessionManager() != null) {
-            plugin.getSessionManager().reloadDebugMode();
+        // Apply new debug mode to the recorder
+        if (plugin.getDebugRecorder() != null) {
+            plugin.getDebugRecorder().reload();
         }
 
         String message = newDebug ?
-                plugin.getMessageManager().getMessage("commands.debug.enabled") :
-                plugin.getMessageManager().getMessage("commands.debug.disabled");
+                plugin.getMessageManager().getMessage(sender, "commands.debug.enabled") :
+                plugin.getMessageManager().getMessage(sender, "commands.debug.disabled");
 
         sender.sendMessage(message);
 
@@ -184,116 +253,409 @@ public class SimpleSessionCommand implements CommandExecutor, TabCompleter {
         }
     }
 
+    /**
+     * Handles the debug ticks subcommand.
+     * Dumps the worst recorded ticks from the tick monitor.
+     *
+     * @param sender Command sender
+     */
+    private void handleDebugTicks(CommandSender sender) {
+        if (!sender.hasPermission("simplesession.admin")) {
+            sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.no-permission"));
+            return;
+        }
+
+        TickMonitor tickMonitor = plugin.getTickMonitor();
+        if (tickMonitor == null || !tickMonitor.isEnabled()) {
+            sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.debug.ticks-disabled"));
+            return;
+        }
+
+        List<TickMonitor.TickSample> samples = tickMonitor.getWorstTicks();
+        if (samples.isEmpty()) {
+            sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.debug.ticks-empty"));
+            return;
+        }
+
+        sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.debug.ticks-header",
+                "{count}", String.valueOf(samples.size()),
+                "{budget}", TickMonitor.formatNanos(tickMonitor.getBudgetNanos())));
+
+        long now = System.currentTimeMillis();
+        for (TickMonitor.TickSample sample : samples) {
+            sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.debug.ticks-line",
+                    "{tick}", String.valueOf(sample.getTick()),
+                    "{ago}", String.valueOf((now - sample.getTimestamp()) / 1000),
+                    "{time}", TickMonitor.formatNanos(sample.getTotalNanos()),
+                    "{sections}", TickMonitor.formatSections(sample.getSectionNanos())));
+        }
+    }
+
+    /**
+     * Handles the debug dump subcommand.
+     * Shows the most recent debug events, optionally filtered by category.
+     * Usage: /ss debug dump [category] [count]
+     *
+     * @param sender Command sender
+     * @param args Command arguments
+     */
+    private void handleDebugDump(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("simplesession.admin")) {
+            sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.no-permission"));
+            return;
+        }
+
+        DebugRecorder.Category category = null;
+        int limit = 20;
+
+        for (int i = 2; i < args.length; i++) {
+            try {
+                limit = Math.max(1, Integer.parseInt(args[i]));
+                continue;
+            } catch (NumberFormatException ignored) {
+                // Not a number - treat as category
+            }
+
+            category = DebugRecorder.Category.fromName(args[i]);
+            if (category == null) {
+                sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.debug.dump-unknown-category",
+                        "{category}", args[i]));
+                return;
+            }
+        }
+
+        List<String> events = plugin.getDebugRecorder().dump(category, limit);
+        if (events.isEmpty()) {
+            sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.debug.dump-empty"));
+            return;
+        }
+
+        sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.debug.dump-header",
+                "{count}", String.valueOf(events.size()),
+                "{category}", category != null ? category.getConfigName() : "all"));
+        for (String event : events) {
+            sender.sendMessage(event);
+        }
+    }
+
     /**
      * Handles the top subcommand.
-     * Displays top players by current session time (configurable size).
+     * Displays a page of top players by current session time (page size = leaderboard.top-size).
+     * Usage: /ss top [page]
      *
      * @param sender Command sender
+     * @param args Command arguments
      */
-    private void handleTop(CommandSender sender) {
-        // Get sorted players from SessionManager (uses cache)
-        java.util.List<org.bukkit.entity.Player> sortedPlayers =
-            plugin.getSessionManager().getSortedPlayers();
+    private void handleTop(CommandSender sender, String[] args) {
+        int pageCount = leaderboardRenderer.getPageCount();
+        if (pageCount == 0) {
+            sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.top.no-players"));
+            return;
+        }
 
-        if (sortedPlayers.isEmpty()) {
-            sender.sendMessage(plugin.getMessageManager().getMessage("commands.top.no-players"));
+        int page = 1;
+        if (args.length > 1) {
+            try {
+                page = Integer.parseInt(args[1]);
+            } catch (NumberFormatException e) {
+                sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.top.invalid-page",
+                        "{page}", args[1],
+                        "{pages}", String.valueOf(pageCount)));
+                return;
+            }
+        }
+
+        // Rendered lines are shared by everyone viewing the same page this second
+        List<String> lines = leaderboardRenderer.getPage(page);
+        if (lines == null) {
+            sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.top.invalid-page",
+                    "{page}", String.valueOf(page),
+                    "{pages}", String.valueOf(pageCount)));
+            return;
+        }
+
+        for (String line : lines) {
+            sender.sendMessage(line);
+        }
+    }
+
+    /**
+     * Handles the stats subcommand.
+     * Shows p50/p90/p99 session lengths for each rolling window.
+     * Usage: /ss stats sessions
+     *
+     * @param sender Command sender
+     * @param args Command arguments
+     */
+    private void handleStats(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("simplesession.admin")) {
+            sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.no-permission"));
+            return;
+        }
+
+        if (args.length < 2 || !args[1].equalsIgnoreCase("sessions")) {
+            sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.stats.usage"));
             return;
         }
 
-        // Get leaderboard size from config
-        int topSize = plugin.getConfig().getInt("leaderboard.top-size", 10);
-
-        // Validate top-size is positive
-        if (topSize <= 0) {
-            plugin.getLogger().warning("Invalid leaderboard.top-size (" + topSize + "). Using default 10.");
-            topSize = 10;
-        }
-
-        // Get format settings from config
-        String header = plugin.getConfig().getString("leaderboard.format.header", "&7╔════════════════════════════════╗");
-        String separator = plugin.getConfig().getString("leaderboard.format.separator", "&7╠════════════════════════════════╣");
-        String lineFormat = plugin.getConfig().getString("leaderboard.format.line", "&7║ {medal} {rank}. {player} &7- {color}{time}");
-        String footer = plugin.getConfig().getString("leaderboard.format.footer", "&7╚════════════════════════════════╝");
-
-        // Get medals from config
-        String medalFirst = plugin.getConfig().getString("leaderboard.format.medals.first", "🥇");
-        String medalSecond = plugin.getConfig().getString("leaderboard.format.medals.second", "🥈");
-        String medalThird = plugin.getConfig().getString("leaderboard.format.medals.third", "🥉");
-        String medalOther = plugin.getConfig().getString("leaderboard.format.medals.other", "  ");
-
-        // Get colors from config
-        String colorFirst = plugin.getConfig().getString("leaderboard.format.colors.first", "&6");
-        String colorSecond = plugin.getConfig().getString("leaderboard.format.colors.second", "&7");
-        String colorThird = plugin.getConfig().getString("leaderboard.format.colors.third", "&c");
-        String colorOther = plugin.getConfig().getString("leaderboard.format.colors.other", "&f");
-
-        // Get title from config
-        String title = plugin.getConfig().getString("leaderboard.title", "&6&l🏆 TOP {size} - Bieżące Sesje");
-        title = ChatColor.translateAlternateColorCodes('&', title)
-                .replace("{size}", String.valueOf(topSize));
-
-        // Display header
-        sender.sendMessage(ChatColor.translateAlternateColorCodes('&', header));
-        sender.sendMessage(title);
-        sender.sendMessage(ChatColor.translateAlternateColorCodes('&', separator));
-
-        // Display players
-        int limit = Math.min(topSize, sortedPlayers.size());
-        for (int i = 0; i < limit; i++) {
-            org.bukkit.entity.Player player = sortedPlayers.get(i);
-            long sessionSeconds = plugin.getSessionManager().getSessionSeconds(player.getUniqueId());
-            String formattedTime = formatSessionTime(sessionSeconds);
-
-            // Determine medal and color based on rank
-            String medal;
-            String color;
-            if (i == 0) {
-                medal = medalFirst;
-                color = colorFirst;
-            } else if (i == 1) {
-                medal = medalSecond;
-                color = colorSecond;
-            } else if (i == 2) {
-                medal = medalThird;
-                color = colorThird;
-            } else {
-                medal = medalOther;
-                color = colorOther;
+        sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.stats.header"));
+        for (SessionStatistics.Window window : SessionStatistics.Window.values()) {
+            SessionHistogram histogram = plugin.getSessionStatistics().getHistogram(window);
+            sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.stats.line",
+                    "{window}", plugin.getMessageManager().getMessage(sender, "commands.stats.window-" + window.getConfigName()),
+                    "{count}", String.valueOf(histogram.getTotalCount()),
+                    "{p50}", plugin.getSessionManager().formatDuration(histogram.getPercentile(50), "short"),
+                    "{p90}", plugin.getSessionManager().formatDuration(histogram.getPercentile(90), "short"),
+                    "{p99}", plugin.getSessionManager().formatDuration(histogram.getPercentile(99), "short")));
+        }
+    }
+
+    /**
+     * Handles the lookup subcommand.
+     * Shows a player's playtime per period and all-time rank, online or offline.
+     * Name resolution and profile loading run on the IO thread.
+     * Usage: /ss lookup <player>
+     *
+     * @param sender Command sender
+     * @param args Command arguments
+     */
+    private void handleLookup(CommandSender sender, String[] args) {
+        if (args.length < 2) {
+            sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.lookup.usage"));
+            return;
+        }
+
+        String name = args[1];
+        Player online = plugin.getServer().getPlayerExact(name);
+        PlaytimeTracker tracker = plugin.getPlaytimeTracker();
+
+        plugin.getIoExecutor().execute(() -> {
+            OfflinePlayer target = online != null ? online : findKnownPlayer(name);
+            UUID playerId = target != null ? target.getUniqueId() : null;
+            PlayerProfile profile = playerId != null ? tracker.loadProfile(playerId) : null;
+
+            if (profile == null) {
+                plugin.getTaskScheduler().run(() -> sender.sendMessage(plugin.getMessageManager().getMessage(sender,
+                        "commands.lookup.not-found", "{player}", name)));
+                return;
             }
 
-            // Format and send line
-            String line = lineFormat
-                    .replace("{medal}", medal)
-                    .replace("{rank}", String.valueOf(i + 1))
-                    .replace("{player}", player.getName())
-                    .replace("{time}", formattedTime)
-                    .replace("{color}", color);
+            SessionManager sessionManager = plugin.getSessionManager();
+            String displayName = target.getName() != null ? target.getName() : name;
+            int rank = tracker.getRanking().getRank(playerId);
+            String[] placeholders = {
+                    "{status}", null,
+                    "{player}", displayName,
+                    "{daily}", sessionManager.formatDuration(profile.getTotal(Period.DAILY, tracker.getCurrentKey(Period.DAILY)) / 1000),
+                    "{weekly}", sessionManager.formatDuration(profile.getTotal(Period.WEEKLY, tracker.getCurrentKey(Period.WEEKLY)) / 1000),
+                    "{monthly}", sessionManager.formatDuration(profile.getTotal(Period.MONTHLY, tracker.getCurrentKey(Period.MONTHLY)) / 1000),
+                    "{alltime}", sessionManager.formatDuration(profile.getTotal(Period.ALL_TIME, tracker.getCurrentKey(Period.ALL_TIME)) / 1000),
+                    "{rank}", rank > 0 ? String.valueOf(rank) : "N/A"
+            };
+
+            plugin.getTaskScheduler().run(() -> {
+                placeholders[1] = sessionManager.hasActiveSession(playerId)
+                        ? plugin.getMessageManager().getMessage(sender, "commands.lookup.online",
+                                "{session}", sessionManager.getFormattedSessionTime(playerId))
+                        : plugin.getMessageManager().getMessage(sender, "commands.lookup.offline");
+
+                sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.lookup.header", placeholders));
+                for (String line : plugin.getMessageManager().getMessageList(sender, "commands.lookup.lines", placeholders)) {
+                    sender.sendMessage(line);
+                }
+            });
+        });
+    }
 
-            sender.sendMessage(ChatColor.translateAlternateColorCodes('&', line));
+    /**
+     * Finds a player who played here before by name.
+     * Only the server's own player data is searched - unlike getOfflinePlayer(name),
+     * an unknown name never turns into a blocking profile lookup on the IO thread.
+     *
+     * @param name Player name, any case
+     * @return The player, or null if no player with this name played here
+     */
+    private OfflinePlayer findKnownPlayer(String name) {
+        for (OfflinePlayer player : plugin.getServer().getOfflinePlayers()) {
+            if (name.equalsIgnoreCase(player.getName())) {
+                return player;
+            }
         }
+        return null;
+    }
+
+    /**
+     * Handles the export subcommand.
+     * Streams sessions that ended between two dates (both inclusive, in the
+     * leaderboard time zone) into a file in the exports folder. Runs on the IO thread.
+     * Usage: /ss export <from> <to> <csv|ndjson>
+     *
+     * @param sender Command sender
+     * @param args Command arguments
+     */
+    private void handleExport(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("simplesession.admin")) {
+            sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.no-permission"));
+            return;
+        }
+
+        if (args.length < 4) {
+            sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.export.usage"));
+            return;
+        }
+
+        long[] range = parseRange(sender, args[1], args[2], "commands.export");
+        if (range == null) {
+            return;
+        }
+
+        SessionExporter.Format format = SessionExporter.Format.fromName(args[3]);
+        if (format == null) {
+            sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.export.invalid-format",
+                    "{format}", args[3]));
+            return;
+        }
+
+        // Older days are compacted into totals (history.raw-retention), their sessions are gone
+        LocalDate rawCutoff = plugin.getRollupManager().getRawCutoff();
+        long rawCutoffMillis = rawCutoff.toEpochDay() * 86_400_000L;
+        if (range[1] <= rawCutoffMillis) {
+            sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.export.compacted",
+                    "{date}", rawCutoff.toString()));
+            return;
+        }
+        if (range[0] < rawCutoffMillis) {
+            sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.export.partly-compacted",
+                    "{date}", rawCutoff.toString()));
+        }
+
+        String fileName = "sessions-" + args[1] + "-" + args[2] + "-" + System.currentTimeMillis() / 1000;
+
+        boolean started = plugin.getSessionExporter().start(range[0], range[1], format, fileName, new SessionExporter.Progress() {
+            @Override
+            public void onProgress(long rows) {
+                plugin.getTaskScheduler().run(() -> sender.sendMessage(plugin.getMessageManager().getMessage(sender,
+                        "commands.export.progress", "{count}", String.valueOf(rows))));
+            }
+
+            @Override
+            public void onDone(long rows, File file) {
+                plugin.getTaskScheduler().run(() -> sender.sendMessage(plugin.getMessageManager().getMessage(sender,
+                        "commands.export.done", "{count}", String.valueOf(rows), "{file}", file.getName())));
+            }
 
-        // Display footer
-        sender.sendMessage(ChatColor.translateAlternateColorCodes('&', footer));
+            @Override
+            public void onFailed(String error) {
+                plugin.getTaskScheduler().run(() -> sender.sendMessage(plugin.getMessageManager().getMessage(sender,
+                        "commands.export.failed", "{error}", String.valueOf(error))));
+            }
+        });
+
+        if (!started) {
+            sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.export.already-running"));
+            return;
+        }
+        sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.export.started",
+                "{file}", fileName + "." + format.getExtension()));
     }
 
     /**
-     * Formats session time in seconds to readable format.
+     * Handles the history subcommand.
+     * Shows the players with the most playtime between two dates (both
+     * inclusive), or one player's playtime, read from the session history
+     * and its rollups on the IO thread.
+     * Usage: /ss history <from> <to> [player]
      *
-     * @param seconds Session time in seconds
-     * @return Formatted time string
+     * @param sender Command sender
+     * @param args Command arguments
      */
-    private String formatSessionTime(long seconds) {
-        long hours = seconds / 3600;
-        long minutes = (seconds % 3600) / 60;
-        long secs = seconds % 60;
-
-        if (hours > 0) {
-            return String.format("%dh %dm", hours, minutes);
-        } else if (minutes > 0) {
-            return String.format("%dm %ds", minutes, secs);
-        } else {
-            return String.format("%ds", secs);
+    private void handleHistory(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("simplesession.admin")) {
+            sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.no-permission"));
+            return;
+        }
+
+        if (args.length < 3) {
+            sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.history.usage"));
+            return;
+        }
+
+        long[] range = parseRange(sender, args[1], args[2], "commands.history");
+        if (range == null) {
+            return;
+        }
+
+        String fromText = args[1];
+        String toText = args[2];
+        String playerName = args.length > 3 ? args[3] : null;
+        int limit = Math.max(1, plugin.getConfig().getInt("playtime.top-size", 10));
+        RollupManager rollups = plugin.getRollupManager();
+        SessionManager sessionManager = plugin.getSessionManager();
+
+        plugin.getIoExecutor().execute(() -> {
+            if (playerName != null) {
+                RollupManager.Entry entry = rollups.getPlaytime(playerName, range[0], range[1]);
+                plugin.getTaskScheduler().run(() -> sender.sendMessage(entry == null
+                        ? plugin.getMessageManager().getMessage(sender, "commands.history.not-found",
+                                "{player}", playerName)
+                        : plugin.getMessageManager().getMessage(sender, "commands.history.player",
+                                "{player}", entry.getPlayerName(),
+                                "{time}", sessionManager.formatDuration(entry.getTotalMillis() / 1000),
+                                "{from}", fromText,
+                                "{to}", toText)));
+                return;
+            }
+
+            List<RollupManager.Entry> entries = rollups.getTopPlaytime(range[0], range[1], limit);
+            plugin.getTaskScheduler().run(() -> {
+                if (entries.isEmpty()) {
+                    sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.history.empty"));
+                    return;
+                }
+                sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.history.header",
+                        "{from}", fromText, "{to}", toText));
+                for (int i = 0; i < entries.size(); i++) {
+                    RollupManager.Entry entry = entries.get(i);
+                    sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.history.line",
+                            "{position}", String.valueOf(i + 1),
+                            "{player}", entry.getPlayerName(),
+                            "{time}", sessionManager.formatDuration(entry.getTotalMillis() / 1000)));
+                }
+            });
+        });
+    }
+
+    /**
+     * Parses a range of two dates (yyyy-mm-dd, both inclusive) in the playtime timezone.
+     * Sends the error message under the given path if they are invalid.
+     *
+     * @return Start (inclusive) and end (exclusive) in milliseconds, or null if invalid
+     */
+    private long[] parseRange(CommandSender sender, String fromText, String toText, String messagePath) {
+        LocalDate from;
+        LocalDate to;
+        try {
+            from = LocalDate.parse(fromText);
+        } catch (DateTimeParseException e) {
+            sender.sendMessage(plugin.getMessageManager().getMessage(sender, messagePath + ".invalid-date", "{date}", fromText));
+            return null;
+        }
+        try {
+            to = LocalDate.parse(toText);
+        } catch (DateTimeParseException e) {
+            sender.sendMessage(plugin.getMessageManager().getMessage(sender, messagePath + ".invalid-date", "{date}", toText));
+            return null;
         }
+        if (from.isAfter(to)) {
+            sender.sendMessage(plugin.getMessageManager().getMessage(sender, messagePath + ".invalid-range"));
+            return null;
+        }
+
+        ZoneId zone = plugin.getPlaytimeTracker().getZone();
+        return new long[]{
+                from.atStartOfDay(zone).toInstant().toEpochMilli(),
+                to.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli()
+        };
     }
 
     /**
@@ -302,14 +664,14 @@ public class SimpleSessionCommand implements CommandExecutor, TabCompleter {
      * @param sender Command sender
      */
     private void sendHelp(CommandSender sender) {
-        sender.sendMessage(plugin.getMessageManager().getMessage("commands.help.header"));
+        sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.help.header"));
 
-        List<String> helpLines = plugin.getMessageManager().getMessageList("commands.help.list");
+        List<String> helpLines = plugin.getMessageManager().getMessageList(sender, "commands.help.list");
         for (String line : helpLines) {
             sender.sendMessage(line);
         }
 
-        sender.sendMessage(plugin.getMessageManager().getMessage("commands.help.footer"));
+        sender.sendMessage(plugin.getMessageManager().getMessage(sender, "commands.help.footer"));
     }
 
     /**
@@ -327,11 +689,14 @@ public class SimpleSessionCommand implements CommandExecutor, TabCompleter {
         List<String> completions = new ArrayList<>();
 
         if (args.length == 1) {
-            List<String> subCommands = new ArrayList<>(Arrays.asList("help", "info", "version", "top"));
+            List<String> subCommands = new ArrayList<>(Arrays.asList("help", "info", "version", "top", "lookup"));
 
             if (sender.hasPermission("simplesession.admin")) {
                 subCommands.add("reload");
                 subCommands.add("debug");
+                subCommands.add("stats");
+                subCommands.add("export");
+                subCommands.add("history");
             }
 
             String input = args[0].toLowerCase();
@@ -340,6 +705,46 @@ public class SimpleSessionCommand implements CommandExecutor, TabCompleter {
                     completions.add(subCommand);
                 }
             }
+        } else if (args.length == 2 && args[0].equalsIgnoreCase("debug") && sender.hasPermission("simplesession.admin")) {
+            String input = args[1].toLowerCase();
+            for (String option : Arrays.asList("ticks", "dump")) {
+                if (option.startsWith(input)) {
+                    completions.add(option);
+                }
+            }
+        } else if (args.length == 2 && args[0].equalsIgnoreCase("lookup")) {
+            String input = args[1].toLowerCase();
+            for (Player player : plugin.getServer().getOnlinePlayers()) {
+                if (player.getName().toLowerCase().startsWith(input)) {
+                    completions.add(player.getName());
+                }
+            }
+        } else if (args.length == 2 && args[0].equalsIgnoreCase("stats") && sender.hasPermission("simplesession.admin")) {
+            if ("sessions".startsWith(args[1].toLowerCase())) {
+                completions.add("sessions");
+            }
+        } else if ((args.length == 2 || args.length == 3)
+                && (args[0].equalsIgnoreCase("export") || args[0].equalsIgnoreCase("history"))
+                && sender.hasPermission("simplesession.admin")) {
+            String today = LocalDate.now(plugin.getPlaytimeTracker().getZone()).toString();
+            if (today.startsWith(args[args.length - 1])) {
+                completions.add(today);
+            }
+        } else if (args.length == 4 && args[0].equalsIgnoreCase("export") && sender.hasPermission("simplesession.admin")) {
+            String input = args[3].toLowerCase();
+            for (SessionExporter.Format format : SessionExporter.Format.values()) {
+                if (format.getExtension().startsWith(input)) {
+                    completions.add(format.getExtension());
+                }
+            }
+        } else if (args.length == 3 && args[0].equalsIgnoreCase("debug") && args[1].equalsIgnoreCase("dump")
+                && sender.hasPermission("simplesession.admin")) {
+            String input = args[2].toLowerCase();
+            for (DebugRecorder.Category category : DebugRecorder.Category.values()) {
+                if (category.getConfigName().startsWith(input)) {
+                    completions.add(category.getConfigName());
+                }
+            }
         }
 
         return completions;
@@ -0,0 +1,378 @@
+package pl.tremeq.simplesession.debug;
+
+import pl.tremeq.simplesession.SimpleSession;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records debug events into a preallocated lock-free ring buffer.
+ *
+ * Producers (event handlers, timers) only claim a slot and store a template
+ * with raw arguments - no string concatenation or logging happens on the
+ * calling thread. A background thread formats new events and writes them
+ * to the console. The ring keeps the most recent events for /ss debug dump.
+ *
+ * Templates use {@link String#format} syntax with explicit indexes:
+ * %1$s is the text argument, %2$d and %3$d are the numeric arguments.
+ *
+ * @author TremeQ
+ */
+public class DebugRecorder {
+
+    /**
+     * Debug event categories that can be filtered in config.
+     */
+    public enum Category {
+        SESSION("session"),
+        CACHE("cache"),
+        MILESTONE("milestone");
+
+        private final String configName;
+
+        Category(String configName) {
+            this.configName = configName;
+        }
+
+        /**
+         * Gets the name used in config and commands.
+         *
+         * @return Category name
+         */
+        public String getConfigName() {
+            return configName;
+        }
+
+        /**
+         * Finds a category by its config name.
+         *
+         * @param name Category name (case-insensitive)
+         * @return Matching category, or null if unknown
+         */
+        public static Category fromName(String name) {
+            for (Category category : values()) {
+                if (category.configName.equalsIgnoreCase(name)) {
+                    return category;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final int CAPACITY = 1024; // must be a power of two
+    private static final int MASK = CAPACITY - 1;
+    private static final long WRITING = Long.MIN_VALUE; // slot claimed by a writer
+    private static final VarHandle SLOT_SEQUENCE;
+    private static final long DRAIN_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final DateTimeFormatter TIME_FORMAT =
+            DateTimeFormatter.ofPattern("HH:mm:ss.SSS", Locale.ROOT).withZone(ZoneId.systemDefault());
+
+    static {
+        try {
+            SLOT_SEQUENCE = MethodHandles.lookup().findVarHandle(Slot.class, "sequence", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final SimpleSession plugin;
+    private final Slot[] slots = new Slot[CAPACITY];
+    private final AtomicLong cursor = new AtomicLong();
+
+    private volatile boolean enabled;
+    private volatile int categoryMask;
+    private volatile boolean consoleOutput;
+
+    private Thread worker;
+    private volatile boolean running;
+    private long readSequence = 0; // owned by the worker thread
+    private long droppedEvents = 0; // owned by the worker thread
+
+    /**
+     * Creates a new DebugRecorder and starts the background writer.
+     *
+     * @param plugin The main plugin instance
+     */
+    public DebugRecorder(SimpleSession plugin) {
+        this.plugin = plugin;
+        for (int i = 0; i < CAPACITY; i++) {
+            slots[i] = new Slot();
+        }
+        reload();
+        start();
+    }
+
+    /**
+     * Reloads debug settings from config.
+     * Unknown category names are reported and ignored; an empty list enables all categories.
+     */
+    public void reload() {
+        List<String> categories = plugin.getConfig().getStringList("debug-log.categories");
+        int mask = 0;
+        if (categories.isEmpty()) {
+            mask = (1 << Category.values().length) - 1;
+        } else {
+            for (String name : categories) {
+                Category category = Category.fromName(name);
+                if (category == null) {
+                    plugin.getLogger().warning("Unknown debug category '" + name + "'. Skipping.");
+                    continue;
+                }
+                mask |= 1 << category.ordinal();
+            }
+        }
+
+        categoryMask = mask;
+        consoleOutput = plugin.getConfig().getBoolean("debug-log.console", true);
+        enabled = plugin.getConfig().getBoolean("debug", false);
+    }
+
+    private void start() {
+        running = true;
+        readSequence = cursor.get();
+        worker = new Thread(this::runWorker, "SimpleSession-Debug");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Stops the background writer after flushing pending events.
+     */
+    public void shutdown() {
+        running = false;
+        if (worker != null) {
+            LockSupport.unpark(worker);
+            try {
+                worker.join(1000L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            worker = null;
+        }
+    }
+
+    /**
+     * Checks if events of a category are currently recorded.
+     *
+     * @param category Event category
+     * @return true if debug mode is on and the category is enabled
+     */
+    public boolean isEnabled(Category category) {
+        return enabled && (categoryMask & (1 << category.ordinal())) != 0;
+    }
+
+    /**
+     * Records an event without arguments.
+     *
+     * @param category Event category
+     * @param template Message template
+     */
+    public void record(Category category, String template) {
+        record(category, template, null, 0L, 0L);
+    }
+
+    /**
+     * Records an event with a text argument (%1$s).
+     *
+     * @param category Event category
+     * @param template Message template
+     * @param text Text argument
+     */
+    public void record(Category category, String template, String text) {
+        record(category, template, text, 0L, 0L);
+    }
+
+    /**
+     * Records an event with a text (%1$s) and a numeric (%2$d) argument.
+     *
+     * @param category Event category
+     * @param template Message template
+     * @param text Text argument
+     * @param value Numeric argument
+     */
+    public void record(Category category, String template, String text, long value) {
+        record(category, template, text, value, 0L);
+    }
+
+    /**
+     * Records an event with a text (%1$s) and two numeric (%2$d, %3$d) arguments.
+     * Writes into a preallocated slot; does not allocate or format.
+     *
+     * @param category Event category
+     * @param template Message template
+     * @param text Text argument
+     * @param first First numeric argument
+     * @param second Second numeric argument
+     */
+    public void record(Category category, String template, String text, long first, long second) {
+        if (!isEnabled(category)) {
+            return;
+        }
+
+        long sequence = cursor.getAndIncrement();
+        Slot slot = slots[(int) (sequence & MASK)];
+
+        // Claim the slot so a writer a full lap ahead or behind can't interleave its fields.
+        // The CAS is a full fence: the stores below can't become visible before the claim.
+        while (true) {
+            long current = slot.sequence;
+            if (current >= sequence) {
+                return; // A newer event already took the slot, ours counts as dropped
+            }
+            if (current == WRITING) {
+                Thread.onSpinWait(); // Only a handful of stores to wait for
+                continue;
+            }
+            if (SLOT_SEQUENCE.compareAndSet(slot, current, WRITING)) {
+                break;
+            }
+        }
+
+        slot.timestamp = System.currentTimeMillis();
+        slot.category = category;
+        slot.template = template;
+        slot.text = text;
+        slot.first = first;
+        slot.second = second;
+        slot.sequence = sequence;
+    }
+
+    /**
+     * Background loop: formats and logs new events, then sleeps briefly.
+     */
+    private void runWorker() {
+        while (running) {
+            drain();
+            LockSupport.parkNanos(this, DRAIN_INTERVAL_NANOS);
+        }
+        drain();
+    }
+
+    private void drain() {
+        long end = cursor.get();
+
+        // The writers lapped us - skip what was overwritten
+        if (end - readSequence > CAPACITY) {
+            droppedEvents += end - CAPACITY - readSequence;
+            readSequence = end - CAPACITY;
+        }
+
+        Event event = new Event();
+        while (readSequence < end) {
+            int result = read(readSequence, event);
+            if (result < 0) {
+                break; // Not published yet, try again next round
+            }
+            if (result > 0 && consoleOutput) {
+                plugin.getLogger().info("[DEBUG] " + event.format());
+            } else if (result == 0) {
+                droppedEvents++;
+            }
+            readSequence++;
+        }
+
+        if (droppedEvents > 0 && consoleOutput) {
+            plugin.getLogger().info("[DEBUG] " + droppedEvents + " debug events dropped (buffer overrun)");
+            droppedEvents = 0;
+        }
+    }
+
+    /**
+     * Copies a slot into an event if it still holds the given sequence.
+     *
+     * @param sequence Expected sequence number
+     * @param event Target event
+     * @return 1 if copied, 0 if the slot was overwritten, -1 if not published yet
+     */
+    private int read(long sequence, Event event) {
+        Slot slot = slots[(int) (sequence & MASK)];
+        long before = slot.sequence;
+        if (before != sequence) {
+            return before > sequence ? 0 : -1;
+        }
+
+        event.timestamp = slot.timestamp;
+        event.category = slot.category;
+        event.template = slot.template;
+        event.text = slot.text;
+        event.first = slot.first;
+        event.second = slot.second;
+
+        // A writer reused the slot while we were reading. The fence keeps the
+        // copies above from being reordered after the re-check.
+        VarHandle.loadLoadFence();
+        return slot.sequence == sequence ? 1 : 0;
+    }
+
+    /**
+     * Formats the most recent events still held in the ring buffer.
+     *
+     * @param category Category filter, or null for all categories
+     * @param limit Maximum number of events to return
+     * @return Formatted events, oldest first
+     */
+    public List<String> dump(Category category, int limit) {
+        List<String> lines = new ArrayList<>();
+        long end = cursor.get();
+        long start = Math.max(0L, end - CAPACITY);
+        Event event = new Event();
+
+        for (long sequence = end - 1; sequence >= start && lines.size() < limit; sequence--) {
+            if (read(sequence, event) <= 0) {
+                continue;
+            }
+            if (category != null && event.category != category) {
+                continue;
+            }
+            lines.add(event.format());
+        }
+
+        Collections.reverse(lines);
+        return lines;
+    }
+
+    /**
+     * A preallocated ring buffer entry.
+     */
+    private static final class Slot {
+        volatile long sequence = -1L;
+        long timestamp;
+        Category category;
+        String template;
+        String text;
+        long first;
+        long second;
+    }
+
+    /**
+     * A copied event, formatted off the producer thread.
+     */
+    private static final class Event {
+        long timestamp;
+        Category category;
+        String template;
+        String text;
+        long first;
+        long second;
+
+        String format() {
+            String message;
+            try {
+                message = String.format(Locale.ROOT, template, text, first, second);
+            } catch (RuntimeException e) {
+                message = template;
+            }
+            return TIME_FORMAT.format(Instant.ofEpochMilli(timestamp)) + " [" + category.getConfigName() + "] " + message;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package pl.tremeq.simplesession.debug;
+
+import pl.tremeq.simplesession.SimpleSession;
+import pl.tremeq.simplesession.scheduler.ScheduledTask;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Measures how much of each server tick is spent in SimpleSession code.
+ *
+ * Instrumented sections add their elapsed time to per-tick accumulators.
+ * A 1-tick timer closes every tick, warns (rate-limited) when the plugin
+ * went over the configured budget and keeps the worst tick of every second
+ * in a fixed-size ring buffer that can be dumped with /ss debug ticks.
+ *
+ * On Folia the tick is the global region tick and the total includes
+ * plugin work done on all region threads during it.
+ *
+ * @author TremeQ
+ */
+public class TickMonitor {
+
+    /**
+     * Instrumented parts of the plugin.
+     */
+    public enum Section {
+        MILESTONE_CHECK("milestone-check"),
+        PLAYER_JOIN("player-join"),
+        PLAYER_QUIT("player-quit"),
+        MILESTONE_REWARD("milestone-reward"),
+        SIDEBAR("sidebar"),
+        ACTIVITY_SWEEP("activity-sweep"),
+        REGION_SWEEP("region-sweep");
+
+        private final String displayName;
+
+        Section(String displayName) {
+            this.displayName = displayName;
+        }
+
+        /**
+         * Gets the name used in warnings and dumps.
+         *
+         * @return Display name of the section
+         */
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    private static final Section[] SECTIONS = Section.values();
+    private static final int TICKS_PER_WINDOW = 20; // one ring entry per second
+
+    private final SimpleSession plugin;
+    private final AtomicLongArray currentTick = new AtomicLongArray(SECTIONS.length);
+    private final long[] tickSections = new long[SECTIONS.length];
+
+    // Worst tick of the current one-second window
+    private final long[] windowWorstSections = new long[SECTIONS.length];
+    private long windowWorstTotal = 0;
+    private long windowWorstTick = 0;
+    private int windowTicks = 0;
+
+    // Ring buffer with the worst tick of each recent window
+    private TickSample[] history = new TickSample[0];
+    private int historyHead = 0;
+    private int historySize = 0;
+
+    private long tickCounter = 0;
+    private long lastWarningTime = 0;
+    private ScheduledTask task;
+
+    private volatile boolean enabled;
+    private long budgetNanos;
+    private long warnCooldownMs;
+
+    /**
+     * Creates a new TickMonitor and starts it if enabled in config.
+     *
+     * @param plugin The main plugin instance
+     */
+    public TickMonitor(SimpleSession plugin) {
+        this.plugin = plugin;
+        reload();
+    }
+
+    /**
+     * Reloads settings from config and restarts the tick task if needed.
+     */
+    public synchronized void reload() {
+        stop();
+
+        enabled = plugin.getConfig().getBoolean("performance.tick-budget.enabled", true);
+        double budgetMs = plugin.getConfig().getDouble("performance.tick-budget.budget-ms", 1.0);
+        int cooldownSeconds = plugin.getConfig().getInt("performance.tick-budget.warn-cooldown", 30);
+        int historyCapacity = plugin.getConfig().getInt("performance.tick-budget.history-size", 60);
+
+        // Validate values
+        if (budgetMs <= 0) {
+            plugin.getLogger().warning("Invalid performance.tick-budget.budget-ms (" + budgetMs + "). Using default 1.0ms.");
+            budgetMs = 1.0;
+        }
+        if (cooldownSeconds < 0) {
+            cooldownSeconds = 30;
+        }
+        if (historyCapacity <= 0) {
+            plugin.getLogger().warning("Invalid performance.tick-budget.history-size (" + historyCapacity + "). Using default 60.");
+            historyCapacity = 60;
+        }
+
+        budgetNanos = (long) (budgetMs * 1_000_000L);
+        warnCooldownMs = cooldownSeconds * 1000L;
+        history = new TickSample[historyCapacity];
+        historyHead = 0;
+        historySize = 0;
+        resetWindow();
+
+        if (enabled) {
+            task = plugin.getTaskScheduler().runTimer(this::endTick, 1L, 1L);
+        }
+    }
+
+    /**
+     * Stops the tick task and discards the current tick.
+     */
+    public synchronized void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        for (int i = 0; i < SECTIONS.length; i++) {
+            currentTick.set(i, 0L);
+        }
+    }
+
+    /**
+     * Marks the start of an instrumented section.
+     *
+     * @return Start timestamp to pass to {@link #stop(Section, long)}, or 0 if disabled
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Marks the end of an instrumented section.
+     *
+     * @param section The section that was running
+     * @param startNanos Value returned by {@link #start()}
+     */
+    public void stop(Section section, long startNanos) {
+        if (startNanos != 0L) {
+            currentTick.addAndGet(section.ordinal(), System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Closes the current tick. Runs once per tick.
+     */
+    private synchronized void endTick() {
+        tickCounter++;
+
+        long total = 0;
+        long[] sections = tickSections;
+        for (int i = 0; i < SECTIONS.length; i++) {
+            sections[i] = currentTick.getAndSet(i, 0L);
+            total += sections[i];
+        }
+
+        if (total > windowWorstTotal) {
+            windowWorstTotal = total;
+            windowWorstTick = tickCounter;
+            System.arraycopy(sections, 0, windowWorstSections, 0, sections.length);
+        }
+
+        if (++windowTicks >= TICKS_PER_WINDOW) {
+            if (windowWorstTotal > 0) {
+                history[historyHead] = new TickSample(windowWorstTick, System.currentTimeMillis(),
+                        windowWorstTotal, windowWorstSections.clone());
+                historyHead = (historyHead + 1) % history.length;
+                historySize = Math.min(historySize + 1, history.length);
+            }
+            resetWindow();
+        }
+
+        if (total > budgetNanos) {
+            long now = System.currentTimeMillis();
+            if (now - lastWarningTime >= warnCooldownMs) {
+                lastWarningTime = now;
+                plugin.getLogger().warning("Tick budget exceeded: " + formatNanos(total) + " of tick #" + tickCounter +
+                        " (budget " + formatNanos(budgetNanos) + ") " + formatSections(sections));
+            }
+        }
+    }
+
+    private void resetWindow() {
+        windowWorstTotal = 0;
+        windowWorstTick = 0;
+        windowTicks = 0;
+        for (int i = 0; i < windowWorstSections.length; i++) {
+            windowWorstSections[i] = 0L;
+        }
+    }
+
+    /**
+     * Gets the recorded worst ticks, most expensive first.
+     *
+     * @return Snapshot of the worst tick of each recent second
+     */
+    public synchronized List<TickSample> getWorstTicks() {
+        List<TickSample> samples = new ArrayList<>(historySize);
+        for (int i = 0; i < historySize; i++) {
+            int index = (historyHead - 1 - i + history.length) % history.length;
+            samples.add(history[index]);
+        }
+        samples.sort(Comparator.comparingLong(TickSample::getTotalNanos).reversed());
+        return samples;
+    }
+
+    /**
+     * Checks if the monitor is running.
+     *
+     * @return true if enabled, false otherwise
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Gets the configured budget.
+     *
+     * @return Budget per tick in nanoseconds
+     */
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    /**
+     * Formats a nanosecond duration as milliseconds.
+     *
+     * @param nanos Duration in nanoseconds
+     * @return Formatted string (e.g., "1.25ms")
+     */
+    public static String formatNanos(long nanos) {
+        return String.format("%.2fms", nanos / 1_000_000.0);
+    }
+
+    /**
+     * Formats a per-section breakdown, skipping sections that did not run.
+     *
+     * @param sections Nanoseconds per section, indexed by ordinal
+     * @return Breakdown string (e.g., "milestone-check=0.80ms player-join=0.10ms")
+     */
+    public static String formatSections(long[] sections) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < sections.length; i++) {
+            if (sections[i] == 0L) continue;
+            if (builder.length() > 0) builder.append(' ');
+            builder.append(SECTIONS[i].getDisplayName()).append('=').append(formatNanos(sections[i]));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * A single recorded tick.
+     */
+    public static final class TickSample {
+
+        private final long tick;
+        private final long timestamp;
+        private final long totalNanos;
+        private final long[] sectionNanos;
+
+        TickSample(long tick, long timestamp, long totalNanos, long[] sectionNanos) {
+            this.tick = tick;
+            this.timestamp = timestamp;
+            this.totalNanos = totalNanos;
+            this.sectionNanos = sectionNanos;
+        }
+
+        public long getTick() {
+            return tick;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long[] getSectionNanos() {
+            return sectionNanos.clone();
+        }
+    }
+}
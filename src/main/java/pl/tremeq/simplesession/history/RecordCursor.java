@@ -0,0 +1,21 @@
+package pl.tremeq.simplesession.history;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Streams session records from disk one at a time, so any number of
+ * records can be read in constant memory. Blocking - IO thread only.
+ *
+ * @author TremeQ
+ */
+public interface RecordCursor extends Closeable {
+
+    /**
+     * Reads the next record.
+     *
+     * @return The record, or null when there are no more
+     * @throws IOException if reading fails
+     */
+    SessionRecord next() throws IOException;
+}
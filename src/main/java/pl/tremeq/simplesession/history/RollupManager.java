@@ -0,0 +1,486 @@
+package pl.tremeq.simplesession.history;
+
+import pl.tremeq.simplesession.SimpleSession;
+import pl.tremeq.simplesession.debug.DebugRecorder;
+import pl.tremeq.simplesession.scheduler.ScheduledTask;
+import pl.tremeq.simplesession.storage.PlayerRegistry;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Compacts old session history into per-player playtime rollups and
+ * answers playtime queries over date ranges from them.
+ *
+ * Day segments older than history.raw-retention are rolled up into hourly
+ * totals per player (history/hourly-yyyy-mm-dd.roll), and whole months of
+ * hourly files older than history.hourly-retention into daily totals
+ * (history/daily-yyyy-mm.roll), which are deleted after
+ * history.daily-retention. Compaction runs on the IO thread and holds one
+ * day (raw to hourly) or one month (hourly to daily) in memory at a time.
+ * A query reads each day from the most detailed data still kept, so its
+ * cost grows with players and periods rather than with sessions.
+ *
+ * @author TremeQ
+ */
+public class RollupManager {
+
+    private static final long HOUR_MILLIS = 3_600_000L;
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    private static final String HOURLY_PREFIX = "hourly-";
+    private static final String DAILY_PREFIX = "daily-";
+    private static final String SUFFIX = ".roll";
+
+    /**
+     * A player's playtime in a queried range.
+     */
+    public static final class Entry {
+        private final UUID playerId;
+        private final String playerName;
+        private final long totalMillis;
+
+        Entry(UUID playerId, String playerName, long totalMillis) {
+            this.playerId = playerId;
+            this.playerName = playerName;
+            this.totalMillis = totalMillis;
+        }
+
+        public UUID getPlayerId() {
+            return playerId;
+        }
+
+        public String getPlayerName() {
+            return playerName;
+        }
+
+        public long getTotalMillis() {
+            return totalMillis;
+        }
+    }
+
+    /**
+     * Receives playtime found by a range scan.
+     */
+    private interface RangeVisitor {
+        void accept(UUID playerId, String playerName, long millis);
+    }
+
+    /**
+     * Sums playtime per player, in primitive arrays indexed by dense player id.
+     */
+    private static final class Totals implements RangeVisitor {
+        private final PlayerRegistry players = new PlayerRegistry();
+        private final List<String> names = new ArrayList<>();
+        private long[] millis = new long[1024];
+
+        @Override
+        public void accept(UUID playerId, String playerName, long added) {
+            int id = players.getOrRegister(playerId);
+            if (id == names.size()) {
+                names.add(playerName);
+                if (id == millis.length) {
+                    millis = Arrays.copyOf(millis, id * 2);
+                }
+            } else {
+                names.set(id, playerName);
+            }
+            millis[id] += added;
+        }
+    }
+
+    private final SimpleSession plugin;
+    private final SessionJournal journal;
+    private final File folder;
+
+    private volatile int rawRetentionDays;
+    private volatile int hourlyRetentionDays;
+    private volatile int dailyRetentionDays;
+    private ScheduledTask compactTask;
+
+    /**
+     * Creates the manager and schedules compaction.
+     *
+     * @param plugin The main plugin instance
+     * @param journal Journal whose segments are compacted
+     */
+    public RollupManager(SimpleSession plugin, SessionJournal journal) {
+        this.plugin = plugin;
+        this.journal = journal;
+        this.folder = journal.getFolder();
+        readSettings();
+        start();
+    }
+
+    /**
+     * Reloads retention settings from config.
+     */
+    public void reload() {
+        if (compactTask != null) {
+            compactTask.cancel();
+            compactTask = null;
+        }
+        readSettings();
+        start();
+    }
+
+    private void readSettings() {
+        int raw = plugin.getConfig().getInt("history.raw-retention", 30);
+        if (raw < 1) {
+            plugin.getLogger().warning("Invalid history.raw-retention (" + raw + " days). Using 1 day.");
+            raw = 1;
+        }
+
+        int hourly = plugin.getConfig().getInt("history.hourly-retention", 90);
+        if (hourly < raw) {
+            plugin.getLogger().warning("history.hourly-retention (" + hourly + " days) is shorter than history.raw-retention. Using " + raw + " days.");
+            hourly = raw;
+        }
+
+        int daily = plugin.getConfig().getInt("history.daily-retention", 0);
+        if (daily < 0 || (daily > 0 && daily < hourly)) {
+            plugin.getLogger().warning("Invalid history.daily-retention (" + daily + " days). Keeping daily totals forever.");
+            daily = 0;
+        }
+
+        rawRetentionDays = raw;
+        hourlyRetentionDays = hourly;
+        dailyRetentionDays = daily;
+    }
+
+    private void start() {
+        int intervalMinutes = plugin.getConfig().getInt("history.compact-interval", 60);
+        if (intervalMinutes <= 0) {
+            plugin.getLogger().warning("Invalid history.compact-interval (" + intervalMinutes + " min). Using default 60 min.");
+            intervalMinutes = 60;
+        }
+        long intervalTicks = intervalMinutes * 1200L;
+        // First run a minute after startup, when joins have settled
+        compactTask = plugin.getTaskScheduler().runTimer(() -> plugin.getIoExecutor().execute(this::compact),
+                1200L, intervalTicks);
+    }
+
+    /**
+     * Runs one compaction pass. IO thread only.
+     */
+    private void compact() {
+        LocalDate today = SessionJournal.dayOf(System.currentTimeMillis());
+        int compacted = 0;
+
+        LocalDate rawCutoff = rawCutoff(today);
+        for (LocalDate day : journal.getSegmentDays()) {
+            if (!day.isBefore(rawCutoff)) {
+                break;
+            }
+            try {
+                rollUpDay(day);
+                compacted++;
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not roll up session history of " + day + ": " + e.getMessage());
+            }
+        }
+
+        LocalDate hourlyCutoff = today.minusDays(hourlyRetentionDays);
+        TreeSet<YearMonth> months = new TreeSet<>();
+        for (File file : listFiles(HOURLY_PREFIX)) {
+            LocalDate day = parseDay(file, HOURLY_PREFIX);
+            if (day != null && YearMonth.from(day).atEndOfMonth().isBefore(hourlyCutoff)) {
+                months.add(YearMonth.from(day));
+            }
+        }
+        for (YearMonth month : months) {
+            try {
+                rollUpMonth(month);
+                compacted++;
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not roll up hourly playtime of " + month + ": " + e.getMessage());
+            }
+        }
+
+        if (dailyRetentionDays > 0) {
+            LocalDate dailyCutoff = today.minusDays(dailyRetentionDays);
+            for (File file : listFiles(DAILY_PREFIX)) {
+                YearMonth month = parseMonth(file);
+                if (month != null && month.atEndOfMonth().isBefore(dailyCutoff)) {
+                    delete(file);
+                    compacted++;
+                }
+            }
+        }
+
+        if (compacted > 0) {
+            plugin.getDebugRecorder().record(DebugRecorder.Category.CACHE,
+                    "Session history compacted before %1$s (%2$d files)", rawCutoff.toString(), compacted);
+        }
+    }
+
+    private LocalDate rawCutoff(LocalDate today) {
+        return today.minusDays(rawRetentionDays);
+    }
+
+    /**
+     * Gets the first day still kept as single sessions. Sessions that ended
+     * before it may already be rolled up and can't be exported.
+     *
+     * @return First day (UTC) of the raw history
+     */
+    public LocalDate getRawCutoff() {
+        return rawCutoff(SessionJournal.dayOf(System.currentTimeMillis()));
+    }
+
+    /**
+     * Rolls a day segment up into hourly totals, or straight into the daily
+     * totals if its month was already rolled up.
+     */
+    private void rollUpDay(LocalDate day) throws IOException {
+        File raw = journal.segmentFile(day);
+        File daily = dailyFile(YearMonth.from(day));
+        RollupTable table = new RollupTable();
+
+        boolean intoDaily = daily.exists();
+        File hourly = hourlyFile(day);
+        int includedDays = 0;
+        if (intoDaily) {
+            includedDays = RollupTable.read(daily.toPath(), table::add);
+            if ((includedDays & dayBit(day)) != 0) {
+                delete(raw); // Merged before, the segment just wasn't deleted
+                return;
+            }
+        } else if (hourly.exists()) {
+            // Sessions written late into an already rolled up day - add them to its totals
+            RollupTable.read(hourly.toPath(), table::add);
+        }
+
+        try (RecordCursor cursor = new SegmentReader(raw.toPath(), Long.MIN_VALUE, Long.MAX_VALUE)) {
+            SessionRecord record;
+            while ((record = cursor.next()) != null) {
+                table.addSession(record, intoDaily ? DAY_MILLIS : HOUR_MILLIS);
+            }
+        }
+
+        if (intoDaily) {
+            replace(table, daily, includedDays | dayBit(day));
+        } else {
+            replace(table, hourly, 0);
+        }
+        delete(raw);
+    }
+
+    /**
+     * Merges the hourly files of a month into its daily totals.
+     */
+    private void rollUpMonth(YearMonth month) throws IOException {
+        File daily = dailyFile(month);
+        RollupTable table = new RollupTable();
+        int includedDays = daily.exists() ? RollupTable.read(daily.toPath(), table::add) : 0;
+
+        List<File> merged = new ArrayList<>();
+        boolean changed = false;
+        for (File file : listFiles(HOURLY_PREFIX)) {
+            LocalDate day = parseDay(file, HOURLY_PREFIX);
+            if (day == null || !YearMonth.from(day).equals(month)) {
+                continue;
+            }
+            // Days already in the daily file are leftovers of an interrupted run
+            if ((includedDays & dayBit(day)) == 0) {
+                RollupTable.read(file.toPath(), (playerId, playerName, hour, total, active, sessions) ->
+                        table.add(playerId, playerName, Math.floorDiv(hour, 24L), total, active, sessions));
+                includedDays |= dayBit(day);
+                changed = true;
+            }
+            merged.add(file);
+        }
+
+        if (changed) {
+            replace(table, daily, includedDays);
+        }
+        for (File file : merged) {
+            delete(file);
+        }
+    }
+
+    private void replace(RollupTable table, File target, int includedDays) throws IOException {
+        File temp = new File(target.getPath() + ".tmp");
+        try {
+            table.write(temp.toPath(), includedDays);
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the players with the most playtime in a range. Blocking - IO thread only.
+     * Hours are exact; days older than history.hourly-retention count whole UTC days.
+     *
+     * @param from Start of the range in milliseconds (inclusive)
+     * @param to End of the range in milliseconds (exclusive)
+     * @param limit Number of players
+     * @return Entries, most playtime first
+     */
+    public List<Entry> getTopPlaytime(long from, long to, int limit) {
+        Totals totals = new Totals();
+        scan(from, to, totals);
+
+        // Ids of the best players so far, most playtime first
+        int[] top = new int[Math.max(0, limit)];
+        int count = 0;
+        for (int id = 0; id < totals.players.size(); id++) {
+            long total = totals.millis[id];
+            if (total <= 0 || top.length == 0) {
+                continue;
+            }
+            int position;
+            if (count < top.length) {
+                position = count++;
+            } else if (total > totals.millis[top[top.length - 1]]) {
+                position = top.length - 1;
+            } else {
+                continue;
+            }
+            while (position > 0 && totals.millis[top[position - 1]] < total) {
+                top[position] = top[position - 1];
+                position--;
+            }
+            top[position] = id;
+        }
+
+        List<Entry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entries.add(new Entry(totals.players.getUuid(top[i]), totals.names.get(top[i]), totals.millis[top[i]]));
+        }
+        return entries;
+    }
+
+    /**
+     * Gets the playtime of a player in a range, by the name recorded with
+     * their sessions. Blocking - IO thread only.
+     *
+     * @param playerName Name of the player (case-insensitive)
+     * @param from Start of the range in milliseconds (inclusive)
+     * @param to End of the range in milliseconds (exclusive)
+     * @return The player's entry, or null if they have no playtime in the range
+     */
+    public Entry getPlaytime(String playerName, long from, long to) {
+        UUID[] playerId = new UUID[1];
+        String[] name = new String[1];
+        long[] total = new long[1];
+        scan(from, to, (id, recordedName, millis) -> {
+            if (recordedName.equalsIgnoreCase(playerName) || id.equals(playerId[0])) {
+                playerId[0] = id;
+                name[0] = recordedName;
+                total[0] += millis;
+            }
+        });
+        return total[0] > 0 ? new Entry(playerId[0], name[0], total[0]) : null;
+    }
+
+    /**
+     * Reads playtime overlapping a range, each end day from the most detailed data kept.
+     */
+    private void scan(long from, long to, RangeVisitor visitor) {
+        // Sessions ending a day before or after the range may still overlap it
+        LocalDate lastDay = SessionJournal.dayOf(Math.max(from, to - 1)).plusDays(1);
+        YearMonth scannedMonth = null;
+        for (LocalDate day = SessionJournal.dayOf(from).minusDays(1); !day.isAfter(lastDay); day = day.plusDays(1)) {
+            File raw = journal.segmentFile(day);
+            File hourly = hourlyFile(day);
+            YearMonth month = YearMonth.from(day);
+            try {
+                if (raw.exists()) {
+                    scanSegment(raw, from, to, visitor);
+                } else if (hourly.exists()) {
+                    scanRollup(hourly, HOUR_MILLIS, from, to, visitor);
+                } else if (!month.equals(scannedMonth) && dailyFile(month).exists()) {
+                    scanRollup(dailyFile(month), DAY_MILLIS, from, to, visitor);
+                    scannedMonth = month;
+                }
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not read session history of " + day + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void scanSegment(File file, long from, long to, RangeVisitor visitor) throws IOException {
+        try (RecordCursor cursor = new SegmentReader(file.toPath(), Long.MIN_VALUE, Long.MAX_VALUE)) {
+            SessionRecord record;
+            while ((record = cursor.next()) != null) {
+                long overlap = Math.min(record.getEndTime(), to) - Math.max(record.getStartTime(), from);
+                if (overlap > 0) {
+                    visitor.accept(record.getPlayerId(), record.getPlayerName(), overlap);
+                }
+            }
+        }
+    }
+
+    private void scanRollup(File file, long bucketMillis, long from, long to, RangeVisitor visitor) throws IOException {
+        RollupTable.read(file.toPath(), (playerId, playerName, bucket, total, active, sessions) -> {
+            long bucketStart = bucket * bucketMillis;
+            if (bucketStart >= from && bucketStart < to) {
+                visitor.accept(playerId, playerName, total);
+            }
+        });
+    }
+
+    /**
+     * Stops scheduling compaction.
+     */
+    public void shutdown() {
+        if (compactTask != null) {
+            compactTask.cancel();
+            compactTask = null;
+        }
+    }
+
+    private File hourlyFile(LocalDate day) {
+        return new File(folder, HOURLY_PREFIX + day + SUFFIX);
+    }
+
+    private File dailyFile(YearMonth month) {
+        return new File(folder, DAILY_PREFIX + month + SUFFIX);
+    }
+
+    private File[] listFiles(String prefix) {
+        File[] files = folder.listFiles((dir, name) -> name.startsWith(prefix) && name.endsWith(SUFFIX));
+        return files != null ? files : new File[0];
+    }
+
+    private static LocalDate parseDay(File file, String prefix) {
+        String name = file.getName();
+        try {
+            return LocalDate.parse(name.substring(prefix.length(), name.length() - SUFFIX.length()));
+        } catch (DateTimeParseException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    private static YearMonth parseMonth(File file) {
+        String name = file.getName();
+        try {
+            return YearMonth.parse(name.substring(DAILY_PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (DateTimeParseException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    private static int dayBit(LocalDate day) {
+        return 1 << (day.getDayOfMonth() - 1);
+    }
+
+    private void delete(File file) {
+        if (file.exists() && !file.delete()) {
+            plugin.getLogger().warning("Could not delete " + file.getName());
+        }
+    }
+}
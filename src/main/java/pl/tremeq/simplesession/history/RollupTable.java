@@ -0,0 +1,269 @@
+package pl.tremeq.simplesession.history;
+
+import pl.tremeq.simplesession.storage.PlayerRegistry;
+import pl.tremeq.simplesession.storage.VarInts;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Playtime totals per player and time bucket (an hour or a day, counted
+ * from the epoch), as stored in a rollup file.
+ *
+ * Totals live in primitive arrays behind an open-addressing table keyed by
+ * player index and bucket, so a table costs ~40 bytes per player and bucket
+ * that actually has playtime. A rollup file is a small header followed by a
+ * Deflate stream with the player dictionary and the entries ordered by
+ * bucket, all varints. Not thread-safe - IO thread only.
+ *
+ * @author TremeQ
+ */
+final class RollupTable {
+
+    static final int MAGIC = 0x53535231; // "SSR1"
+    static final int VERSION = 1;
+
+    private static final long EMPTY = -1L;
+
+    /**
+     * Receives the entries of a rollup file.
+     */
+    interface Visitor {
+        void accept(UUID playerId, String playerName, long bucket, long totalMillis, long activeMillis, int sessions);
+    }
+
+    private final PlayerRegistry players = new PlayerRegistry();
+    private final List<String> names = new ArrayList<>();
+
+    // Key = player index << 32 | bucket, EMPTY when free. At most half full.
+    private long[] keys = newKeys(1024);
+    private long[] totals = new long[1024];
+    private long[] actives = new long[1024];
+    private int[] sessions = new int[1024];
+    private int size;
+
+    /**
+     * Adds playtime to a bucket.
+     *
+     * @param playerId UUID of the player
+     * @param playerName Latest name of the player
+     * @param bucket Hour or day since the epoch
+     * @param totalMillis Playtime
+     * @param activeMillis Active part of the playtime
+     * @param sessionCount Sessions that ended in the bucket
+     */
+    void add(UUID playerId, String playerName, long bucket, long totalMillis, long activeMillis, int sessionCount) {
+        int player = players.getOrRegister(playerId);
+        if (player == names.size()) {
+            names.add(playerName);
+        } else {
+            names.set(player, playerName);
+        }
+
+        int slot = slotOf(((long) player << 32) | (bucket & 0xFFFFFFFFL));
+        totals[slot] += totalMillis;
+        actives[slot] += activeMillis;
+        sessions[slot] += sessionCount;
+    }
+
+    /**
+     * Adds a session, split over the buckets it overlaps.
+     *
+     * @param record The session
+     * @param bucketMillis Bucket length (an hour or a day)
+     */
+    void addSession(SessionRecord record, long bucketMillis) {
+        long start = record.getStartTime();
+        long end = Math.max(start, record.getEndTime());
+        long duration = end - start;
+        long endBucket = Math.floorDiv(Math.max(start, end - 1), bucketMillis);
+        for (long bucket = Math.floorDiv(start, bucketMillis); bucket <= endBucket; bucket++) {
+            long overlap = Math.min(end, (bucket + 1) * bucketMillis) - Math.max(start, bucket * bucketMillis);
+            long active = duration > 0 ? (long) ((double) record.getActiveMillis() * overlap / duration) : 0L;
+            add(record.getPlayerId(), record.getPlayerName(), bucket, overlap, active, bucket == endBucket ? 1 : 0);
+        }
+    }
+
+    /**
+     * Checks if the table has no entries.
+     *
+     * @return true if empty
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    private int slotOf(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+            return slotOf(key);
+        }
+        keys[slot] = key;
+        size++;
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldTotals = totals;
+        long[] oldActives = actives;
+        int[] oldSessions = sessions;
+        keys = newKeys(oldKeys.length * 2);
+        totals = new long[keys.length];
+        actives = new long[keys.length];
+        sessions = new int[keys.length];
+
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) {
+                continue;
+            }
+            int slot = hash(oldKeys[i]) & mask;
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            totals[slot] = oldTotals[i];
+            actives[slot] = oldActives[i];
+            sessions[slot] = oldSessions[i];
+        }
+    }
+
+    /**
+     * Writes the table to a rollup file.
+     *
+     * @param file Target file
+     * @param includedDays Days of the month merged into the file (bit per day of month), 0 for hourly files
+     * @throws IOException if writing fails
+     */
+    void write(Path file, int includedDays) throws IOException {
+        // Order by bucket, then player - consecutive entries then share their bucket
+        long[] order = new long[size];
+        int count = 0;
+        for (long key : keys) {
+            if (key != EMPTY) {
+                order[count++] = (key << 32) | (key >>> 32);
+            }
+        }
+        Arrays.sort(order);
+
+        Deflater deflater = new Deflater();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(includedDays);
+
+            DeflaterOutputStream compressed = new DeflaterOutputStream(out, deflater, 1 << 16);
+            DataOutputStream body = new DataOutputStream(compressed);
+            VarInts.writeVarLong(body, players.size());
+            for (int id = 0; id < players.size(); id++) {
+                body.writeLong(players.getMostSignificantBits(id));
+                body.writeLong(players.getLeastSignificantBits(id));
+                body.writeUTF(names.get(id));
+            }
+
+            VarInts.writeVarLong(body, count);
+            long previousBucket = 0L;
+            for (long sorted : order) {
+                long bucket = sorted >>> 32;
+                long key = (sorted << 32) | bucket;
+                int slot = slotOf(key);
+                VarInts.writeVarLong(body, VarInts.zigZag(bucket - previousBucket));
+                VarInts.writeVarLong(body, key >>> 32);
+                VarInts.writeVarLong(body, totals[slot]);
+                VarInts.writeVarLong(body, actives[slot]);
+                VarInts.writeVarLong(body, sessions[slot]);
+                previousBucket = bucket;
+            }
+            body.flush();
+            compressed.finish();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Streams the entries of a rollup file. Only the file's player
+     * dictionary is held in memory.
+     *
+     * @param file Rollup file
+     * @param visitor Receives every entry
+     * @return Days of the month merged into the file (0 for hourly files)
+     * @throws IOException if the file can't be read or isn't a rollup
+     */
+    static int read(Path file, Visitor visitor) throws IOException {
+        try (InputStream stream = Files.newInputStream(file)) {
+            DataInputStream in = new DataInputStream(stream);
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a rollup file");
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported rollup version " + version);
+            }
+            int includedDays = in.readInt();
+
+            try (DataInputStream body = new DataInputStream(new BufferedInputStream(new InflaterInputStream(stream), 1 << 16))) {
+                return readBody(body, visitor, includedDays);
+            }
+        }
+    }
+
+    private static int readBody(DataInputStream body, Visitor visitor, int includedDays) throws IOException {
+        int playerCount = (int) VarInts.readVarLong(body);
+        UUID[] playerIds = new UUID[playerCount];
+        String[] playerNames = new String[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            playerIds[i] = new UUID(body.readLong(), body.readLong());
+            playerNames[i] = body.readUTF();
+        }
+
+        long count = VarInts.readVarLong(body);
+        long bucket = 0L;
+        for (long i = 0; i < count; i++) {
+            bucket += VarInts.unZigZag(VarInts.readVarLong(body));
+            int player = (int) VarInts.readVarLong(body);
+            long total = VarInts.readVarLong(body);
+            long active = VarInts.readVarLong(body);
+            int sessionCount = (int) VarInts.readVarLong(body);
+            if (player < 0 || player >= playerCount) {
+                throw new IOException("Unknown player index " + player);
+            }
+            visitor.accept(playerIds[player], playerNames[player], bucket, total, active, sessionCount);
+        }
+        return includedDays;
+    }
+
+    private static long[] newKeys(int capacity) {
+        long[] keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,40 @@
+package pl.tremeq.simplesession.history;
+
+/**
+ * Layout of a binary session history segment.
+ *
+ * A segment starts with a file header (magic, version, flags) followed by
+ * blocks. Each block has a fixed header - record count, min and max end
+ * time, raw and stored payload length, codec and CRC32 of the stored bytes -
+ * so readers can skip blocks outside a time range without inflating them.
+ *
+ * The payload starts with a dictionary of the block's players (UUID and
+ * name, in order of first appearance), after which each record is the
+ * player's dense index, the end time as a zig-zag delta to the previous
+ * record's end (the first to the block's min end), the duration and the
+ * active time, all varints. Blocks never refer to each other.
+ *
+ * @author TremeQ
+ */
+final class SegmentFormat {
+
+    static final int MAGIC = 0x53534231; // "SSB1"
+    static final int VERSION = 1;
+    static final int FILE_HEADER_BYTES = 6;
+
+    /** Flag: the segment was repacked into full blocks after its day ended. */
+    static final int FLAG_SEALED = 1;
+
+    // count(4) minEnd(8) maxEnd(8) rawLength(4) storedLength(4) codec(1) crc(4)
+    static final int BLOCK_HEADER_BYTES = 33;
+
+    static final int CODEC_STORED = 0;
+    static final int CODEC_DEFLATE = 1;
+
+    static final int BLOCK_RECORDS = 4096;
+    // Anything larger is a corrupt header, not a real block
+    static final int MAX_BLOCK_BYTES = 16 << 20;
+
+    private SegmentFormat() {
+    }
+}
@@ -0,0 +1,238 @@
+package pl.tremeq.simplesession.history;
+
+import pl.tremeq.simplesession.storage.VarInts;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads the records of a binary segment (see {@link SegmentFormat}) that
+ * ended in a time range. Blocks whose min/max end time lies outside the
+ * range are skipped without being read; only one block is held in memory.
+ * A block torn by a crash ends the segment, a block failing its checksum
+ * is skipped.
+ *
+ * @author TremeQ
+ */
+final class SegmentReader implements RecordCursor {
+
+    private final DataInputStream in;
+    private final long from;
+    private final long to;
+
+    // Reused for every block
+    private final byte[] header = new byte[SegmentFormat.BLOCK_HEADER_BYTES];
+    private byte[] stored = new byte[1 << 15];
+    private byte[] raw = new byte[1 << 16];
+    private final Inflater inflater = new Inflater();
+    private final CRC32 crc = new CRC32();
+
+    // Current block
+    private DataInputStream payload;
+    private UUID[] playerIds = new UUID[64];
+    private String[] playerNames = new String[64];
+    private int playerCount;
+    private int remaining;
+    private long previousEnd;
+    private boolean done;
+
+    /**
+     * Opens a segment.
+     *
+     * @param file Segment file
+     * @param from Start of the range in milliseconds (inclusive)
+     * @param to End of the range in milliseconds (exclusive)
+     * @throws IOException if the file can't be opened or isn't a segment
+     */
+    SegmentReader(Path file, long from, long to) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+        this.from = from;
+        this.to = to;
+        try {
+            readFileHeader(in);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks if a segment was already repacked into full blocks.
+     *
+     * @param file Segment file
+     * @return true if sealed
+     * @throws IOException if the file can't be read or isn't a segment
+     */
+    static boolean isSealed(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            return (readFileHeader(in) & SegmentFormat.FLAG_SEALED) != 0;
+        }
+    }
+
+    private static int readFileHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != SegmentFormat.MAGIC) {
+            throw new IOException("Not a session history segment");
+        }
+        int version = in.readUnsignedByte();
+        if (version != SegmentFormat.VERSION) {
+            throw new IOException("Unsupported segment version " + version);
+        }
+        return in.readUnsignedByte();
+    }
+
+    @Override
+    public SessionRecord next() throws IOException {
+        while (true) {
+            if (remaining == 0 && !nextBlock()) {
+                return null;
+            }
+
+            SessionRecord record;
+            try {
+                record = readRecord();
+            } catch (IOException e) {
+                remaining = 0; // Payload doesn't match its header, drop the rest of the block
+                continue;
+            }
+            if (record != null && record.getEndTime() >= from && record.getEndTime() < to) {
+                return record;
+            }
+        }
+    }
+
+    private SessionRecord readRecord() throws IOException {
+        remaining--;
+        int id = (int) VarInts.readVarLong(payload);
+        long end = previousEnd + VarInts.unZigZag(VarInts.readVarLong(payload));
+        long duration = VarInts.unZigZag(VarInts.readVarLong(payload));
+        long active = VarInts.unZigZag(VarInts.readVarLong(payload));
+        previousEnd = end;
+        if (id < 0 || id >= playerCount) {
+            throw new IOException("Unknown player index " + id);
+        }
+        return new SessionRecord(playerIds[id], playerNames[id], end - duration, end, active);
+    }
+
+    /**
+     * Moves to the next block overlapping the range.
+     *
+     * @return false at the end of the segment
+     */
+    private boolean nextBlock() throws IOException {
+        while (!done) {
+            try {
+                in.readFully(header);
+            } catch (EOFException e) {
+                done = true; // End of segment, or a header torn by a crash
+                break;
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(header);
+            int count = buffer.getInt();
+            long minEnd = buffer.getLong();
+            long maxEnd = buffer.getLong();
+            int rawLength = buffer.getInt();
+            int storedLength = buffer.getInt();
+            int codec = buffer.get();
+            int checksum = buffer.getInt();
+            if (count < 0 || rawLength < 0 || rawLength > SegmentFormat.MAX_BLOCK_BYTES
+                    || storedLength < 0 || storedLength > SegmentFormat.MAX_BLOCK_BYTES) {
+                done = true;
+                break;
+            }
+
+            try {
+                if (maxEnd < from || minEnd >= to) {
+                    in.skipNBytes(storedLength);
+                    continue;
+                }
+                if (stored.length < storedLength) {
+                    stored = new byte[storedLength];
+                }
+                in.readFully(stored, 0, storedLength);
+            } catch (EOFException e) {
+                done = true; // Block torn by a crash
+                break;
+            }
+
+            crc.reset();
+            crc.update(stored, 0, storedLength);
+            if ((int) crc.getValue() != checksum || !decode(codec, storedLength, rawLength)) {
+                continue;
+            }
+
+            try {
+                readDictionary();
+            } catch (IOException e) {
+                continue;
+            }
+            remaining = count;
+            previousEnd = minEnd;
+            if (remaining > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean decode(int codec, int storedLength, int rawLength) {
+        byte[] bytes;
+        if (codec == SegmentFormat.CODEC_STORED) {
+            if (storedLength != rawLength) {
+                return false;
+            }
+            bytes = stored;
+        } else if (codec == SegmentFormat.CODEC_DEFLATE) {
+            if (raw.length < rawLength) {
+                raw = new byte[rawLength];
+            }
+            inflater.reset();
+            inflater.setInput(stored, 0, storedLength);
+            try {
+                if (inflater.inflate(raw, 0, rawLength) != rawLength) {
+                    return false;
+                }
+            } catch (DataFormatException e) {
+                return false;
+            }
+            bytes = raw;
+        } else {
+            return false;
+        }
+        payload = new DataInputStream(new ByteArrayInputStream(bytes, 0, rawLength));
+        return true;
+    }
+
+    private void readDictionary() throws IOException {
+        long count = VarInts.readVarLong(payload);
+        if (count > SegmentFormat.BLOCK_RECORDS) {
+            throw new IOException("Dictionary too large");
+        }
+        playerCount = (int) count;
+        if (playerIds.length < playerCount) {
+            playerIds = Arrays.copyOf(playerIds, playerCount);
+            playerNames = Arrays.copyOf(playerNames, playerCount);
+        }
+        for (int i = 0; i < playerCount; i++) {
+            playerIds[i] = new UUID(payload.readLong(), payload.readLong());
+            playerNames[i] = payload.readUTF();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        in.close();
+    }
+}
@@ -0,0 +1,215 @@
+package pl.tremeq.simplesession.history;
+
+import pl.tremeq.simplesession.storage.PlayerRegistry;
+import pl.tremeq.simplesession.storage.VarInts;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Appends session records to a binary segment (see {@link SegmentFormat}).
+ *
+ * Records are buffered and written as one block when {@link SegmentFormat#BLOCK_RECORDS}
+ * are reached or on {@link #flush()}. Opening an existing segment drops a
+ * block torn by a crash, so new blocks always follow a complete one.
+ * Not thread-safe - IO thread only.
+ *
+ * @author TremeQ
+ */
+final class SegmentWriter implements Closeable {
+
+    private final FileChannel channel;
+    private final List<SessionRecord> buffered = new ArrayList<>();
+
+    // Reused for every block
+    private final PlayerRegistry players = new PlayerRegistry();
+    private final List<String> names = new ArrayList<>();
+    private final ByteArrayOutputStream raw = new ByteArrayOutputStream(1 << 16);
+    private final DataOutputStream rawOut = new DataOutputStream(raw);
+    private final ByteArrayOutputStream compressed = new ByteArrayOutputStream(1 << 15);
+    private final byte[] chunk = new byte[8192];
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * Opens a segment for appending, creating it if needed.
+     *
+     * @param file Segment file
+     * @param flags File flags if the segment is created
+     * @throws IOException if the file can't be opened or isn't a segment
+     */
+    SegmentWriter(Path file, int flags) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(SegmentFormat.FILE_HEADER_BYTES);
+                header.putInt(SegmentFormat.MAGIC).put((byte) SegmentFormat.VERSION).put((byte) flags).flip();
+                writeFully(header);
+            } else {
+                channel.position(validLength());
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Finds where the last complete block ends and cuts off anything after it.
+     */
+    private long validLength() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(SegmentFormat.BLOCK_HEADER_BYTES);
+        readFully(header, 0L, SegmentFormat.FILE_HEADER_BYTES);
+        if (header.getInt(0) != SegmentFormat.MAGIC || header.get(4) != SegmentFormat.VERSION) {
+            throw new IOException("Not a session history segment");
+        }
+
+        long size = channel.size();
+        long position = SegmentFormat.FILE_HEADER_BYTES;
+        while (position + SegmentFormat.BLOCK_HEADER_BYTES <= size) {
+            readFully(header, position, SegmentFormat.BLOCK_HEADER_BYTES);
+            int stored = header.getInt(24);
+            long next = position + SegmentFormat.BLOCK_HEADER_BYTES + stored;
+            if (stored < 0 || stored > SegmentFormat.MAX_BLOCK_BYTES || next > size) {
+                break;
+            }
+            position = next;
+        }
+        if (position < size) {
+            channel.truncate(position);
+        }
+        return position;
+    }
+
+    /**
+     * Buffers a record, writing a block once enough are buffered.
+     *
+     * @param record The record
+     * @throws IOException if writing a block fails
+     */
+    void append(SessionRecord record) throws IOException {
+        buffered.add(record);
+        if (buffered.size() >= SegmentFormat.BLOCK_RECORDS) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Writes buffered records as a block and syncs the file.
+     *
+     * @throws IOException if writing fails
+     */
+    void flush() throws IOException {
+        writeBlock();
+        channel.force(false);
+    }
+
+    private void writeBlock() throws IOException {
+        if (buffered.isEmpty()) {
+            return;
+        }
+
+        // Dictionary: dense index per player, in order of first appearance
+        players.clear();
+        names.clear();
+        int[] ids = new int[buffered.size()];
+        long minEnd = Long.MAX_VALUE;
+        long maxEnd = Long.MIN_VALUE;
+        for (int i = 0; i < ids.length; i++) {
+            SessionRecord record = buffered.get(i);
+            ids[i] = players.getOrRegister(record.getPlayerId());
+            if (ids[i] == names.size()) {
+                names.add(record.getPlayerName());
+            } else {
+                names.set(ids[i], record.getPlayerName());
+            }
+            minEnd = Math.min(minEnd, record.getEndTime());
+            maxEnd = Math.max(maxEnd, record.getEndTime());
+        }
+
+        raw.reset();
+        VarInts.writeVarLong(rawOut, players.size());
+        for (int id = 0; id < players.size(); id++) {
+            rawOut.writeLong(players.getMostSignificantBits(id));
+            rawOut.writeLong(players.getLeastSignificantBits(id));
+            rawOut.writeUTF(names.get(id));
+        }
+        long previousEnd = minEnd;
+        for (int i = 0; i < ids.length; i++) {
+            SessionRecord record = buffered.get(i);
+            VarInts.writeVarLong(rawOut, ids[i]);
+            VarInts.writeVarLong(rawOut, VarInts.zigZag(record.getEndTime() - previousEnd));
+            VarInts.writeVarLong(rawOut, VarInts.zigZag(record.getEndTime() - record.getStartTime()));
+            VarInts.writeVarLong(rawOut, VarInts.zigZag(record.getActiveMillis()));
+            previousEnd = record.getEndTime();
+        }
+        byte[] payload = raw.toByteArray();
+
+        compressed.reset();
+        deflater.reset();
+        deflater.setInput(payload);
+        deflater.finish();
+        while (!deflater.finished()) {
+            compressed.write(chunk, 0, deflater.deflate(chunk));
+        }
+
+        // Blocks of a record or two don't compress - store those as they are
+        int codec = compressed.size() < payload.length ? SegmentFormat.CODEC_DEFLATE : SegmentFormat.CODEC_STORED;
+        byte[] stored = codec == SegmentFormat.CODEC_DEFLATE ? compressed.toByteArray() : payload;
+        crc.reset();
+        crc.update(stored);
+
+        ByteBuffer block = ByteBuffer.allocate(SegmentFormat.BLOCK_HEADER_BYTES + stored.length);
+        block.putInt(ids.length)
+                .putLong(minEnd)
+                .putLong(maxEnd)
+                .putInt(payload.length)
+                .putInt(stored.length)
+                .put((byte) codec)
+                .putInt((int) crc.getValue())
+                .put(stored)
+                .flip();
+        writeFully(block);
+        buffered.clear();
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position, int length) throws IOException {
+        buffer.clear().limit(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of segment");
+            }
+        }
+    }
+
+    /**
+     * Writes the remaining records and closes the file.
+     *
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+            deflater.end();
+        }
+    }
+}
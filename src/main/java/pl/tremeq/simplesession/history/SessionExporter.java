@@ -0,0 +1,289 @@
+package pl.tremeq.simplesession.history;
+
+import pl.tremeq.simplesession.SimpleSession;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Streams session history into a CSV or NDJSON file.
+ *
+ * Records go straight from a {@link RecordCursor} into a buffered writer,
+ * so memory use doesn't depend on the number of rows. The export runs on
+ * the IO thread in chunks, re-queueing itself after each one so saves of
+ * other data aren't held up by a long export.
+ *
+ * @author TremeQ
+ */
+public class SessionExporter {
+
+    private static final int CHUNK_RECORDS = 50_000;
+    private static final long PROGRESS_INTERVAL_MILLIS = 5_000L;
+
+    /**
+     * Supported export formats.
+     */
+    public enum Format {
+        CSV("csv"),
+        NDJSON("ndjson");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * Finds a format by name.
+         *
+         * @param name Format name (case-insensitive)
+         * @return The format, or null if unknown
+         */
+        public static Format fromName(String name) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Receives export progress. Called on the IO thread.
+     */
+    public interface Progress {
+        /**
+         * Called every few seconds while exporting.
+         *
+         * @param rows Rows written so far
+         */
+        void onProgress(long rows);
+
+        /**
+         * Called once when the export finished.
+         *
+         * @param rows Rows written
+         * @param file The written file
+         */
+        void onDone(long rows, File file);
+
+        /**
+         * Called once if the export failed.
+         *
+         * @param error Error message
+         */
+        void onFailed(String error);
+    }
+
+    private final SimpleSession plugin;
+    private final SessionJournal journal;
+    private final File folder;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean stopped;
+
+    /**
+     * Creates the exporter.
+     *
+     * @param plugin The main plugin instance
+     * @param journal Journal to read
+     */
+    public SessionExporter(SimpleSession plugin, SessionJournal journal) {
+        this.plugin = plugin;
+        this.journal = journal;
+        this.folder = new File(plugin.getDataFolder(), "exports");
+    }
+
+    /**
+     * Starts an export. Only one export runs at a time.
+     *
+     * @param from Start of the range in milliseconds (inclusive)
+     * @param to End of the range in milliseconds (exclusive)
+     * @param format Output format
+     * @param fileName Name of the output file, without extension
+     * @param progress Progress receiver
+     * @return false if another export is still running
+     */
+    public boolean start(long from, long to, Format format, String fileName, Progress progress) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        File file = new File(folder, fileName + "." + format.getExtension());
+
+        plugin.getIoExecutor().execute(() -> {
+            if (!folder.exists() && !folder.mkdirs()) {
+                finish(() -> progress.onFailed("could not create " + folder.getPath()));
+                return;
+            }
+
+            RecordCursor cursor = null;
+            Writer writer = null;
+            try {
+                cursor = journal.openCursor(from, to);
+                writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8), 1 << 16);
+                if (format == Format.CSV) {
+                    writer.write("player_uuid,player_name,start,end,duration_seconds,active_seconds\n");
+                }
+                new Job(cursor, writer, format, file, progress).run();
+            } catch (IOException e) {
+                closeQuietly(cursor, writer);
+                finish(() -> progress.onFailed(e.getMessage()));
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Checks if an export is running.
+     *
+     * @return true if running
+     */
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Cancels a running export. The next chunk closes the file and reports
+     * the export as failed instead of running on through the shutdown.
+     */
+    public void shutdown() {
+        stopped = true;
+    }
+
+    private void finish(Runnable callback) {
+        running.set(false);
+        callback.run();
+    }
+
+    private static void closeQuietly(RecordCursor cursor, Writer writer) {
+        try {
+            if (cursor != null) {
+                cursor.close();
+            }
+        } catch (IOException ignored) {
+            // Reading is over anyway
+        }
+        try {
+            if (writer != null) {
+                writer.close();
+            }
+        } catch (IOException ignored) {
+            // The failure that got us here is reported instead
+        }
+    }
+
+    /**
+     * One running export. Each run writes a chunk and queues the next one.
+     */
+    private final class Job implements Runnable {
+        private final RecordCursor cursor;
+        private final Writer writer;
+        private final Format format;
+        private final File file;
+        private final Progress progress;
+        private final StringBuilder line = new StringBuilder(160);
+        private long rows;
+        private long lastProgress = System.currentTimeMillis();
+
+        Job(RecordCursor cursor, Writer writer, Format format, File file, Progress progress) {
+            this.cursor = cursor;
+            this.writer = writer;
+            this.format = format;
+            this.file = file;
+            this.progress = progress;
+        }
+
+        @Override
+        public void run() {
+            if (stopped) {
+                closeQuietly(cursor, writer);
+                finish(() -> progress.onFailed("cancelled, the server is stopping"));
+                return;
+            }
+
+            try {
+                for (int i = 0; i < CHUNK_RECORDS; i++) {
+                    SessionRecord record = cursor.next();
+                    if (record == null) {
+                        cursor.close();
+                        writer.close();
+                        finish(() -> progress.onDone(rows, file));
+                        return;
+                    }
+                    write(record);
+                    rows++;
+                }
+            } catch (IOException e) {
+                closeQuietly(cursor, writer);
+                finish(() -> progress.onFailed(e.getMessage()));
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            if (now - lastProgress >= PROGRESS_INTERVAL_MILLIS) {
+                lastProgress = now;
+                progress.onProgress(rows);
+            }
+            // Let other IO tasks in before the next chunk
+            plugin.getIoExecutor().execute(this);
+        }
+
+        private void write(SessionRecord record) throws IOException {
+            line.setLength(0);
+            String start = Instant.ofEpochMilli(record.getStartTime()).toString();
+            String end = Instant.ofEpochMilli(record.getEndTime()).toString();
+            if (format == Format.CSV) {
+                line.append(record.getPlayerId()).append(',');
+                appendCsv(record.getPlayerName());
+                line.append(',').append(start)
+                        .append(',').append(end)
+                        .append(',').append(record.getDuration() / 1000)
+                        .append(',').append(record.getActiveMillis() / 1000);
+            } else {
+                line.append("{\"player_uuid\":\"").append(record.getPlayerId()).append("\",\"player_name\":");
+                appendJson(record.getPlayerName());
+                line.append(",\"start\":\"").append(start)
+                        .append("\",\"end\":\"").append(end)
+                        .append("\",\"duration_seconds\":").append(record.getDuration() / 1000)
+                        .append(",\"active_seconds\":").append(record.getActiveMillis() / 1000)
+                        .append('}');
+            }
+            line.append('\n');
+            writer.append(line);
+        }
+
+        private void appendCsv(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+                line.append(value);
+                return;
+            }
+            line.append('"').append(value.replace("\"", "\"\"")).append('"');
+        }
+
+        private void appendJson(String value) {
+            line.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    line.append('\\').append(c);
+                } else if (c < 0x20) {
+                    line.append(String.format("\\u%04x", (int) c));
+                } else {
+                    line.append(c);
+                }
+            }
+            line.append('"');
+        }
+    }
+}
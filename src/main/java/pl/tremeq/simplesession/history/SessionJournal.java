@@ -0,0 +1,346 @@
+package pl.tremeq.simplesession.history;
+
+import pl.tremeq.simplesession.SimpleSession;
+import pl.tremeq.simplesession.manager.PlayerSession;
+import pl.tremeq.simplesession.manager.SessionListener;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Append-only history of finished sessions.
+ *
+ * Records are kept in one binary segment per UTC day of the session end
+ * (history/sessions-yyyy-mm-dd.seg, see {@link SegmentFormat}), so a time
+ * range only opens the segments it overlaps. Finished sessions are queued
+ * and appended by the IO thread as one block per write; sessions ending
+ * while a write is pending are written with it. Once a day is over its
+ * small blocks are repacked into full, better compressed ones.
+ *
+ * @author TremeQ
+ */
+public class SessionJournal implements SessionListener {
+
+    private static final String PREFIX = "sessions-";
+    private static final String SUFFIX = ".seg";
+    // Text segments written by older versions, converted on startup
+    private static final String LEGACY_SUFFIX = ".log";
+
+    private final SimpleSession plugin;
+    private final File folder;
+
+    private final Object pendingLock = new Object();
+    private List<SessionRecord> pending = new ArrayList<>();
+    private boolean flushQueued;
+
+    // Segment of the newest day written, kept open between writes. IO thread only.
+    private SegmentWriter writer;
+    private LocalDate writerDay;
+
+    /**
+     * Creates the journal and starts recording finished sessions.
+     *
+     * @param plugin The main plugin instance
+     */
+    public SessionJournal(SimpleSession plugin) {
+        this.plugin = plugin;
+        this.folder = new File(plugin.getDataFolder(), "history");
+        plugin.getSessionManager().addListener(this);
+        plugin.getIoExecutor().execute(() -> {
+            convertLegacySegments();
+            sealSegments(dayOf(System.currentTimeMillis()));
+        });
+    }
+
+    /**
+     * Queues a finished session for writing.
+     *
+     * @param session The session
+     * @param endTime When the player left
+     */
+    @Override
+    public void onSessionEnd(PlayerSession session, long endTime) {
+        SessionRecord record = new SessionRecord(session.getPlayerId(), session.getPlayerName(),
+                session.getStartTime(), endTime, session.getActiveDuration(endTime));
+        synchronized (pendingLock) {
+            pending.add(record);
+            if (flushQueued) {
+                return;
+            }
+            flushQueued = true;
+        }
+        plugin.getIoExecutor().execute(this::flush);
+    }
+
+    /**
+     * Ignores sessions that continue on another server - they are recorded where they end.
+     *
+     * @param session The session
+     * @param endTime When the session left this server
+     */
+    @Override
+    public void onSessionHandoff(PlayerSession session, long endTime) {
+    }
+
+    /**
+     * Appends every queued record to its day segment. Runs on the IO thread.
+     */
+    private void flush() {
+        List<SessionRecord> batch;
+        synchronized (pendingLock) {
+            batch = pending;
+            pending = new ArrayList<>();
+            flushQueued = false;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (!folder.exists() && !folder.mkdirs()) {
+            plugin.getLogger().warning("Could not create " + folder.getPath() + ", " + batch.size() + " session(s) not recorded");
+            return;
+        }
+
+        LocalDate rolledFrom = null;
+        try {
+            for (SessionRecord record : batch) {
+                LocalDate day = dayOf(record.getEndTime());
+                if (writerDay != null && day.isBefore(writerDay)) {
+                    // Ended before midnight but reported after (e.g. reconnect window expired)
+                    try (SegmentWriter late = new SegmentWriter(segmentFile(day).toPath(), 0)) {
+                        late.append(record);
+                    }
+                    continue;
+                }
+                if (!day.equals(writerDay)) {
+                    closeWriter();
+                    rolledFrom = writerDay;
+                    writer = new SegmentWriter(segmentFile(day).toPath(), 0);
+                    writerDay = day;
+                }
+                writer.append(record);
+            }
+            writer.flush();
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not write session history: " + e.getMessage());
+            closeWriter();
+        }
+
+        if (rolledFrom != null) {
+            sealSegments(writerDay);
+        }
+    }
+
+    private void closeWriter() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not write session history: " + e.getMessage());
+        }
+        writer = null;
+        writerDay = null;
+    }
+
+    /**
+     * Repacks the segments of days before a day into full blocks.
+     * Memory use is one block, whatever the size of the segment.
+     *
+     * @param today First day to leave alone
+     */
+    private void sealSegments(LocalDate today) {
+        for (File file : listSegments(SUFFIX)) {
+            LocalDate day = segmentDay(file);
+            if (day == null || !day.isBefore(today)) {
+                continue;
+            }
+
+            File temp = new File(file.getPath() + ".tmp");
+            try {
+                if (SegmentReader.isSealed(file.toPath())) {
+                    continue;
+                }
+                try (RecordCursor cursor = new SegmentReader(file.toPath(), Long.MIN_VALUE, Long.MAX_VALUE);
+                     SegmentWriter sealed = new SegmentWriter(temp.toPath(), SegmentFormat.FLAG_SEALED)) {
+                    SessionRecord record;
+                    while ((record = cursor.next()) != null) {
+                        sealed.append(record);
+                    }
+                }
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not repack " + file.getName() + ": " + e.getMessage());
+                temp.delete();
+            }
+        }
+    }
+
+    /**
+     * Rewrites text segments of older versions as binary segments.
+     */
+    private void convertLegacySegments() {
+        for (File file : listSegments(LEGACY_SUFFIX)) {
+            LocalDate day = segmentDay(file);
+            if (day == null) {
+                continue;
+            }
+
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8);
+                 SegmentWriter converted = new SegmentWriter(segmentFile(day).toPath(), 0)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    SessionRecord record = parseLegacy(line);
+                    if (record != null) {
+                        converted.append(record);
+                    }
+                }
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not convert " + file.getName() + ": " + e.getMessage());
+                continue;
+            }
+            if (!file.delete()) {
+                plugin.getLogger().warning("Could not delete " + file.getName() + " after converting it");
+            }
+        }
+    }
+
+    private static SessionRecord parseLegacy(String line) {
+        String[] parts = line.split("\t", 5);
+        if (parts.length < 5) {
+            return null; // Torn last line after a crash
+        }
+        try {
+            return new SessionRecord(UUID.fromString(parts[3]), parts[4],
+                    Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Opens a cursor over sessions that ended in a time range, oldest segment first.
+     * Blocking - call from the IO thread, after the writes it should see were queued.
+     *
+     * @param from Start of the range in milliseconds (inclusive)
+     * @param to End of the range in milliseconds (exclusive)
+     * @return Cursor over the matching records
+     */
+    public RecordCursor openCursor(long from, long to) {
+        return new DayCursor(dayOf(from), dayOf(Math.max(from, to - 1)), from, to);
+    }
+
+    /**
+     * Closes the open segment. Queued on the IO thread, so sessions ended
+     * before this call are still written.
+     */
+    public void shutdown() {
+        plugin.getIoExecutor().execute(this::closeWriter);
+    }
+
+    /**
+     * Gets the days that have a session segment, oldest first.
+     *
+     * @return Segment days
+     */
+    List<LocalDate> getSegmentDays() {
+        List<LocalDate> days = new ArrayList<>();
+        for (File file : listSegments(SUFFIX)) {
+            LocalDate day = segmentDay(file);
+            if (day != null) {
+                days.add(day);
+            }
+        }
+        days.sort(null);
+        return days;
+    }
+
+    File getFolder() {
+        return folder;
+    }
+
+    private File[] listSegments(String suffix) {
+        File[] files = folder.listFiles((dir, name) -> name.startsWith(PREFIX) && name.endsWith(suffix));
+        return files != null ? files : new File[0];
+    }
+
+    File segmentFile(LocalDate day) {
+        return new File(folder, PREFIX + day + SUFFIX);
+    }
+
+    private static LocalDate segmentDay(File file) {
+        String name = file.getName();
+        try {
+            return LocalDate.parse(name.substring(PREFIX.length(), name.lastIndexOf('.')));
+        } catch (DateTimeParseException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    static LocalDate dayOf(long millis) {
+        return LocalDate.ofEpochDay(Math.floorDiv(millis, 86_400_000L));
+    }
+
+    /**
+     * Reads the day segments of a range one after another.
+     */
+    private final class DayCursor implements RecordCursor {
+        private final LocalDate lastDay;
+        private final long from;
+        private final long to;
+        private LocalDate day;
+        private RecordCursor segment;
+
+        DayCursor(LocalDate firstDay, LocalDate lastDay, long from, long to) {
+            this.day = firstDay;
+            this.lastDay = lastDay;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public SessionRecord next() throws IOException {
+            while (true) {
+                if (segment == null && !openNextSegment()) {
+                    return null;
+                }
+
+                SessionRecord record = segment.next();
+                if (record != null) {
+                    return record;
+                }
+                segment.close();
+                segment = null;
+            }
+        }
+
+        private boolean openNextSegment() throws IOException {
+            while (!day.isAfter(lastDay)) {
+                File file = segmentFile(day);
+                day = day.plusDays(1);
+                if (file.exists()) {
+                    segment = new SegmentReader(file.toPath(), from, to);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (segment != null) {
+                segment.close();
+                segment = null;
+            }
+        }
+    }
+}
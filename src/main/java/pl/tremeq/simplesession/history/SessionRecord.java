@@ -0,0 +1,63 @@
+package pl.tremeq.simplesession.history;
+
+import java.util.UUID;
+
+/**
+ * A finished session as stored in the session history.
+ *
+ * @author TremeQ
+ */
+public final class SessionRecord {
+
+    private final UUID playerId;
+    private final String playerName;
+    private final long startTime;
+    private final long endTime;
+    private final long activeMillis;
+
+    /**
+     * Creates a record.
+     *
+     * @param playerId UUID of the player
+     * @param playerName Name of the player
+     * @param startTime Session start in milliseconds
+     * @param endTime Session end in milliseconds
+     * @param activeMillis Active (non-AFK) part of the session
+     */
+    public SessionRecord(UUID playerId, String playerName, long startTime, long endTime, long activeMillis) {
+        this.playerId = playerId;
+        this.playerName = playerName;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.activeMillis = activeMillis;
+    }
+
+    public UUID getPlayerId() {
+        return playerId;
+    }
+
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    /**
+     * Gets the session length.
+     *
+     * @return Duration in milliseconds
+     */
+    public long getDuration() {
+        return Math.max(0L, endTime - startTime);
+    }
+
+    public long getActiveMillis() {
+        return activeMillis;
+    }
+}
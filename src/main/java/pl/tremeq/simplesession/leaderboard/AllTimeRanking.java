@@ -0,0 +1,282 @@
+package pl.tremeq.simplesession.leaderboard;
+
+import pl.tremeq.simplesession.SimpleSession;
+import pl.tremeq.simplesession.storage.PlayerProfile;
+import pl.tremeq.simplesession.storage.PlayerRegistry;
+import pl.tremeq.simplesession.storage.ProfileStore;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * All-time playtime rank of every player who ever joined.
+ *
+ * Players get dense ids from a {@link PlayerRegistry} and are ranked by a
+ * {@link RankIndex}. The data lives in ranks.dat as fixed-size records at
+ * offset id * 24, so saving only rewrites the records that changed.
+ * The file is read on the IO thread at startup; updates arriving before
+ * that are applied once it is loaded.
+ *
+ * @author TremeQ
+ */
+public class AllTimeRanking {
+
+    private static final int MAGIC = 0x53535231; // "SSR1"
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_SIZE = 24;
+
+    private final SimpleSession plugin;
+    private final File file;
+    private final PlayerRegistry registry = new PlayerRegistry();
+    private final RankIndex index = new RankIndex();
+    private final BitSet dirty = new BitSet();
+    private final Map<UUID, Long> pending = new HashMap<>();
+    private volatile boolean ready;
+
+    /**
+     * Creates the ranking and starts loading it in the background.
+     *
+     * @param plugin The main plugin instance
+     * @param store Profile store, used to build ranks.dat from existing profiles
+     */
+    public AllTimeRanking(SimpleSession plugin, ProfileStore store) {
+        this.plugin = plugin;
+        this.file = new File(plugin.getDataFolder(), "ranks.dat");
+        plugin.getIoExecutor().execute(() -> load(store));
+    }
+
+    /**
+     * Sets a player's all-time playtime.
+     *
+     * @param playerId UUID of the player
+     * @param totalMillis All-time playtime in milliseconds
+     */
+    public synchronized void update(UUID playerId, long totalMillis) {
+        if (!ready) {
+            pending.put(playerId, totalMillis);
+            return;
+        }
+        int id = registry.getOrRegister(playerId);
+        if (index.rankOf(id) == 0 || index.keyOf(id) != totalMillis) {
+            index.update(id, totalMillis);
+            dirty.set(id);
+        }
+    }
+
+    /**
+     * Gets a player's all-time rank.
+     *
+     * @param playerId UUID of the player
+     * @return Rank (1 = most playtime), or 0 if unknown or still loading
+     */
+    public synchronized int getRank(UUID playerId) {
+        if (!ready) {
+            return 0;
+        }
+        return index.rankOf(registry.getId(playerId));
+    }
+
+    /**
+     * Gets the player at an all-time rank.
+     *
+     * @param rank Rank (1 = most playtime)
+     * @return UUID of the player, or null if out of range or still loading
+     */
+    public synchronized UUID getPlayerAt(int rank) {
+        if (!ready) {
+            return null;
+        }
+        int id = index.idAt(rank);
+        return id < 0 ? null : registry.getUuid(id);
+    }
+
+    /**
+     * Gets the all-time playtime of the player at a rank.
+     *
+     * @param rank Rank (1 = most playtime)
+     * @return Playtime in milliseconds, or 0 if out of range
+     */
+    public synchronized long getPlaytimeAt(int rank) {
+        int id = ready ? index.idAt(rank) : -1;
+        return id < 0 ? 0L : index.keyOf(id);
+    }
+
+    /**
+     * Gets the number of ranked players.
+     *
+     * @return Player count
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Queues writing the changed records to ranks.dat.
+     */
+    public void queueSave() {
+        plugin.getIoExecutor().execute(this::save);
+    }
+
+    /**
+     * Reads ranks.dat, or builds it from the player profiles on first start.
+     * Runs on the IO thread.
+     */
+    private void load(ProfileStore store) {
+        long started = System.currentTimeMillis();
+        boolean migrate = !file.exists();
+
+        if (!migrate) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+                if (in.readInt() != MAGIC) {
+                    throw new IOException("not a ranks file");
+                }
+                in.readInt(); // Reserved
+                while (true) {
+                    long msb;
+                    try {
+                        msb = in.readLong();
+                    } catch (EOFException end) {
+                        break;
+                    }
+                    long lsb = in.readLong();
+                    long total = in.readLong();
+                    synchronized (this) {
+                        int id = registry.getOrRegister(new UUID(msb, lsb));
+                        if (total > 0) {
+                            index.update(id, total);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not read ranks.dat (" + e.getMessage() + "), rebuilding it from player profiles.");
+                migrate = true;
+                // Drop the records read before the bad one - ids are handed out again
+                synchronized (this) {
+                    registry.clear();
+                    index.clear();
+                    dirty.clear();
+                }
+            }
+        }
+
+        if (migrate) {
+            File[] files = new File(plugin.getDataFolder(), "players").listFiles((dir, name) -> name.endsWith(".yml"));
+            if (files != null) {
+                for (File profileFile : files) {
+                    UUID playerId;
+                    try {
+                        playerId = UUID.fromString(profileFile.getName().substring(0, profileFile.getName().length() - 4));
+                    } catch (IllegalArgumentException e) {
+                        continue;
+                    }
+                    PlayerProfile profile = store.load(playerId, "");
+                    if (profile == null) {
+                        continue;
+                    }
+                    synchronized (this) {
+                        int id = registry.getOrRegister(playerId);
+                        index.update(id, profile.getStoredTotal(Period.ALL_TIME));
+                        dirty.set(id);
+                    }
+                }
+            }
+        }
+
+        synchronized (this) {
+            ready = true;
+            for (Map.Entry<UUID, Long> entry : pending.entrySet()) {
+                update(entry.getKey(), entry.getValue());
+            }
+            pending.clear();
+        }
+
+        plugin.getLogger().info("Loaded all-time ranking of " + size() + " players in "
+                + (System.currentTimeMillis() - started) + "ms");
+
+        if (migrate) {
+            save(true);
+        }
+    }
+
+    private void save() {
+        save(false);
+    }
+
+    /**
+     * Writes changed records in place. Runs on the IO thread.
+     *
+     * @param rewrite Start the file over with a fresh header (after a rebuild)
+     */
+    private void save(boolean rewrite) {
+        int[] ids;
+        long[] records;
+        synchronized (this) {
+            if (!ready || (dirty.isEmpty() && !rewrite)) {
+                return;
+            }
+            ids = dirty.stream().toArray();
+            records = new long[ids.length * 3];
+            for (int i = 0; i < ids.length; i++) {
+                int id = ids[i];
+                records[i * 3] = registry.getMostSignificantBits(id);
+                records[i * 3 + 1] = registry.getLeastSignificantBits(id);
+                records[i * 3 + 2] = index.rankOf(id) > 0 ? index.keyOf(id) : 0L;
+            }
+            dirty.clear();
+        }
+
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            if (rewrite) {
+                out.setLength(0L); // Nothing of a broken file may survive past the rebuilt records
+            }
+            if (out.length() < HEADER_SIZE) {
+                out.writeInt(MAGIC);
+                out.writeInt(0);
+            }
+            // Ids ascend and new ids are always dirty, so the file never gets holes.
+            // Runs of consecutive ids are written with a single seek.
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 2048);
+            int runStart = 0;
+            for (int i = 0; i < ids.length; i++) {
+                boolean breaksRun = i > runStart && (ids[i] != ids[i - 1] + 1 || !buffer.hasRemaining());
+                if (breaksRun) {
+                    writeRun(out, ids[runStart], buffer);
+                    runStart = i;
+                }
+                buffer.putLong(records[i * 3]);
+                buffer.putLong(records[i * 3 + 1]);
+                buffer.putLong(records[i * 3 + 2]);
+            }
+            if (ids.length > 0) {
+                writeRun(out, ids[runStart], buffer);
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to save ranks.dat: " + e.getMessage());
+            synchronized (this) {
+                for (int id : ids) {
+                    dirty.set(id);
+                }
+            }
+        }
+    }
+
+    private static void writeRun(RandomAccessFile out, int firstId, ByteBuffer buffer) throws IOException {
+        out.seek(HEADER_SIZE + (long) firstId * RECORD_SIZE);
+        out.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+    }
+}
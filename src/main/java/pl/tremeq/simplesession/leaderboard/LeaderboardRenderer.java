@@ -0,0 +1,198 @@
+package pl.tremeq.simplesession.leaderboard;
+
+import org.bukkit.ChatColor;
+import org.bukkit.entity.Player;
+import pl.tremeq.simplesession.SimpleSession;
+import pl.tremeq.simplesession.manager.SessionManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Renders the /simplesession top chat leaderboard.
+ *
+ * The display format is read and color-translated once per config load.
+ * Pages are rendered from SessionManager's cached sorted list at most once
+ * per second (or after a join/quit) and the immutable lines are shared by
+ * every sender asking for the same page.
+ *
+ * @author TremeQ
+ */
+public class LeaderboardRenderer {
+
+    private final SimpleSession plugin;
+
+    private int pageSize;
+    private String header;
+    private String title;
+    private String separator;
+    private String lineFormat;
+    private String footer;
+    private String pageInfo;
+    private final String[] medals = new String[4];
+    private final String[] colors = new String[4];
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Creates a new LeaderboardRenderer.
+     *
+     * @param plugin The main plugin instance
+     */
+    public LeaderboardRenderer(SimpleSession plugin) {
+        this.plugin = plugin;
+        reload();
+    }
+
+    /**
+     * Reads the leaderboard format from config and drops rendered pages.
+     */
+    public void reload() {
+        int topSize = plugin.getConfig().getInt("leaderboard.top-size", 10);
+
+        // Validate top-size is positive
+        if (topSize <= 0) {
+            plugin.getLogger().warning("Invalid leaderboard.top-size (" + topSize + "). Using default 10.");
+            topSize = 10;
+        }
+        pageSize = topSize;
+
+        header = color(plugin.getConfig().getString("leaderboard.format.header", "&7╔════════════════════════════════╗"));
+        separator = color(plugin.getConfig().getString("leaderboard.format.separator", "&7╠════════════════════════════════╣"));
+        lineFormat = color(plugin.getConfig().getString("leaderboard.format.line", "&7║ {medal} {rank}. {player} &7- {color}{time}"));
+        footer = color(plugin.getConfig().getString("leaderboard.format.footer", "&7╚════════════════════════════════╝"));
+        pageInfo = color(plugin.getConfig().getString("leaderboard.format.page-info", "&7Strona &e{page}&7/&e{pages} &8- &7/ss top <strona>"));
+        title = color(plugin.getConfig().getString("leaderboard.title", "&6&l🏆 TOP {size} - Bieżące Sesje"))
+                .replace("{size}", String.valueOf(topSize));
+
+        // Substituted into the already colored line format, so colored here
+        medals[0] = color(plugin.getConfig().getString("leaderboard.format.medals.first", "🥇"));
+        medals[1] = color(plugin.getConfig().getString("leaderboard.format.medals.second", "🥈"));
+        medals[2] = color(plugin.getConfig().getString("leaderboard.format.medals.third", "🥉"));
+        medals[3] = color(plugin.getConfig().getString("leaderboard.format.medals.other", "  "));
+
+        colors[0] = color(plugin.getConfig().getString("leaderboard.format.colors.first", "&6"));
+        colors[1] = color(plugin.getConfig().getString("leaderboard.format.colors.second", "&7"));
+        colors[2] = color(plugin.getConfig().getString("leaderboard.format.colors.third", "&c"));
+        colors[3] = color(plugin.getConfig().getString("leaderboard.format.colors.other", "&f"));
+
+        snapshot = null;
+    }
+
+    /**
+     * Gets the number of pages in the current leaderboard.
+     *
+     * @return Number of pages, 0 if no players are online
+     */
+    public int getPageCount() {
+        return currentSnapshot().pageCount;
+    }
+
+    /**
+     * Gets the rendered lines of a leaderboard page.
+     *
+     * @param page Page number (1 = first page)
+     * @return Immutable list of lines, or null if the page doesn't exist
+     */
+    public List<String> getPage(int page) {
+        Snapshot current = currentSnapshot();
+        if (page < 1 || page > current.pageCount) {
+            return null;
+        }
+        return current.pages.computeIfAbsent(page, p -> renderPage(current, p));
+    }
+
+    /**
+     * Gets the snapshot for the current second, rebuilding it after a join/quit.
+     */
+    private Snapshot currentSnapshot() {
+        SessionManager sessionManager = plugin.getSessionManager();
+        long second = System.currentTimeMillis() / 1000;
+        long version = sessionManager.getLeaderboardVersion();
+
+        Snapshot current = snapshot;
+        if (current == null || current.second != second || current.version != version) {
+            current = new Snapshot(second, version, sessionManager.getSortedPlayers(), pageSize);
+            snapshot = current;
+        }
+        return current;
+    }
+
+    private List<String> renderPage(Snapshot current, int page) {
+        SessionManager sessionManager = plugin.getSessionManager();
+        String pages = String.valueOf(current.pageCount);
+        int from = (page - 1) * pageSize;
+        int to = Math.min(from + pageSize, current.players.size());
+
+        List<String> lines = new ArrayList<>(to - from + 5);
+        lines.add(header);
+        lines.add(title.replace("{page}", String.valueOf(page)).replace("{pages}", pages));
+        lines.add(separator);
+
+        for (int i = from; i < to; i++) {
+            Player player = current.players.get(i);
+            long sessionSeconds = sessionManager.getSessionSeconds(player.getUniqueId());
+
+            // Top 3 get their own medal and color
+            int style = Math.min(i, 3);
+            lines.add(lineFormat
+                    .replace("{medal}", medals[style])
+                    .replace("{rank}", String.valueOf(i + 1))
+                    .replace("{player}", player.getName())
+                    .replace("{time}", formatSessionTime(sessionSeconds))
+                    .replace("{color}", colors[style]));
+        }
+
+        lines.add(footer);
+        if (current.pageCount > 1) {
+            lines.add(pageInfo.replace("{page}", String.valueOf(page)).replace("{pages}", pages));
+        }
+
+        return Collections.unmodifiableList(lines);
+    }
+
+    /**
+     * Formats session time in seconds to readable format.
+     *
+     * @param seconds Session time in seconds
+     * @return Formatted time string
+     */
+    private static String formatSessionTime(long seconds) {
+        long hours = seconds / 3600;
+        long minutes = (seconds % 3600) / 60;
+        long secs = seconds % 60;
+
+        if (hours > 0) {
+            return hours + "h " + minutes + "m";
+        } else if (minutes > 0) {
+            return minutes + "m " + secs + "s";
+        } else {
+            return secs + "s";
+        }
+    }
+
+    private static String color(String text) {
+        return ChatColor.translateAlternateColorCodes('&', text);
+    }
+
+    /**
+     * Leaderboard order for one second, with pages rendered on first request.
+     */
+    private static final class Snapshot {
+        private final long second;
+        private final long version;
+        private final List<Player> players;
+        private final int pageCount;
+        private final Map<Integer, List<String>> pages = new ConcurrentHashMap<>();
+
+        Snapshot(long second, long version, List<Player> players, int pageSize) {
+            this.second = second;
+            this.version = version;
+            this.players = players;
+            this.pageCount = (players.size() + pageSize - 1) / pageSize;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package pl.tremeq.simplesession.leaderboard;
+
+import java.time.LocalDate;
+
+/**
+ * Playtime leaderboard periods.
+ *
+ * Every period is identified by a key that changes when the period rolls
+ * over (e.g. the epoch day for DAILY), so totals from an old period can be
+ * recognised and dropped without scanning anything.
+ *
+ * @author TremeQ
+ */
+public enum Period {
+    DAILY("daily"),
+    WEEKLY("weekly"),
+    MONTHLY("monthly"),
+    ALL_TIME("alltime");
+
+    private final String configName;
+
+    Period(String configName) {
+        this.configName = configName;
+    }
+
+    public String getConfigName() {
+        return configName;
+    }
+
+    /**
+     * Gets the key of the period containing a date.
+     *
+     * @param date Local date
+     * @return Period key
+     */
+    public long keyOf(LocalDate date) {
+        switch (this) {
+            case DAILY:
+                return date.toEpochDay();
+            case WEEKLY:
+                // Epoch day 0 was a Thursday, shift so weeks start on Monday
+                return Math.floorDiv(date.toEpochDay() + 3, 7);
+            case MONTHLY:
+                return date.getYear() * 12L + date.getMonthValue() - 1;
+            default:
+                return 0L;
+        }
+    }
+
+    /**
+     * Finds a period by its name.
+     *
+     * @param name Period name (daily, weekly, monthly, alltime)
+     * @return The period, or null if unknown
+     */
+    public static Period fromName(String name) {
+        for (Period period : values()) {
+            if (period.configName.equalsIgnoreCase(name)) {
+                return period;
+            }
+        }
+        return null;
+    }
+}
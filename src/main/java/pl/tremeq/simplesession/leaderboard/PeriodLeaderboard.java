@@ -0,0 +1,152 @@
+package pl.tremeq.simplesession.leaderboard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bounded top-K playtime board for one period.
+ *
+ * Playtime within a period only grows, so a player who is not on the board
+ * can only get on it by beating the current last place - the board never
+ * needs the full player list. Updates are synchronized by the caller; reads
+ * go through an immutable snapshot and never lock.
+ *
+ * @author TremeQ
+ */
+public class PeriodLeaderboard {
+
+    /**
+     * One player on the board.
+     */
+    public static final class Entry {
+        private final UUID playerId;
+        private final String playerName;
+        private final long totalMillis;
+
+        public Entry(UUID playerId, String playerName, long totalMillis) {
+            this.playerId = playerId;
+            this.playerName = playerName;
+            this.totalMillis = totalMillis;
+        }
+
+        public UUID getPlayerId() {
+            return playerId;
+        }
+
+        public String getPlayerName() {
+            return playerName;
+        }
+
+        public long getTotalMillis() {
+            return totalMillis;
+        }
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+    private volatile List<Entry> snapshot = Collections.emptyList();
+    private int capacity;
+    private long key;
+
+    /**
+     * Creates an empty board.
+     *
+     * @param capacity Number of places kept
+     * @param key Key of the period the board covers
+     */
+    public PeriodLeaderboard(int capacity, long key) {
+        this.capacity = capacity;
+        this.key = key;
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * Clears the board for a new period.
+     *
+     * @param key Key of the new period
+     */
+    public void reset(long key) {
+        this.key = key;
+        entries.clear();
+        snapshot = Collections.emptyList();
+    }
+
+    /**
+     * Changes the number of places kept. Shrinking drops the lowest places;
+     * growing only fills up as players gain playtime.
+     *
+     * @param capacity New capacity
+     */
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+        if (entries.size() > capacity) {
+            entries.subList(capacity, entries.size()).clear();
+            snapshot = Collections.unmodifiableList(new ArrayList<>(entries));
+        }
+    }
+
+    /**
+     * Offers a player's new total for this period.
+     *
+     * @param playerId UUID of the player
+     * @param playerName Name of the player
+     * @param totalMillis The player's total playtime in the period
+     */
+    public void update(UUID playerId, String playerName, long totalMillis) {
+        int index = -1;
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i).playerId.equals(playerId)) {
+                index = i;
+                break;
+            }
+        }
+
+        if (index < 0) {
+            if (entries.size() >= capacity
+                    && (capacity == 0 || entries.get(entries.size() - 1).totalMillis >= totalMillis)) {
+                return; // Doesn't make the board
+            }
+            index = entries.size();
+            entries.add(null);
+        }
+
+        // Move up past everyone with less playtime
+        while (index > 0 && entries.get(index - 1).totalMillis < totalMillis) {
+            entries.set(index, entries.get(index - 1));
+            index--;
+        }
+        entries.set(index, new Entry(playerId, playerName, totalMillis));
+
+        if (entries.size() > capacity) {
+            entries.remove(entries.size() - 1);
+        }
+        snapshot = Collections.unmodifiableList(new ArrayList<>(entries));
+    }
+
+    /**
+     * Gets the entry at a position.
+     *
+     * @param position Position (1 = most playtime)
+     * @return The entry, or null if the position is empty
+     */
+    public Entry get(int position) {
+        List<Entry> current = snapshot;
+        if (position < 1 || position > current.size()) {
+            return null;
+        }
+        return current.get(position - 1);
+    }
+
+    /**
+     * Gets all entries, best first.
+     *
+     * @return Immutable list of entries
+     */
+    public List<Entry> getEntries() {
+        return snapshot;
+    }
+}
@@ -0,0 +1,680 @@
+package pl.tremeq.simplesession.leaderboard;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import pl.tremeq.simplesession.SimpleSession;
+import pl.tremeq.simplesession.debug.DebugRecorder;
+import pl.tremeq.simplesession.manager.PlayerSession;
+import pl.tremeq.simplesession.manager.SessionListener;
+import pl.tremeq.simplesession.scheduler.ScheduledTask;
+import pl.tremeq.simplesession.storage.PlayerProfile;
+import pl.tremeq.simplesession.storage.ProfileCache;
+import pl.tremeq.simplesession.storage.ProfileStore;
+import pl.tremeq.simplesession.storage.RecentSessions;
+import pl.tremeq.simplesession.storage.StreakBitmap;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Keeps daily, weekly, monthly and all-time playtime leaderboards.
+ *
+ * Playtime is credited incrementally: online sessions are flushed every
+ * playtime.flush-interval seconds and the rest is credited when a session
+ * ends. Each credit updates the player's profile and the bounded top-K board
+ * of every period. When a period rolls over its board is simply cleared -
+ * history is never rescanned. Profiles of online players stay in memory and
+ * are loaded and saved on the IO thread; offline players' profiles are
+ * looked up through a bounded LRU cache. All-time totals also feed the
+ * {@link AllTimeRanking}, which ranks every player who ever joined.
+ * Profiles also record the days a player was online, for join streaks,
+ * and the lengths of the player's last sessions.
+ *
+ * @author TremeQ
+ */
+public class PlaytimeTracker implements SessionListener {
+
+    private final SimpleSession plugin;
+    private final ProfileStore store;
+    private final File boardsFile;
+    private final AllTimeRanking ranking;
+    private final ProfileCache offlineProfiles = new ProfileCache(1000, 300_000L);
+
+    private final PeriodLeaderboard[] boards = new PeriodLeaderboard[Period.values().length];
+    private final Map<UUID, PlayerProfile> profiles = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> creditedMillis = new HashMap<>();
+
+    private final long[] currentKeys = new long[Period.values().length];
+    private volatile long nextRollover;
+    private ZoneId zone;
+    private volatile boolean allTimeRankMode;
+    private ScheduledTask flushTask;
+
+    /**
+     * Creates the tracker, loads the saved boards and starts tracking online players.
+     *
+     * @param plugin The main plugin instance
+     */
+    public PlaytimeTracker(SimpleSession plugin) {
+        this.plugin = plugin;
+        this.store = new ProfileStore(plugin);
+        this.boardsFile = new File(plugin.getDataFolder(), "leaderboards.yml");
+        this.ranking = new AllTimeRanking(plugin, store);
+
+        readSettings();
+        loadBoards();
+
+        plugin.getSessionManager().addListener(this);
+
+        // Players already online (plugin reload)
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            PlayerSession session = plugin.getSessionManager().getSession(player.getUniqueId());
+            if (session != null) {
+                onSessionStart(session, player, false);
+            }
+        }
+
+        startFlushTask();
+    }
+
+    /**
+     * Reloads playtime settings from config.
+     */
+    public void reload() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        readSettings();
+        startFlushTask();
+    }
+
+    private synchronized void readSettings() {
+        String rankMode = plugin.getConfig().getString("leaderboard.rank-mode", "session");
+        allTimeRankMode = "alltime".equalsIgnoreCase(rankMode);
+        if (!allTimeRankMode && !"session".equalsIgnoreCase(rankMode)) {
+            plugin.getLogger().warning("Invalid leaderboard.rank-mode '" + rankMode + "'. Using session.");
+        }
+
+        String zoneName = plugin.getConfig().getString("playtime.timezone", "");
+        try {
+            zone = zoneName == null || zoneName.isEmpty() ? ZoneId.systemDefault() : ZoneId.of(zoneName);
+        } catch (DateTimeException e) {
+            plugin.getLogger().warning("Invalid playtime.timezone '" + zoneName + "'. Using server timezone.");
+            zone = ZoneId.systemDefault();
+        }
+
+        int size = plugin.getConfig().getInt("playtime.top-size", 10);
+        if (size <= 0) {
+            plugin.getLogger().warning("Invalid playtime.top-size (" + size + "). Using default 10.");
+            size = 10;
+        }
+
+        int cacheSize = plugin.getConfig().getInt("playtime.cache.size", 1000);
+        int cacheExpire = plugin.getConfig().getInt("playtime.cache.expire", 300);
+        if (cacheSize <= 0 || cacheExpire <= 0) {
+            plugin.getLogger().warning("Invalid playtime.cache settings. Using defaults (1000 players, 300s).");
+            cacheSize = 1000;
+            cacheExpire = 300;
+        }
+        offlineProfiles.setLimits(cacheSize, cacheExpire * 1000L);
+
+        for (Period period : Period.values()) {
+            if (boards[period.ordinal()] == null) {
+                boards[period.ordinal()] = new PeriodLeaderboard(size, Long.MIN_VALUE);
+            } else {
+                boards[period.ordinal()].setCapacity(size);
+            }
+        }
+
+        // Timezone may have changed - recompute period keys now
+        nextRollover = 0L;
+        refreshKeys(System.currentTimeMillis());
+    }
+
+    private void startFlushTask() {
+        int intervalSeconds = plugin.getConfig().getInt("playtime.flush-interval", 60);
+        if (intervalSeconds <= 0) {
+            plugin.getLogger().warning("Invalid playtime.flush-interval (" + intervalSeconds + "s). Using default 60s.");
+            intervalSeconds = 60;
+        }
+        long intervalTicks = intervalSeconds * 20L;
+        flushTask = plugin.getTaskScheduler().runTimer(this::flush, intervalTicks, intervalTicks);
+    }
+
+    /**
+     * Starts tracking a session and loads the player's profile in the background.
+     *
+     * @param session The session
+     * @param player The player
+     * @param resumed true if the session was resumed within the grace window
+     */
+    @Override
+    public void onSessionStart(PlayerSession session, Player player, boolean resumed) {
+        UUID playerId = player.getUniqueId();
+        PlayerProfile profile;
+        synchronized (this) {
+            if (resumed && profiles.containsKey(playerId)) {
+                profiles.get(playerId).setPlayerName(player.getName());
+                return;
+            }
+            profile = new PlayerProfile(playerId, player.getName());
+            profiles.put(playerId, profile);
+            // A session resumed from another server was credited there up to now
+            creditedMillis.put(playerId, resumed ? session.getDuration(System.currentTimeMillis()) : 0L);
+        }
+        offlineProfiles.invalidate(playerId);
+
+        String name = player.getName();
+        plugin.getIoExecutor().execute(() -> {
+            PlayerProfile stored = store.load(playerId, name);
+            if (stored == null) {
+                return;
+            }
+            synchronized (this) {
+                profile.merge(stored);
+                profile.setPlayerName(name);
+                refreshKeys(System.currentTimeMillis());
+                profile.markDay(currentKeys[Period.DAILY.ordinal()]);
+                updateBoards(profile);
+            }
+        });
+    }
+
+    /**
+     * Credits the rest of a session, records its length and saves the player's profile.
+     *
+     * @param session The session
+     * @param endTime When the player left
+     */
+    @Override
+    public void onSessionEnd(PlayerSession session, long endTime) {
+        finish(session, endTime, true);
+    }
+
+    /**
+     * Credits the rest of a session that continues on another server and
+     * saves the player's profile. Its length is recorded where it ends.
+     *
+     * @param session The session
+     * @param endTime When the session left this server
+     */
+    @Override
+    public void onSessionHandoff(PlayerSession session, long endTime) {
+        finish(session, endTime, false);
+    }
+
+    private void finish(PlayerSession session, long endTime, boolean finished) {
+        PlayerProfile profile;
+        synchronized (this) {
+            credit(session, endTime);
+            profile = profiles.remove(session.getPlayerId());
+            creditedMillis.remove(session.getPlayerId());
+            if (profile != null && finished) {
+                refreshKeys(endTime);
+                profile.addSession(session.getDuration(endTime), currentKeys[Period.DAILY.ordinal()]);
+            }
+            if (profile != null && profile.isLoaded()) {
+                // Offline lookups right after leaving need no disk read
+                offlineProfiles.put(profile.copy(), endTime);
+            }
+        }
+        if (profile != null) {
+            queueSave(profile);
+        }
+    }
+
+    /**
+     * Credits playtime of all online players and saves what changed.
+     */
+    private void flush() {
+        long now = System.currentTimeMillis();
+        List<PlayerProfile> changed = new ArrayList<>();
+        synchronized (this) {
+            for (PlayerProfile profile : profiles.values()) {
+                PlayerSession session = plugin.getSessionManager().getSession(profile.getPlayerId());
+                if (session != null) {
+                    credit(session, now);
+                }
+                if (profile.isDirty()) {
+                    changed.add(profile);
+                }
+            }
+        }
+
+        for (PlayerProfile profile : changed) {
+            queueSave(profile);
+        }
+        queueSaveBoards();
+        ranking.queueSave();
+
+        plugin.getDebugRecorder().record(DebugRecorder.Category.CACHE,
+                "Playtime flushed (%2$d profiles changed)", null, changed.size());
+    }
+
+    /**
+     * Credits the part of a session that hasn't been credited yet.
+     * Caller holds the lock.
+     */
+    private void credit(PlayerSession session, long now) {
+        PlayerProfile profile = profiles.get(session.getPlayerId());
+        if (profile == null) {
+            return;
+        }
+
+        long duration = session.getDuration(now);
+        long credited = creditedMillis.getOrDefault(session.getPlayerId(), 0L);
+        if (duration <= credited) {
+            return;
+        }
+        creditedMillis.put(session.getPlayerId(), duration);
+
+        refreshKeys(now);
+        profile.add(duration - credited, currentKeys);
+        if (profile.isLoaded()) {
+            // Still online after midnight counts as playing the new day
+            profile.markDay(currentKeys[Period.DAILY.ordinal()]);
+        }
+        updateBoards(profile);
+    }
+
+    /**
+     * Offers a profile's totals to every board. Caller holds the lock.
+     */
+    private void updateBoards(PlayerProfile profile) {
+        for (Period period : Period.values()) {
+            long total = profile.getTotal(period, currentKeys[period.ordinal()]);
+            if (total > 0) {
+                boards[period.ordinal()].update(profile.getPlayerId(), profile.getPlayerName(), total);
+            }
+        }
+
+        // A partly loaded total would rank the player too low on disk
+        if (profile.isLoaded()) {
+            ranking.update(profile.getPlayerId(), profile.getTotal(Period.ALL_TIME, currentKeys[Period.ALL_TIME.ordinal()]));
+        }
+    }
+
+    /**
+     * Recomputes period keys after midnight and clears boards of ended periods.
+     */
+    private synchronized void refreshKeys(long now) {
+        if (now < nextRollover) {
+            return;
+        }
+
+        LocalDate today = Instant.ofEpochMilli(now).atZone(zone).toLocalDate();
+        for (Period period : Period.values()) {
+            long key = period.keyOf(today);
+            currentKeys[period.ordinal()] = key;
+            PeriodLeaderboard board = boards[period.ordinal()];
+            if (board.getKey() != key) {
+                board.reset(key);
+            }
+        }
+        nextRollover = today.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Gets the board of a period.
+     *
+     * @param period The period
+     * @return The current board
+     */
+    public PeriodLeaderboard getBoard(Period period) {
+        refreshKeys(System.currentTimeMillis());
+        return boards[period.ordinal()];
+    }
+
+    /**
+     * Gets the all-time ranking of every player who ever joined.
+     *
+     * @return AllTimeRanking instance
+     */
+    public AllTimeRanking getRanking() {
+        return ranking;
+    }
+
+    /**
+     * Checks if %simplesession_rank% ranks by all-time playtime instead of the current session.
+     *
+     * @return true if leaderboard.rank-mode is alltime
+     */
+    public boolean isAllTimeRankMode() {
+        return allTimeRankMode;
+    }
+
+    /**
+     * Gets the playtime of a player in a period, online or offline.
+     * Never blocks: an offline player's profile that isn't cached is loaded
+     * in the background and -1 is returned until it arrives.
+     *
+     * @param playerId UUID of the player
+     * @param period The period
+     * @return Playtime in milliseconds, or -1 if the profile is still loading
+     */
+    public long getPlaytime(UUID playerId, Period period) {
+        long key;
+        synchronized (this) {
+            refreshKeys(System.currentTimeMillis());
+            key = currentKeys[period.ordinal()];
+            PlayerProfile profile = profiles.get(playerId);
+            if (profile != null) {
+                return profile.getTotal(period, key);
+            }
+        }
+
+        PlayerProfile offline = getOfflineProfile(playerId);
+        return offline != null ? offline.getTotal(period, key) : -1L;
+    }
+
+    /**
+     * Gets a player's current join streak, online or offline.
+     *
+     * @param playerId UUID of the player
+     * @return Consecutive days played, or -1 if the profile is still loading
+     */
+    public int getStreak(UUID playerId) {
+        long today = getCurrentKey(Period.DAILY);
+        return readStreak(playerId, streak -> streak.getCurrent(today));
+    }
+
+    /**
+     * Gets a player's longest join streak, online or offline.
+     *
+     * @param playerId UUID of the player
+     * @return Longest run of consecutive days, or -1 if the profile is still loading
+     */
+    public int getBestStreak(UUID playerId) {
+        return readStreak(playerId, StreakBitmap::getBest);
+    }
+
+    /**
+     * Gets the length of a player's last finished session, online or offline.
+     *
+     * @param playerId UUID of the player
+     * @return Milliseconds (0 if none), or -1 if the profile is still loading
+     */
+    public long getLastSessionMillis(UUID playerId) {
+        return readRecent(playerId, RecentSessions::getLast);
+    }
+
+    /**
+     * Gets the average length of a player's last finished sessions (up to
+     * {@link RecentSessions#CAPACITY}), online or offline.
+     *
+     * @param playerId UUID of the player
+     * @return Milliseconds (0 if none), or -1 if the profile is still loading
+     */
+    public long getAverageSessionMillis(UUID playerId) {
+        return readRecent(playerId, RecentSessions::getAverage);
+    }
+
+    /**
+     * Gets how many sessions a player finished today, online or offline.
+     *
+     * @param playerId UUID of the player
+     * @return Sessions finished today, or -1 if the profile is still loading
+     */
+    public long getSessionsToday(UUID playerId) {
+        long today = getCurrentKey(Period.DAILY);
+        return readRecent(playerId, recent -> recent.getCount(today));
+    }
+
+    private long readRecent(UUID playerId, ToLongFunction<RecentSessions> value) {
+        synchronized (this) {
+            PlayerProfile profile = profiles.get(playerId);
+            if (profile != null) {
+                return profile.isLoaded() ? value.applyAsLong(profile.getRecentSessions()) : -1L;
+            }
+        }
+
+        PlayerProfile offline = getOfflineProfile(playerId);
+        return offline != null ? value.applyAsLong(offline.getRecentSessions()) : -1L;
+    }
+
+    private int readStreak(UUID playerId, ToIntFunction<StreakBitmap> value) {
+        synchronized (this) {
+            PlayerProfile profile = profiles.get(playerId);
+            if (profile != null) {
+                return profile.isLoaded() ? value.applyAsInt(profile.getStreak()) : -1;
+            }
+        }
+
+        PlayerProfile offline = getOfflineProfile(playerId);
+        return offline != null ? value.applyAsInt(offline.getStreak()) : -1;
+    }
+
+    /**
+     * Gets a cached offline profile, queueing a load on a cache miss.
+     *
+     * @param playerId UUID of the player
+     * @return The profile (do not modify), or null while it is loading
+     */
+    public PlayerProfile getOfflineProfile(UUID playerId) {
+        PlayerProfile cached = offlineProfiles.get(playerId, System.currentTimeMillis());
+        if (cached != null) {
+            return cached;
+        }
+
+        if (offlineProfiles.startLoading(playerId)) {
+            plugin.getDebugRecorder().record(DebugRecorder.Category.CACHE, "Offline profile cache miss: %1$s", playerId.toString());
+            plugin.getIoExecutor().execute(() ->
+                    offlineProfiles.finishLoading(playerId, store.load(playerId, ""), System.currentTimeMillis()));
+        }
+        return null;
+    }
+
+    /**
+     * Loads a profile on the calling thread, from memory or cache when possible.
+     * Only call from the IO thread.
+     *
+     * @param playerId UUID of the player
+     * @return Profile copy, or null if it could not be read
+     */
+    public PlayerProfile loadProfile(UUID playerId) {
+        synchronized (this) {
+            PlayerProfile profile = profiles.get(playerId);
+            if (profile != null && profile.isLoaded()) {
+                return profile.copy();
+            }
+        }
+
+        PlayerProfile cached = offlineProfiles.get(playerId, System.currentTimeMillis());
+        if (cached != null) {
+            return cached;
+        }
+
+        PlayerProfile loaded = store.load(playerId, "");
+        offlineProfiles.finishLoading(playerId, loaded, System.currentTimeMillis());
+        return loaded;
+    }
+
+    /**
+     * Gets the lifetime playtime of an online player, including the part of
+     * the current session that hasn't been credited yet.
+     *
+     * @param playerId UUID of the player
+     * @return Lifetime playtime in seconds, or -1 if the profile isn't loaded yet
+     */
+    public synchronized long getLifetimeSeconds(UUID playerId) {
+        PlayerProfile profile = profiles.get(playerId);
+        if (profile == null || !profile.isLoaded()) {
+            return -1L;
+        }
+
+        long lifetime = profile.getStoredTotal(Period.ALL_TIME);
+        PlayerSession session = plugin.getSessionManager().getSession(playerId);
+        if (session != null) {
+            lifetime += Math.max(0L, session.getDuration(System.currentTimeMillis())
+                    - creditedMillis.getOrDefault(playerId, 0L));
+        }
+        return lifetime / 1000;
+    }
+
+    /**
+     * Checks if a lifetime milestone was already granted to an online player.
+     *
+     * @param playerId UUID of the player
+     * @param milestoneId Milestone ID
+     * @return true if granted, false if not or the profile isn't loaded
+     */
+    public synchronized boolean isLifetimeClaimed(UUID playerId, String milestoneId) {
+        PlayerProfile profile = profiles.get(playerId);
+        return profile != null && profile.isClaimed(milestoneId);
+    }
+
+    /**
+     * Claims a lifetime milestone and writes the claim to disk before anything
+     * else happens, so a crash can never lead to a second grant.
+     * The callback runs on the IO thread once the write finished or failed;
+     * a failed claim is reverted.
+     *
+     * @param playerId UUID of the player
+     * @param milestoneId Milestone ID
+     * @param onSaved Called with true if the claim is on disk
+     * @return false if already claimed or the profile isn't loaded yet
+     */
+    public boolean claimLifetimeMilestone(UUID playerId, String milestoneId, Consumer<Boolean> onSaved) {
+        PlayerProfile profile;
+        synchronized (this) {
+            profile = profiles.get(playerId);
+            if (profile == null || !profile.isLoaded() || !profile.claim(milestoneId)) {
+                return false;
+            }
+        }
+
+        plugin.getIoExecutor().execute(() -> {
+            PlayerProfile copy;
+            synchronized (this) {
+                copy = profile.copy();
+            }
+            boolean saved = store.save(copy);
+            if (!saved) {
+                synchronized (this) {
+                    profile.unclaim(milestoneId);
+                }
+            }
+            onSaved.accept(saved);
+        });
+        return true;
+    }
+
+    /**
+     * Gets the timezone periods are counted in (playtime.timezone).
+     *
+     * @return The timezone
+     */
+    public synchronized ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * Gets the current key of a period.
+     *
+     * @param period The period
+     * @return Period key
+     */
+    public synchronized long getCurrentKey(Period period) {
+        refreshKeys(System.currentTimeMillis());
+        return currentKeys[period.ordinal()];
+    }
+
+    private void queueSave(PlayerProfile profile) {
+        plugin.getIoExecutor().execute(() -> {
+            PlayerProfile copy;
+            synchronized (this) {
+                // Snapshot on the IO thread, so a pending load is merged first
+                if (!profile.isLoaded()) {
+                    return;
+                }
+                copy = profile.copy();
+                profile.setDirty(false);
+            }
+            store.save(copy);
+        });
+    }
+
+    private void queueSaveBoards() {
+        plugin.getIoExecutor().execute(this::saveBoards);
+    }
+
+    private void saveBoards() {
+        YamlConfiguration config = new YamlConfiguration();
+        synchronized (this) {
+            for (Period period : Period.values()) {
+                PeriodLeaderboard board = boards[period.ordinal()];
+                String path = period.getConfigName();
+                config.set(path + ".key", board.getKey());
+                List<PeriodLeaderboard.Entry> entries = board.getEntries();
+                for (int i = 0; i < entries.size(); i++) {
+                    PeriodLeaderboard.Entry entry = entries.get(i);
+                    config.set(path + ".entries." + i + ".uuid", entry.getPlayerId().toString());
+                    config.set(path + ".entries." + i + ".name", entry.getPlayerName());
+                    config.set(path + ".entries." + i + ".millis", entry.getTotalMillis());
+                }
+            }
+        }
+
+        try {
+            config.save(boardsFile);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to save leaderboards.yml: " + e.getMessage());
+        }
+    }
+
+    private synchronized void loadBoards() {
+        if (!boardsFile.exists()) {
+            return;
+        }
+
+        YamlConfiguration config = YamlConfiguration.loadConfiguration(boardsFile);
+        for (Period period : Period.values()) {
+            String path = period.getConfigName();
+            PeriodLeaderboard board = boards[period.ordinal()];
+            if (config.getLong(path + ".key", Long.MIN_VALUE) != board.getKey()) {
+                continue; // Period has ended since the board was saved
+            }
+
+            ConfigurationSection entries = config.getConfigurationSection(path + ".entries");
+            if (entries == null) {
+                continue;
+            }
+            for (String index : entries.getKeys(false)) {
+                try {
+                    board.update(UUID.fromString(entries.getString(index + ".uuid", "")),
+                            entries.getString(index + ".name", "?"), entries.getLong(index + ".millis"));
+                } catch (IllegalArgumentException e) {
+                    plugin.getLogger().warning("Skipping invalid leaderboards.yml entry " + path + "." + index);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops flushing and saves the boards.
+     * Called when the plugin is disabled, after all sessions have ended.
+     */
+    public void shutdown() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        queueSaveBoards();
+        ranking.queueSave();
+    }
+}
@@ -0,0 +1,216 @@
+package pl.tremeq.simplesession.leaderboard;
+
+import java.util.Arrays;
+
+/**
+ * Order-statistic tree over player ids, ordered by playtime (highest first).
+ *
+ * An array-based treap: node i is player id i, children and subtree sizes
+ * live in int arrays and priorities are derived from the id, so there are no
+ * node objects. Rank of a player and player at a rank are O(log n).
+ * Not thread-safe - callers synchronize.
+ *
+ * @author TremeQ
+ */
+class RankIndex {
+
+    private static final int NIL = -1;
+
+    private int[] left = new int[0];
+    private int[] right = new int[0];
+    private int[] size = new int[0];
+    private long[] keys = new long[0];
+    private boolean[] present = new boolean[0];
+    private int root = NIL;
+
+    // Results of split(), kept in fields so splitting doesn't allocate
+    private int splitBefore;
+    private int splitRest;
+
+    /**
+     * Sets the playtime of a player, adding the player if needed.
+     *
+     * @param id Player id
+     * @param total Playtime in milliseconds
+     */
+    void update(int id, long total) {
+        ensureCapacity(id + 1);
+        if (present[id]) {
+            if (keys[id] == total) {
+                return;
+            }
+            root = remove(root, id);
+        }
+
+        keys[id] = total;
+        left[id] = NIL;
+        right[id] = NIL;
+        size[id] = 1;
+        present[id] = true;
+
+        split(root, id);
+        root = merge(merge(splitBefore, id), splitRest);
+    }
+
+    /**
+     * Gets the rank of a player.
+     *
+     * @param id Player id
+     * @return Rank (1 = most playtime), or 0 if the player is not indexed
+     */
+    int rankOf(int id) {
+        if (id < 0 || id >= present.length || !present[id]) {
+            return 0;
+        }
+
+        int rank = 0;
+        int node = root;
+        while (node != id) {
+            if (before(id, node)) {
+                node = left[node];
+            } else {
+                rank += sizeOf(left[node]) + 1;
+                node = right[node];
+            }
+        }
+        return rank + sizeOf(left[id]) + 1;
+    }
+
+    /**
+     * Gets the player at a rank.
+     *
+     * @param rank Rank (1 = most playtime)
+     * @return Player id, or -1 if the rank is out of range
+     */
+    int idAt(int rank) {
+        if (rank < 1 || rank > sizeOf(root)) {
+            return NIL;
+        }
+
+        int node = root;
+        while (true) {
+            int leftSize = sizeOf(left[node]);
+            if (rank <= leftSize) {
+                node = left[node];
+            } else if (rank == leftSize + 1) {
+                return node;
+            } else {
+                rank -= leftSize + 1;
+                node = right[node];
+            }
+        }
+    }
+
+    /**
+     * Gets the indexed playtime of a player.
+     *
+     * @param id Player id
+     * @return Playtime in milliseconds
+     */
+    long keyOf(int id) {
+        return keys[id];
+    }
+
+    /**
+     * Gets the number of indexed players.
+     *
+     * @return Player count
+     */
+    int size() {
+        return sizeOf(root);
+    }
+
+    /**
+     * Removes every player.
+     */
+    void clear() {
+        Arrays.fill(present, false);
+        root = NIL;
+    }
+
+    /**
+     * Splits a subtree into nodes ordered before id (splitBefore) and the rest (splitRest).
+     */
+    private void split(int node, int id) {
+        if (node == NIL) {
+            splitBefore = NIL;
+            splitRest = NIL;
+            return;
+        }
+        if (before(node, id)) {
+            split(right[node], id);
+            right[node] = splitBefore;
+            refresh(node);
+            splitBefore = node;
+        } else {
+            split(left[node], id);
+            left[node] = splitRest;
+            refresh(node);
+            splitRest = node;
+        }
+    }
+
+    private int merge(int a, int b) {
+        if (a == NIL) {
+            return b;
+        }
+        if (b == NIL) {
+            return a;
+        }
+        if (priority(a) > priority(b)) {
+            right[a] = merge(right[a], b);
+            refresh(a);
+            return a;
+        }
+        left[b] = merge(a, left[b]);
+        refresh(b);
+        return b;
+    }
+
+    private int remove(int node, int id) {
+        if (node == id) {
+            return merge(left[node], right[node]);
+        }
+        if (before(id, node)) {
+            left[node] = remove(left[node], id);
+        } else {
+            right[node] = remove(right[node], id);
+        }
+        refresh(node);
+        return node;
+    }
+
+    /**
+     * More playtime first; ties go to the player who joined first.
+     */
+    private boolean before(int a, int b) {
+        return keys[a] != keys[b] ? keys[a] > keys[b] : a < b;
+    }
+
+    private void refresh(int node) {
+        size[node] = sizeOf(left[node]) + sizeOf(right[node]) + 1;
+    }
+
+    private int sizeOf(int node) {
+        return node == NIL ? 0 : size[node];
+    }
+
+    private static int priority(int id) {
+        int h = id * 0x9E3779B9;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        return h ^ (h >>> 13);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= present.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, Math.max(1024, present.length * 2));
+        left = Arrays.copyOf(left, newCapacity);
+        right = Arrays.copyOf(right, newCapacity);
+        size = Arrays.copyOf(size, newCapacity);
+        keys = Arrays.copyOf(keys, newCapacity);
+        present = Arrays.copyOf(present, newCapacity);
+    }
+}
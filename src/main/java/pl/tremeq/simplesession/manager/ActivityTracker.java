@@ -0,0 +1,157 @@
+package pl.tremeq.simplesession.manager;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerChatEvent;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import pl.tremeq.simplesession.SimpleSession;
+import pl.tremeq.simplesession.debug.DebugRecorder;
+import pl.tremeq.simplesession.debug.TickMonitor;
+import pl.tremeq.simplesession.scheduler.ScheduledTask;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Tracks player activity for active-time mode.
+ *
+ * Event handlers only write a timestamp into the player's session - no
+ * allocation and no bookkeeping per event. A sweep every few ticks pauses
+ * sessions of players who have been idle longer than the configured
+ * threshold and resumes those who became active again.
+ *
+ * @author TremeQ
+ */
+class ActivityTracker implements Listener {
+
+    private final SimpleSession plugin;
+    private final Map<UUID, PlayerSession> sessions;
+
+    private ScheduledTask sweepTask;
+    private boolean enabled;
+    private boolean countMovement;
+    private long idleAfterMillis;
+
+    ActivityTracker(SimpleSession plugin, Map<UUID, PlayerSession> sessions) {
+        this.plugin = plugin;
+        this.sessions = sessions;
+    }
+
+    /**
+     * Loads settings and registers or unregisters the activity listeners.
+     */
+    void reload() {
+        shutdown();
+
+        enabled = plugin.getConfig().getBoolean("active-time.enabled", false);
+        countMovement = plugin.getConfig().getBoolean("active-time.count-movement", false);
+        int idleAfter = plugin.getConfig().getInt("active-time.idle-after", 300);
+        int interval = plugin.getConfig().getInt("active-time.check-interval", 100);
+
+        if (idleAfter <= 0) {
+            plugin.getLogger().warning("Invalid active-time.idle-after (" + idleAfter + "s). Using default 300s.");
+            idleAfter = 300;
+        }
+        if (interval <= 0) {
+            plugin.getLogger().warning("Invalid active-time.check-interval (" + interval + "). Using default 100.");
+            interval = 100;
+        }
+        idleAfterMillis = idleAfter * 1000L;
+
+        if (!enabled) {
+            return;
+        }
+
+        // Nobody counts as idle right after enabling
+        long now = System.currentTimeMillis();
+        for (PlayerSession session : sessions.values()) {
+            session.markActive(now);
+        }
+
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        sweepTask = plugin.getTaskScheduler().runTimer(this::sweep, interval, interval);
+    }
+
+    /**
+     * Stops the sweep and unregisters the activity listeners.
+     */
+    void shutdown() {
+        if (sweepTask != null) {
+            sweepTask.cancel();
+            sweepTask = null;
+        }
+        HandlerList.unregisterAll(this);
+    }
+
+    /**
+     * Checks if active-time mode is enabled.
+     *
+     * @return true if enabled
+     */
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Pauses sessions of idle players and resumes active ones, in one pass.
+     */
+    private void sweep() {
+        long timerStart = plugin.getTickMonitor().start();
+        try {
+            long idleBefore = System.currentTimeMillis() - idleAfterMillis;
+            for (PlayerSession session : sessions.values()) {
+                session.resumeIfActive();
+                if (!session.isIdle() && session.getLastActivity() < idleBefore) {
+                    session.pause();
+                    plugin.getDebugRecorder().record(DebugRecorder.Category.SESSION,
+                            "Player %1$s is idle, active time paused", session.getPlayerName());
+                }
+            }
+        } finally {
+            plugin.getTickMonitor().stop(TickMonitor.Section.ACTIVITY_SWEEP, timerStart);
+        }
+    }
+
+    private void markActive(Player player) {
+        PlayerSession session = sessions.get(player.getUniqueId());
+        if (session != null) {
+            session.markActive(System.currentTimeMillis());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerMove(PlayerMoveEvent event) {
+        Location from = event.getFrom();
+        Location to = event.getTo();
+        if (to == null) {
+            return;
+        }
+
+        // Looking around needs a real player; walking can be done by water or pistons
+        boolean rotated = from.getYaw() != to.getYaw() || from.getPitch() != to.getPitch();
+        if (rotated || (countMovement && (from.getX() != to.getX() || from.getZ() != to.getZ()))) {
+            markActive(event.getPlayer());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerChat(AsyncPlayerChatEvent event) {
+        markActive(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerInteract(PlayerInteractEvent event) {
+        markActive(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerCommand(PlayerCommandPreprocessEvent event) {
+        markActive(event.getPlayer());
+    }
+}
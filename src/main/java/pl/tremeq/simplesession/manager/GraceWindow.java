@@ -0,0 +1,126 @@
+package pl.tremeq.simplesession.manager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Holds disconnected sessions until their reconnect deadline.
+ *
+ * Windows differ per entry (reconnect grace, restore window, the quit time
+ * of a handoff, a reload changing the grace), so entries are also kept
+ * ordered by deadline: expired entries are always at the head and are
+ * evicted in bulk by walking from the front until the first live entry.
+ * Park, resume and eviction are O(log n) per session, with no per-player tasks.
+ *
+ * @author TremeQ
+ */
+class GraceWindow {
+
+    /**
+     * A disconnected session waiting for its player.
+     */
+    static final class Parked {
+        final PlayerSession session;
+        final long quitTime;
+        final long deadline;
+        // Parking order, breaks ties between equal deadlines
+        private long sequence;
+
+        Parked(PlayerSession session, long quitTime, long deadline) {
+            this.session = session;
+            this.quitTime = quitTime;
+            this.deadline = deadline;
+        }
+    }
+
+    private final Map<UUID, Parked> parked = new HashMap<>();
+    private final TreeSet<Parked> byDeadline = new TreeSet<>(
+            Comparator.<Parked>comparingLong(entry -> entry.deadline).thenComparingLong(entry -> entry.sequence));
+    private long nextSequence;
+
+    /**
+     * Parks a session. Replaces any older entry for the player.
+     *
+     * @return The replaced entry, or null if none
+     */
+    synchronized Parked park(PlayerSession session, long quitTime, long deadline) {
+        Parked entry = new Parked(session, quitTime, deadline);
+        entry.sequence = nextSequence++;
+        Parked replaced = parked.put(session.getPlayerId(), entry);
+        if (replaced != null) {
+            byDeadline.remove(replaced);
+        }
+        byDeadline.add(entry);
+        return replaced;
+    }
+
+    /**
+     * Takes the parked session of a rejoining player.
+     * The entry is removed even if its deadline already passed, so the
+     * caller can end it before starting a new session.
+     *
+     * @return The parked entry, or null if none
+     */
+    synchronized Parked take(UUID playerId) {
+        Parked entry = parked.remove(playerId);
+        if (entry != null) {
+            byDeadline.remove(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Takes a player's parked session if it matches.
+     *
+     * @return The parked entry, or null if none matches
+     */
+    synchronized Parked takeIf(UUID playerId, Predicate<PlayerSession> filter) {
+        Parked entry = parked.get(playerId);
+        if (entry == null || !filter.test(entry.session)) {
+            return null;
+        }
+        return take(playerId);
+    }
+
+    /**
+     * Removes every entry whose deadline has passed.
+     *
+     * @return Evicted entries, oldest first
+     */
+    synchronized List<Parked> evictExpired(long now) {
+        List<Parked> expired = null;
+        while (!byDeadline.isEmpty() && byDeadline.first().deadline < now) {
+            Parked entry = byDeadline.pollFirst();
+            parked.remove(entry.session.getPlayerId());
+            if (expired == null) {
+                expired = new ArrayList<>();
+            }
+            expired.add(entry);
+        }
+        return expired != null ? expired : Collections.emptyList();
+    }
+
+    /**
+     * Removes and returns every parked entry.
+     */
+    synchronized List<Parked> drain() {
+        List<Parked> all = new ArrayList<>(byDeadline);
+        parked.clear();
+        byDeadline.clear();
+        return all;
+    }
+
+    /**
+     * Gets the number of parked sessions.
+     */
+    synchronized int size() {
+        return parked.size();
+    }
+}
@@ -0,0 +1,136 @@
+package pl.tremeq.simplesession.manager;
+
+import org.bukkit.ChatColor;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable set of compiled messages, keyed by their path in messages.yml.
+ *
+ * Built once when messages are loaded, so lookups are a single map read
+ * and never touch the YAML tree or translate colors again.
+ *
+ * @author TremeQ
+ */
+public final class MessageCatalog {
+
+    private final Map<String, MessageTemplate> messages;
+    private final Map<String, List<MessageTemplate>> messageLists;
+    private final String prefix;
+
+    private MessageCatalog(Map<String, MessageTemplate> messages, Map<String, List<MessageTemplate>> messageLists, String prefix) {
+        this.messages = messages;
+        this.messageLists = messageLists;
+        this.prefix = prefix;
+    }
+
+    /**
+     * Compiles every string and string list in a messages configuration.
+     * Keys missing from the configuration are taken from the defaults.
+     *
+     * @param config Loaded messages configuration
+     * @param defaults Default messages (may be null)
+     * @return Compiled catalog
+     */
+    public static MessageCatalog compile(ConfigurationSection config, ConfigurationSection defaults) {
+        Set<String> paths = new LinkedHashSet<>();
+        if (defaults != null) {
+            paths.addAll(defaults.getKeys(true));
+        }
+        paths.addAll(config.getKeys(true));
+        return compile(config, paths);
+    }
+
+    /**
+     * Compiles a locale bundle on top of a compiled catalog.
+     * Every message of the base catalog is compiled too, so keys the bundle
+     * doesn't have resolve through the bundle's defaults chain.
+     *
+     * @param bundle Loaded bundle, with messages.yml as its defaults
+     * @param base Catalog the bundle falls back to
+     * @return Compiled catalog
+     */
+    public static MessageCatalog compileBundle(ConfigurationSection bundle, MessageCatalog base) {
+        Set<String> paths = new LinkedHashSet<>();
+        paths.addAll(base.messages.keySet());
+        paths.addAll(base.messageLists.keySet());
+        paths.addAll(bundle.getKeys(true));
+        return compile(bundle, paths);
+    }
+
+    private static MessageCatalog compile(ConfigurationSection config, Set<String> paths) {
+        // No explicit default, so a missing prefix comes from the defaults chain
+        String rawPrefix = config.getString("prefix");
+        if (rawPrefix == null) {
+            rawPrefix = "";
+        }
+        String prefix = color(rawPrefix);
+
+        Map<String, MessageTemplate> messages = new HashMap<>();
+        Map<String, List<MessageTemplate>> messageLists = new HashMap<>();
+
+        for (String path : paths) {
+            if (config.isString(path)) {
+                messages.put(path, MessageTemplate.compile(inline(config.getString(path), rawPrefix, path)));
+            } else if (config.isList(path)) {
+                List<MessageTemplate> templates = new ArrayList<>();
+                for (String line : config.getStringList(path)) {
+                    templates.add(MessageTemplate.compile(inline(line, rawPrefix, path)));
+                }
+                messageLists.put(path, Collections.unmodifiableList(templates));
+            }
+        }
+
+        return new MessageCatalog(Collections.unmodifiableMap(messages), Collections.unmodifiableMap(messageLists), prefix);
+    }
+
+    /**
+     * Inlines the prefix (except into the prefix itself) and translates colors.
+     */
+    private static String inline(String message, String rawPrefix, String path) {
+        if (!path.equals("prefix")) {
+            message = message.replace("{prefix}", rawPrefix);
+        }
+        return color(message);
+    }
+
+    private static String color(String message) {
+        return ChatColor.translateAlternateColorCodes('&', message);
+    }
+
+    /**
+     * Gets a compiled message.
+     *
+     * @param path Path in messages.yml
+     * @return Compiled message, or null if not found
+     */
+    public MessageTemplate get(String path) {
+        return messages.get(path);
+    }
+
+    /**
+     * Gets a compiled message list.
+     *
+     * @param path Path in messages.yml
+     * @return Compiled lines, or null if not found
+     */
+    public List<MessageTemplate> getList(String path) {
+        return messageLists.get(path);
+    }
+
+    /**
+     * Gets the plugin prefix.
+     *
+     * @return Prefix with colors translated
+     */
+    public String getPrefix() {
+        return prefix;
+    }
+}
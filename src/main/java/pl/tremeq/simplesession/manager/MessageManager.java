@@ -1,31 +1,59 @@
 package pl.tremeq.simplesession.manager;
 
-import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerLocaleChangeEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import pl.tremeq.simplesession.SimpleSession;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * MessageManager handles all plugin messages from messages.yml.
  *
- * This class manages loading, caching, and formatting of messages
- * with support for color codes and placeholders.
+ * Messages are compiled into an immutable {@link MessageCatalog} when loaded:
+ * colors are translated, {prefix} is inlined and placeholders are split into
+ * slots, so lookups and rendering never touch the YAML tree.
+ *
+ * With per-player locales enabled, messages_<locale>.yml bundles are loaded
+ * and compiled the first time a player with that locale needs one. The
+ * lookup order is messages_en_us.yml, then messages_en.yml, then messages.yml;
+ * keys missing from a bundle come from messages.yml. Each player's resolved
+ * catalog is cached on join, so localized lookups cost the same as before.
  *
  * @author TremeQ
  */
-public class MessageManager {
+public class MessageManager implements Listener {
+
+    private static final String[] NO_PLACEHOLDERS = new String[0];
 
     private final SimpleSession plugin;
+    private final Set<String> missingPaths = ConcurrentHashMap.newKeySet();
     private FileConfiguration messagesConfig;
     private File messagesFile;
-    private String prefix;
+    private volatile MessageCatalog catalog;
+
+    // Per-locale bundles, compiled lazily; locale -> resolved catalog (fallbacks included)
+    private final Map<String, MessageCatalog> localeCatalogs = new ConcurrentHashMap<>();
+    private final Map<UUID, MessageCatalog> playerCatalogs = new ConcurrentHashMap<>();
+    private volatile boolean perPlayerLocale;
 
     /**
      * Creates a new MessageManager instance.
@@ -35,10 +63,13 @@ public class MessageManager {
     public MessageManager(SimpleSession plugin) {
         this.plugin = plugin;
         loadMessages();
+
+        // Register event listener
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
     }
 
     /**
-     * Loads or reloads the messages configuration.
+     * Loads or reloads the messages configuration and compiles it.
      */
     public void loadMessages() {
         // Create messages file if it doesn't exist
@@ -51,16 +82,145 @@ public class MessageManager {
         messagesConfig = YamlConfiguration.loadConfiguration(messagesFile);
 
         // Load defaults from jar
+        YamlConfiguration defaultConfig = null;
         InputStream defaultStream = plugin.getResource("messages.yml");
         if (defaultStream != null) {
-            YamlConfiguration defaultConfig = YamlConfiguration.loadConfiguration(
-                new InputStreamReader(defaultStream)
+            defaultConfig = YamlConfiguration.loadConfiguration(
+                new InputStreamReader(defaultStream, StandardCharsets.UTF_8)
             );
             messagesConfig.setDefaults(defaultConfig);
         }
 
-        // Cache prefix for performance
-        prefix = getMessage("prefix");
+        // Compile all messages once
+        catalog = MessageCatalog.compile(messagesConfig, defaultConfig);
+        missingPaths.clear();
+
+        // Locale bundles are compiled again on demand
+        perPlayerLocale = plugin.getConfig().getBoolean("per-player-locale", false);
+        localeCatalogs.clear();
+        playerCatalogs.clear();
+        if (perPlayerLocale) {
+            for (Player player : plugin.getServer().getOnlinePlayers()) {
+                playerCatalogs.put(player.getUniqueId(), resolve(player.getLocale()));
+            }
+        }
+    }
+
+    /**
+     * Resolves the catalog for a client locale, compiling its bundle on first use.
+     *
+     * @param locale Client locale (e.g., "de_de")
+     * @return Catalog for the locale, or the default catalog
+     */
+    private MessageCatalog resolve(String locale) {
+        if (locale == null || locale.isEmpty()) {
+            return catalog;
+        }
+        String key = locale.toLowerCase(Locale.ROOT);
+        MessageCatalog cached = localeCatalogs.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Loaded outside the map: the fallback resolves the language bundle,
+        // and a mapping function must not update the map it belongs to
+        MessageCatalog loaded = loadLocale(key);
+        MessageCatalog raced = localeCatalogs.putIfAbsent(key, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    /**
+     * Walks the fallback chain for a locale: exact bundle, language bundle, default.
+     */
+    private MessageCatalog loadLocale(String locale) {
+        MessageCatalog bundle = loadBundle(locale);
+        if (bundle != null) {
+            return bundle;
+        }
+
+        int separator = locale.indexOf('_');
+        if (separator > 0) {
+            String language = locale.substring(0, separator);
+            return resolve(language);
+        }
+        return catalog;
+    }
+
+    /**
+     * Loads and compiles messages_<name>.yml from the data folder or the jar.
+     *
+     * @return Compiled bundle, or null if there is no such bundle
+     */
+    private MessageCatalog loadBundle(String name) {
+        String fileName = "messages_" + name + ".yml";
+        File file = new File(plugin.getDataFolder(), fileName);
+
+        YamlConfiguration bundleConfig;
+        if (file.exists()) {
+            bundleConfig = YamlConfiguration.loadConfiguration(file);
+        } else {
+            InputStream stream = plugin.getResource(fileName);
+            if (stream == null) {
+                return null;
+            }
+            bundleConfig = YamlConfiguration.loadConfiguration(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        }
+
+        // Keys missing from the bundle come from messages.yml
+        bundleConfig.setDefaults(messagesConfig);
+
+        plugin.getLogger().info("Loaded message bundle " + fileName);
+        return MessageCatalog.compileBundle(bundleConfig, catalog);
+    }
+
+    /**
+     * Gets the catalog to use for a command sender.
+     *
+     * @param sender Message receiver
+     * @return The player's cached catalog, or the default catalog
+     */
+    private MessageCatalog catalogFor(CommandSender sender) {
+        if (perPlayerLocale && sender instanceof Player) {
+            MessageCatalog playerCatalog = playerCatalogs.get(((Player) sender).getUniqueId());
+            if (playerCatalog != null) {
+                return playerCatalog;
+            }
+        }
+        return catalog;
+    }
+
+    /**
+     * Resolves the player's catalog when they join.
+     *
+     * @param event PlayerJoinEvent
+     */
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        if (perPlayerLocale) {
+            playerCatalogs.put(event.getPlayer().getUniqueId(), resolve(event.getPlayer().getLocale()));
+        }
+    }
+
+    /**
+     * Updates the player's catalog when the client reports a new locale.
+     *
+     * @param event PlayerLocaleChangeEvent
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerLocaleChange(PlayerLocaleChangeEvent event) {
+        if (perPlayerLocale) {
+            playerCatalogs.put(event.getPlayer().getUniqueId(), resolve(event.getLocale()));
+        }
+    }
+
+    /**
+     * Drops the player's cached catalog.
+     *
+     * @param event PlayerQuitEvent
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        playerCatalogs.remove(event.getPlayer().getUniqueId());
     }
 
     /**
@@ -76,18 +236,17 @@ public class MessageManager {
     }
 
     /**
-     * Gets a message from messages.yml with color codes translated.
+     * Gets a message from messages.yml with color codes translated and {prefix} replaced.
      *
      * @param path Path to the message in messages.yml
      * @return Formatted message with colors, or path if not found
      */
     public String getMessage(String path) {
-        String message = messagesConfig.getString(path);
-        if (message == null) {
-            plugin.getLogger().warning("Message not found: " + path);
-            return path;
+        MessageTemplate template = catalog.get(path);
+        if (template == null) {
+            return missing(path);
         }
-        return ChatColor.translateAlternateColorCodes('&', message);
+        return template.render();
     }
 
     /**
@@ -98,19 +257,39 @@ public class MessageManager {
      * @return Formatted message with placeholders replaced
      */
     public String getMessage(String path, String... placeholders) {
-        String message = getMessage(path);
-
-        // Replace placeholders
-        for (int i = 0; i < placeholders.length - 1; i += 2) {
-            String placeholder = placeholders[i];
-            String value = placeholders[i + 1];
-            message = message.replace(placeholder, value);
+        MessageTemplate template = catalog.get(path);
+        if (template == null) {
+            return missing(path);
         }
+        return template.render(placeholders);
+    }
 
-        // Always replace {prefix}
-        message = message.replace("{prefix}", prefix);
+    /**
+     * Gets a message in the receiver's language with placeholders replaced.
+     *
+     * @param sender Message receiver (players get their locale bundle)
+     * @param path Path to the message
+     * @param placeholders Placeholder replacements (key, value, key, value, ...)
+     * @return Formatted message with placeholders replaced
+     */
+    public String getMessage(CommandSender sender, String path, String... placeholders) {
+        MessageTemplate template = catalogFor(sender).get(path);
+        if (template == null) {
+            return missing(path);
+        }
+        return template.render(placeholders);
+    }
 
-        return message;
+    /**
+     * Gets a list of messages in the receiver's language with placeholders replaced.
+     *
+     * @param sender Message receiver (players get their locale bundle)
+     * @param path Path to the message list
+     * @param placeholders Placeholder replacements (key, value, key, value, ...)
+     * @return List of formatted messages with placeholders replaced
+     */
+    public List<String> getMessageList(CommandSender sender, String path, String... placeholders) {
+        return render(catalogFor(sender).getList(path), placeholders);
     }
 
     /**
@@ -120,10 +299,7 @@ public class MessageManager {
      * @return List of formatted messages with colors
      */
     public List<String> getMessageList(String path) {
-        List<String> messages = messagesConfig.getStringList(path);
-        return messages.stream()
-                .map(msg -> ChatColor.translateAlternateColorCodes('&', msg))
-                .collect(Collectors.toList());
+        return getMessageList(path, NO_PLACEHOLDERS);
     }
 
     /**
@@ -134,22 +310,29 @@ public class MessageManager {
      * @return List of formatted messages with placeholders replaced
      */
     public List<String> getMessageList(String path, String... placeholders) {
-        List<String> messages = getMessageList(path);
+        return render(catalog.getList(path), placeholders);
+    }
+
+    private static List<String> render(List<MessageTemplate> templates, String[] placeholders) {
+        if (templates == null) {
+            return new ArrayList<>();
+        }
+
+        List<String> messages = new ArrayList<>(templates.size());
+        for (MessageTemplate template : templates) {
+            messages.add(template.render(placeholders));
+        }
+        return messages;
+    }
 
-        return messages.stream()
-                .map(msg -> {
-                    String message = msg;
-                    // Replace placeholders
-                    for (int i = 0; i < placeholders.length - 1; i += 2) {
-                        String placeholder = placeholders[i];
-                        String value = placeholders[i + 1];
-                        message = message.replace(placeholder, value);
-                    }
-                    // Always replace {prefix}
-                    message = message.replace("{prefix}", prefix);
-                    return message;
-                })
-                .collect(Collectors.toList());
+    /**
+     * Reports a missing message once and falls back to its path.
+     */
+    private String missing(String path) {
+        if (missingPaths.add(path)) {
+            plugin.getLogger().warning("Message not found: " + path);
+        }
+        return path;
     }
 
     /**
@@ -158,7 +341,7 @@ public class MessageManager {
      * @return Formatted prefix with colors
      */
     public String getPrefix() {
-        return prefix;
+        return catalog.getPrefix();
     }
 
     /**
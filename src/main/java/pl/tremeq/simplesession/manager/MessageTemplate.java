@@ -0,0 +1,111 @@
+package pl.tremeq.simplesession.manager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A message compiled once from messages.yml.
+ *
+ * Color codes are already translated and {prefix} is already inlined.
+ * The remaining {placeholder} tokens are split out into indexed slots, so
+ * rendering is a single pass over literal parts and slot values.
+ *
+ * @author TremeQ
+ */
+public final class MessageTemplate {
+
+    private final String source;
+    private final String[] literals; // literals.length == slots.length + 1
+    private final String[] slots;    // placeholder tokens including braces, e.g. "{player}"
+
+    private MessageTemplate(String source, String[] literals, String[] slots) {
+        this.source = source;
+        this.literals = literals;
+        this.slots = slots;
+    }
+
+    /**
+     * Compiles a colored message into literal parts and placeholder slots.
+     *
+     * @param message Message with colors translated and {prefix} inlined
+     * @return Compiled template
+     */
+    public static MessageTemplate compile(String message) {
+        List<String> literals = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+
+        int literalStart = 0;
+        int index = message.indexOf('{');
+        while (index >= 0) {
+            int end = tokenEnd(message, index);
+            if (end < 0) {
+                index = message.indexOf('{', index + 1);
+                continue;
+            }
+            literals.add(message.substring(literalStart, index));
+            slots.add(message.substring(index, end + 1));
+            literalStart = end + 1;
+            index = message.indexOf('{', literalStart);
+        }
+        literals.add(message.substring(literalStart));
+
+        return new MessageTemplate(message, literals.toArray(new String[0]), slots.toArray(new String[0]));
+    }
+
+    /**
+     * Finds the closing brace of a placeholder token.
+     *
+     * @return Index of '}', or -1 if this is not a placeholder
+     */
+    private static int tokenEnd(String message, int start) {
+        for (int i = start + 1; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (c == '}') {
+                return i > start + 1 ? i : -1;
+            }
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '-') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Renders the message without placeholder values.
+     * Unfilled placeholders stay in the text as they are.
+     *
+     * @return Rendered message
+     */
+    public String render() {
+        return source;
+    }
+
+    /**
+     * Renders the message with placeholder values.
+     * Unknown placeholders stay in the text as they are.
+     *
+     * @param placeholders Placeholder replacements (key, value, key, value, ...)
+     * @return Rendered message
+     */
+    public String render(String... placeholders) {
+        if (slots.length == 0) {
+            return source;
+        }
+
+        StringBuilder builder = new StringBuilder(source.length() + 16 * slots.length);
+        for (int i = 0; i < slots.length; i++) {
+            builder.append(literals[i]).append(valueOf(slots[i], placeholders));
+        }
+        builder.append(literals[slots.length]);
+        return builder.toString();
+    }
+
+    private static String valueOf(String slot, String[] placeholders) {
+        for (int i = 0; i < placeholders.length - 1; i += 2) {
+            if (slot.equals(placeholders[i])) {
+                return placeholders[i + 1];
+            }
+        }
+        return slot;
+    }
+}
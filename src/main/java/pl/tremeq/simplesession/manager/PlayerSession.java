@@ -0,0 +1,310 @@
+package pl.tremeq.simplesession.manager;
+
+import java.util.UUID;
+
+/**
+ * State of a single player's session.
+ *
+ * Kept by {@link SessionManager} while the player is online and while a
+ * disconnected session waits in the reconnect grace window. In network mode
+ * a session handed off by another server waits there as well.
+ *
+ * @author TremeQ
+ */
+public class PlayerSession {
+
+    private final UUID playerId;
+    private final String sessionId;
+    private volatile String playerName;
+    private volatile long startTime;
+
+    // Activity tracking - lastActivity is written by event handlers,
+    // the idle fields only by the activity sweep
+    private volatile long lastActivity;
+    private volatile boolean idle;
+    private volatile long idleSince;
+    private volatile long idleTotal;
+
+    // Current world and region and when the player entered them, written on
+    // world change and by the region sweep. Region is null outside every region.
+    private volatile String world;
+    private volatile long worldSince;
+    private volatile String region;
+    private volatile long regionSince;
+
+    // Set while the session is a handoff from another server that hasn't been resumed here
+    private volatile boolean remote;
+    private final int carriedMilestoneIndex;
+
+    /**
+     * Creates a new session.
+     *
+     * @param playerId UUID of the player
+     * @param playerName Name of the player
+     * @param startTime Session start time in milliseconds
+     */
+    public PlayerSession(UUID playerId, String playerName, long startTime) {
+        this.playerId = playerId;
+        this.sessionId = UUID.randomUUID().toString();
+        this.playerName = playerName;
+        this.startTime = startTime;
+        this.lastActivity = startTime;
+        this.carriedMilestoneIndex = 0;
+    }
+
+    /**
+     * Creates a session handed off by another server.
+     * It counts as remote until the player joins and resumes it here.
+     *
+     * @param playerId UUID of the player
+     * @param sessionId ID of the session on the other server
+     * @param playerName Name of the player
+     * @param startTime Session start time in milliseconds
+     * @param idleMillis Idle time of the session so far
+     * @param milestoneIndex Index of the next session milestone reached on the other server
+     */
+    public PlayerSession(UUID playerId, String sessionId, String playerName, long startTime, long idleMillis, int milestoneIndex) {
+        this.playerId = playerId;
+        this.sessionId = sessionId;
+        this.playerName = playerName;
+        this.startTime = startTime;
+        this.lastActivity = startTime;
+        this.idleTotal = idleMillis;
+        this.remote = true;
+        this.carriedMilestoneIndex = milestoneIndex;
+    }
+
+    /**
+     * Gets the player's UUID.
+     *
+     * @return Player UUID
+     */
+    public UUID getPlayerId() {
+        return playerId;
+    }
+
+    /**
+     * Gets the unique ID of this session.
+     * Stays the same when the session is resumed.
+     *
+     * @return Session ID
+     */
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * Gets the player's name as of the last join.
+     *
+     * @return Player name
+     */
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    void setPlayerName(String playerName) {
+        this.playerName = playerName;
+    }
+
+    /**
+     * Checks if this is a handoff from another server that wasn't resumed here.
+     * Such a session is dropped without ending it if its grace window expires.
+     *
+     * @return true if remote
+     */
+    public boolean isRemote() {
+        return remote;
+    }
+
+    void setRemote(boolean remote) {
+        this.remote = remote;
+    }
+
+    /**
+     * Gets the next session milestone index carried over from another server.
+     *
+     * @return Milestone index, 0 for sessions started on this server
+     */
+    public int getCarriedMilestoneIndex() {
+        return carriedMilestoneIndex;
+    }
+
+    /**
+     * Gets the session start time.
+     * Time spent disconnected inside the grace window is excluded by moving
+     * the start time forward when the session is resumed.
+     *
+     * @return Start time in milliseconds
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Gets the session duration at a given time.
+     *
+     * @param now Current time in milliseconds
+     * @return Duration in milliseconds
+     */
+    public long getDuration(long now) {
+        return Math.max(0L, now - startTime);
+    }
+
+    /**
+     * Resumes the session after a short disconnect, without counting the
+     * time spent offline as session time or idle time.
+     *
+     * @param joinTime When the player came back
+     * @param offlineTime How long the player was offline
+     */
+    void resume(long joinTime, long offlineTime) {
+        startTime += offlineTime;
+        worldSince += offlineTime;
+        regionSince += offlineTime;
+        if (idle) {
+            idleSince += offlineTime;
+        }
+        lastActivity = joinTime;
+    }
+
+    /**
+     * Gets the world the player is in.
+     *
+     * @return World name, or null if not known yet
+     */
+    public String getWorld() {
+        return world;
+    }
+
+    /**
+     * Gets how long the player has been in the current world.
+     *
+     * @param now Current time in milliseconds
+     * @return Duration in milliseconds, 0 if the world isn't known
+     */
+    public long getWorldDuration(long now) {
+        return world != null ? Math.max(0L, now - worldSince) : 0L;
+    }
+
+    /**
+     * Records that the player is in a world. Staying in the same world
+     * keeps the time already spent there.
+     *
+     * @param world World name
+     * @param time Time in milliseconds
+     */
+    void enterWorld(String world, long time) {
+        if (!world.equals(this.world)) {
+            worldSince = time;
+            this.world = world;
+        }
+    }
+
+    /**
+     * Gets the region the player is in.
+     *
+     * @return Region name, or null outside every region
+     */
+    public String getRegion() {
+        return region;
+    }
+
+    /**
+     * Gets how long the player has been in the current region.
+     *
+     * @param now Current time in milliseconds
+     * @return Duration in milliseconds, 0 outside every region
+     */
+    public long getRegionDuration(long now) {
+        return region != null ? Math.max(0L, now - regionSince) : 0L;
+    }
+
+    /**
+     * Records the region the player is in.
+     *
+     * @param region Region name, or null outside every region
+     * @param time Time in milliseconds
+     * @return true if the player changed region
+     */
+    boolean enterRegion(String region, long time) {
+        if (region == null ? this.region == null : region.equals(this.region)) {
+            return false;
+        }
+        regionSince = time;
+        this.region = region;
+        return true;
+    }
+
+    /**
+     * Gets the time of the player's last recorded activity.
+     *
+     * @return Time in milliseconds
+     */
+    public long getLastActivity() {
+        return lastActivity;
+    }
+
+    /**
+     * Records player activity. A single volatile write, safe from any thread.
+     *
+     * @param time Time in milliseconds
+     */
+    void markActive(long time) {
+        lastActivity = time;
+    }
+
+    /**
+     * Checks if the session is paused because the player is idle.
+     *
+     * @return true if idle
+     */
+    public boolean isIdle() {
+        return idle && lastActivity <= idleSince;
+    }
+
+    /**
+     * Pauses active time from the player's last activity.
+     */
+    void pause() {
+        idleSince = lastActivity;
+        idle = true;
+    }
+
+    /**
+     * Resumes active time if the player was active since the pause.
+     */
+    void resumeIfActive() {
+        long activity = lastActivity;
+        if (idle && activity > idleSince) {
+            idleTotal += activity - idleSince;
+            idle = false;
+        }
+    }
+
+    /**
+     * Gets the idle part of the session at a given time.
+     *
+     * @param now Current time in milliseconds
+     * @return Idle duration in milliseconds
+     */
+    public long getIdleDuration(long now) {
+        return getDuration(now) - getActiveDuration(now);
+    }
+
+    /**
+     * Gets the active (non-idle) part of the session at a given time.
+     *
+     * @param now Current time in milliseconds
+     * @return Active duration in milliseconds
+     */
+    public long getActiveDuration(long now) {
+        long idleTime = idleTotal;
+        if (idle) {
+            // Still idle, or active again but not yet seen by the sweep
+            long activity = lastActivity;
+            long idleEnd = activity > idleSince ? activity : now;
+            idleTime += Math.max(0L, idleEnd - idleSince);
+        }
+        return Math.max(0L, getDuration(now) - idleTime);
+    }
+}
@@ -0,0 +1,196 @@
+package pl.tremeq.simplesession.manager;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+import pl.tremeq.simplesession.SimpleSession;
+import pl.tremeq.simplesession.debug.DebugRecorder;
+import pl.tremeq.simplesession.debug.TickMonitor;
+import pl.tremeq.simplesession.scheduler.ScheduledTask;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Tracks which configured region each player is in.
+ *
+ * Regions are plain boxes per world, no region plugin needed. Nothing
+ * listens to movement: a sweep every few ticks reads each player's block
+ * position on the thread that owns the player and writes the region into
+ * the session, so the cost depends on the player count, not on how much
+ * players move.
+ *
+ * @author TremeQ
+ */
+class RegionTracker {
+
+    private final SimpleSession plugin;
+    private final Map<UUID, PlayerSession> sessions;
+
+    // World name -> boxes in config order, replaced as a whole on reload
+    private volatile Map<String, Box[]> boxes = new HashMap<>();
+    private ScheduledTask sweepTask;
+
+    RegionTracker(SimpleSession plugin, Map<UUID, PlayerSession> sessions) {
+        this.plugin = plugin;
+        this.sessions = sessions;
+    }
+
+    /**
+     * Loads the regions and starts or stops the sweep.
+     */
+    void reload() {
+        shutdown();
+
+        Map<String, Box[]> loaded = new HashMap<>();
+        boolean enabled = plugin.getConfig().getBoolean("regions.enabled", false);
+        ConfigurationSection section = plugin.getConfig().getConfigurationSection("regions.list");
+        if (enabled && section != null) {
+            Map<String, List<Box>> byWorld = new HashMap<>();
+            for (String name : section.getKeys(false)) {
+                Box box = loadBox(name, section.getConfigurationSection(name));
+                if (box != null) {
+                    byWorld.computeIfAbsent(box.world, world -> new ArrayList<>()).add(box);
+                }
+            }
+            for (Map.Entry<String, List<Box>> entry : byWorld.entrySet()) {
+                loaded.put(entry.getKey(), entry.getValue().toArray(new Box[0]));
+            }
+        }
+        boxes = loaded;
+
+        // Players left in a removed region don't stay in it
+        long now = System.currentTimeMillis();
+        if (loaded.isEmpty()) {
+            for (PlayerSession session : sessions.values()) {
+                session.enterRegion(null, now);
+            }
+            return;
+        }
+
+        int interval = plugin.getConfig().getInt("regions.check-interval", 40);
+        if (interval <= 0) {
+            plugin.getLogger().warning("Invalid regions.check-interval (" + interval + "). Using default 40.");
+            interval = 40;
+        }
+        sweepTask = plugin.getTaskScheduler().runTimer(this::sweep, interval, interval);
+    }
+
+    private Box loadBox(String name, ConfigurationSection section) {
+        if (section == null) {
+            return null;
+        }
+
+        String world = section.getString("world");
+        int[] min = parsePosition(section.getString("min"));
+        int[] max = parsePosition(section.getString("max"));
+        if (world == null || world.isEmpty() || min == null || max == null) {
+            plugin.getLogger().warning("Region '" + name + "' needs a world and min/max as \"x, y, z\". Skipping.");
+            return null;
+        }
+        return new Box(name, world, min, max);
+    }
+
+    private static int[] parsePosition(String text) {
+        if (text == null) {
+            return null;
+        }
+        String[] parts = text.split(",");
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            return new int[]{Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()), Integer.parseInt(parts[2].trim())};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Stops the sweep.
+     */
+    void shutdown() {
+        if (sweepTask != null) {
+            sweepTask.cancel();
+            sweepTask = null;
+        }
+    }
+
+    /**
+     * Samples every online player's region on the thread that owns the player.
+     */
+    private void sweep() {
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            plugin.getTaskScheduler().runForEntity(player, () -> {
+                long timerStart = plugin.getTickMonitor().start();
+                try {
+                    sample(player);
+                } finally {
+                    plugin.getTickMonitor().stop(TickMonitor.Section.REGION_SWEEP, timerStart);
+                }
+            });
+        }
+    }
+
+    /**
+     * Updates a player's region from the player's position.
+     * Call on the thread that owns the player.
+     *
+     * @param player The player
+     */
+    void sample(Player player) {
+        PlayerSession session = sessions.get(player.getUniqueId());
+        if (session == null) {
+            return;
+        }
+
+        String region = null;
+        Location location = player.getLocation();
+        World world = location.getWorld();
+        Box[] candidates = world != null ? boxes.get(world.getName()) : null;
+        if (candidates != null) {
+            int x = location.getBlockX();
+            int y = location.getBlockY();
+            int z = location.getBlockZ();
+            for (Box box : candidates) {
+                if (box.contains(x, y, z)) {
+                    region = box.name;
+                    break;
+                }
+            }
+        }
+
+        if (session.enterRegion(region, System.currentTimeMillis())) {
+            plugin.getDebugRecorder().record(DebugRecorder.Category.SESSION,
+                    "Region changed: %1$s", player.getName() + " -> " + (region != null ? region : "-"));
+        }
+    }
+
+    /**
+     * A named box, corners inclusive.
+     */
+    private static final class Box {
+        final String name;
+        final String world;
+        final int minX, minY, minZ, maxX, maxY, maxZ;
+
+        Box(String name, String world, int[] a, int[] b) {
+            this.name = name;
+            this.world = world;
+            this.minX = Math.min(a[0], b[0]);
+            this.minY = Math.min(a[1], b[1]);
+            this.minZ = Math.min(a[2], b[2]);
+            this.maxX = Math.max(a[0], b[0]);
+            this.maxY = Math.max(a[1], b[1]);
+            this.maxZ = Math.max(a[2], b[2]);
+        }
+
+        boolean contains(int x, int y, int z) {
+            return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+        }
+    }
+}
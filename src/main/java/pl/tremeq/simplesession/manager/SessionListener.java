@@ -0,0 +1,55 @@
+package pl.tremeq.simplesession.manager;
+
+import org.bukkit.entity.Player;
+
+/**
+ * Receives session lifecycle callbacks from {@link SessionManager}.
+ *
+ * Callbacks are plain method calls rather than Bukkit events so they also
+ * run while the plugin is being disabled, when all remaining sessions end.
+ *
+ * @author TremeQ
+ */
+public interface SessionListener {
+
+    /**
+     * Called when a player's session starts or is resumed.
+     *
+     * @param session The session
+     * @param player The player
+     * @param resumed true if the player rejoined within the grace window
+     */
+    default void onSessionStart(PlayerSession session, Player player, boolean resumed) {
+    }
+
+    /**
+     * Called when a session ends for good: the grace window expired,
+     * the player quit with no grace window, or the plugin is disabled.
+     *
+     * @param session The session
+     * @param endTime When the player left, in milliseconds
+     */
+    default void onSessionEnd(PlayerSession session, long endTime) {
+    }
+
+    /**
+     * Called when a player disconnects and the session is parked in the grace window.
+     *
+     * @param session The session
+     * @param quitTime When the player left, in milliseconds
+     */
+    default void onSessionPark(PlayerSession session, long quitTime) {
+    }
+
+    /**
+     * Called when a session continues as a session on another server, or is
+     * replaced by a session handed off from another server. Finish it like an
+     * ended session, but don't count it as finished. Ends it by default.
+     *
+     * @param session The session
+     * @param endTime When the session left this server, in milliseconds
+     */
+    default void onSessionHandoff(PlayerSession session, long endTime) {
+        onSessionEnd(session, endTime);
+    }
+}
@@ -4,33 +4,71 @@ import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import pl.tremeq.simplesession.SimpleSession;
+import pl.tremeq.simplesession.debug.DebugRecorder;
+import pl.tremeq.simplesession.debug.TickMonitor;
+import pl.tremeq.simplesession.milestone.MilestoneManager;
+import pl.tremeq.simplesession.scheduler.ScheduledTask;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * SessionManager handles player session tracking.
  *
  * This class manages the start time of each player's session and calculates
- * the elapsed time since they joined the server.
+ * the elapsed time since they joined the server. When a player disconnects,
+ * their session is kept for a configurable grace window and resumed if they
+ * rejoin in time, so short network drops don't reset it.
+ *
+ * Each session also remembers the world and configured region the player
+ * is in and since when. Worlds are updated on world change, regions by a
+ * sampled sweep - movement events are never used for this.
+ *
+ * Sessions can also be saved on shutdown and restored with the same ID on
+ * the next start, so a restart doesn't reset them either.
  *
  * @author TremeQ
  */
 public class SessionManager implements Listener {
 
     private final SimpleSession plugin;
-    private final Map<UUID, Long> sessionStartTimes;
-    private boolean debugMode;
+    private final Map<UUID, PlayerSession> sessions;
+    private final GraceWindow graceWindow = new GraceWindow();
+    private final List<SessionListener> listeners = new CopyOnWriteArrayList<>();
+    private final ActivityTracker activityTracker;
+    private final RegionTracker regionTracker;
+    private final SessionSnapshot snapshot;
+
+    // Online sessions ordered by start time - oldest (longest) first
+    private final ConcurrentSkipListSet<PlayerSession> sessionOrder = new ConcurrentSkipListSet<>(
+            Comparator.comparingLong(PlayerSession::getStartTime).thenComparing(PlayerSession::getPlayerId));
+
+    // Running aggregates of online sessions, guarded by aggregateLock.
+    // Total session time is now * sessionCount - startTimeSum.
+    private final Object aggregateLock = new Object();
+    private int sessionCount;
+    private long startTimeSum;
+    private ScheduledTask graceTask;
+    private long graceMillis;
+    private long restoreMillis;
 
     // Leaderboard cache to prevent excessive sorting
-    private List<Player> cachedSortedPlayers = null;
-    private long lastCacheUpdate = 0;
+    // Volatile: placeholders may be requested from region threads on Folia
+    private volatile List<Player> cachedSortedPlayers = null;
+    private volatile Map<UUID, Integer> cachedRanks = Collections.emptyMap();
+    private volatile long lastCacheUpdate = 0;
     private static final long CACHE_DURATION_MS = 1000; // 1 second cache
 
+    // Incremented whenever the set of ranked players changes (join/quit)
+    private final AtomicLong leaderboardVersion = new AtomicLong();
+
     /**
      * Creates a new SessionManager instance.
      *
@@ -38,22 +76,61 @@ public class SessionManager implements Listener {
      */
     public SessionManager(SimpleSession plugin) {
         this.plugin = plugin;
-        this.sessionStartTimes = new ConcurrentHashMap<>();
-        this.debugMode = plugin.getConfig().getBoolean("debug", false);
+        this.sessions = new ConcurrentHashMap<>();
+        this.activityTracker = new ActivityTracker(plugin, sessions);
+        this.regionTracker = new RegionTracker(plugin, sessions);
+        this.snapshot = new SessionSnapshot(plugin);
 
         // Register event listener
         plugin.getServer().getPluginManager().registerEvents(this, plugin);
 
         // Initialize sessions for already online players (in case of reload)
         initializeOnlinePlayers();
+
+        reload();
+
+        // Runs once the server ticks, after every listener is registered
+        plugin.getTaskScheduler().run(this::restoreSessions);
     }
 
     /**
-     * Updates the debug mode setting from config.
+     * Reloads session settings from config.
      * Should be called when config is reloaded.
      */
-    public void reloadDebugMode() {
-        this.debugMode = plugin.getConfig().getBoolean("debug", false);
+    public void reload() {
+        if (graceTask != null) {
+            graceTask.cancel();
+            graceTask = null;
+        }
+
+        int graceSeconds = plugin.getConfig().getInt("session.reconnect-grace", 30);
+        if (graceSeconds < 0) {
+            plugin.getLogger().warning("Invalid session.reconnect-grace (" + graceSeconds + "s). Using 0 (disabled).");
+            graceSeconds = 0;
+        }
+        graceMillis = graceSeconds * 1000L;
+
+        int restoreSeconds = plugin.getConfig().getInt("session.restore-window", 300);
+        if (restoreSeconds < 0) {
+            plugin.getLogger().warning("Invalid session.restore-window (" + restoreSeconds + "s). Using 0 (disabled).");
+            restoreSeconds = 0;
+        }
+        restoreMillis = restoreSeconds * 1000L;
+
+        // One sweep per second evicts every expired session at once
+        graceTask = plugin.getTaskScheduler().runTimer(this::evictExpiredSessions, 20L, 20L);
+
+        activityTracker.reload();
+        regionTracker.reload();
+    }
+
+    /**
+     * Registers a listener for session start and end.
+     *
+     * @param listener Listener to add
+     */
+    public void addListener(SessionListener listener) {
+        listeners.add(listener);
     }
 
     /**
@@ -65,56 +142,347 @@ public class SessionManager implements Listener {
         long currentTime = System.currentTimeMillis();
         for (Player player : plugin.getServer().getOnlinePlayers()) {
             // Only add session if player doesn't have one (prevents overwriting on reload)
-            sessionStartTimes.putIfAbsent(player.getUniqueId(), currentTime);
+            PlayerSession session = new PlayerSession(player.getUniqueId(), player.getName(), currentTime);
+            if (sessions.putIfAbsent(player.getUniqueId(), session) == null) {
+                session.enterWorld(player.getWorld().getName(), currentTime);
+                track(session);
+            }
         }
 
-        if (debugMode) {
-            plugin.getLogger().info("[DEBUG] Initialized sessions for " +
-                plugin.getServer().getOnlinePlayers().size() + " online players");
-        }
+        plugin.getDebugRecorder().record(DebugRecorder.Category.SESSION,
+                "Initialized sessions for %2$d online players", null, plugin.getServer().getOnlinePlayers().size());
     }
 
     /**
      * Handles player join event.
-     * Records the time when a player joins the server.
+     * Resumes the player's parked session if they are back within the grace window,
+     * otherwise records the time when the player joins the server.
      *
      * @param event PlayerJoinEvent
      */
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerJoin(PlayerJoinEvent event) {
-        UUID playerId = event.getPlayer().getUniqueId();
-        long joinTime = System.currentTimeMillis();
-        sessionStartTimes.put(playerId, joinTime);
+        long timerStart = plugin.getTickMonitor().start();
+        try {
+            Player player = event.getPlayer();
+            UUID playerId = player.getUniqueId();
+            long joinTime = System.currentTimeMillis();
+
+            PlayerSession session = null;
+            GraceWindow.Parked parked = graceWindow.take(playerId);
+            if (parked != null) {
+                if (parked.deadline >= joinTime) {
+                    // Back in time - resume without counting the time spent offline
+                    session = parked.session;
+                    session.resume(joinTime, joinTime - parked.quitTime);
+                    session.setPlayerName(player.getName());
+                    session.setRemote(false);
+                } else {
+                    // Expired but not swept yet - finish it before starting a new one
+                    endSession(parked.session, parked.quitTime);
+                }
+            }
 
-        // Invalidate leaderboard cache since player count changed
-        invalidateCache();
+            boolean resumed = session != null;
+            if (!resumed) {
+                session = new PlayerSession(playerId, player.getName(), joinTime);
+            }
+            PlayerSession previous = sessions.put(playerId, session);
+            if (previous != null) {
+                untrack(previous);
+            }
+            track(session);
+
+            // A resumed session keeps its world time if the player is back in the same world
+            session.enterWorld(player.getWorld().getName(), joinTime);
+            regionTracker.sample(player);
 
-        if (debugMode) {
-            plugin.getLogger().info("[DEBUG] Session started for player: " + event.getPlayer().getName());
+            // Invalidate leaderboard cache since player count changed
+            invalidateCache();
+
+            for (SessionListener listener : listeners) {
+                listener.onSessionStart(session, player, resumed);
+            }
+
+            plugin.getDebugRecorder().record(DebugRecorder.Category.SESSION,
+                    resumed ? "Session resumed for player: %1$s" : "Session started for player: %1$s", player.getName());
+        } finally {
+            plugin.getTickMonitor().stop(TickMonitor.Section.PLAYER_JOIN, timerStart);
         }
     }
 
     /**
      * Handles player quit event.
-     * Removes the player's session data when they leave.
+     * Parks the player's session in the grace window, or ends it if the window is disabled.
      *
      * @param event PlayerQuitEvent
      */
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerQuit(PlayerQuitEvent event) {
-        UUID playerId = event.getPlayer().getUniqueId();
-        long sessionDuration = getSessionDuration(playerId);
-        sessionStartTimes.remove(playerId);
+        long timerStart = plugin.getTickMonitor().start();
+        try {
+            UUID playerId = event.getPlayer().getUniqueId();
+            long quitTime = System.currentTimeMillis();
+            PlayerSession session = sessions.remove(playerId);
+
+            // Invalidate leaderboard cache since player count changed
+            invalidateCache();
+
+            if (session == null) {
+                return;
+            }
+            untrack(session);
+
+            if (graceMillis > 0) {
+                graceWindow.park(session, quitTime, quitTime + graceMillis);
+                for (SessionListener listener : listeners) {
+                    listener.onSessionPark(session, quitTime);
+                }
+                plugin.getDebugRecorder().record(DebugRecorder.Category.SESSION,
+                        "Session parked for player: %1$s | Duration: %2$d seconds", event.getPlayer().getName(),
+                        session.getDuration(quitTime) / 1000);
+            } else {
+                endSession(session, quitTime);
+            }
+        } finally {
+            plugin.getTickMonitor().stop(TickMonitor.Section.PLAYER_QUIT, timerStart);
+        }
+    }
+
+    /**
+     * Starts a new world segment when a player changes world.
+     *
+     * @param event PlayerChangedWorldEvent
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        Player player = event.getPlayer();
+        PlayerSession session = sessions.get(player.getUniqueId());
+        if (session == null) {
+            return;
+        }
+
+        session.enterWorld(player.getWorld().getName(), System.currentTimeMillis());
+        // Regions belong to a world - don't wait for the sweep to leave the old one
+        regionTracker.sample(player);
+    }
+
+    /**
+     * Adds an online session to the start time index and running aggregates.
+     * Must be called before the session's start time can change again.
+     *
+     * @param session The session
+     */
+    private void track(PlayerSession session) {
+        synchronized (aggregateLock) {
+            sessionOrder.add(session);
+            sessionCount++;
+            startTimeSum += session.getStartTime();
+        }
+    }
+
+    /**
+     * Removes an online session from the start time index and running aggregates.
+     *
+     * @param session The session
+     */
+    private void untrack(PlayerSession session) {
+        synchronized (aggregateLock) {
+            if (sessionOrder.remove(session)) {
+                sessionCount--;
+                startTimeSum -= session.getStartTime();
+            }
+        }
+    }
+
+    /**
+     * Ends every parked session whose grace window has passed.
+     */
+    private void evictExpiredSessions() {
+        for (GraceWindow.Parked parked : graceWindow.evictExpired(System.currentTimeMillis())) {
+            endSession(parked.session, parked.quitTime);
+        }
+    }
+
+    /**
+     * Ends a session for good and notifies listeners.
+     * A handoff from another server that was never resumed here is just dropped.
+     *
+     * @param session The session
+     * @param endTime When the player left
+     */
+    private void endSession(PlayerSession session, long endTime) {
+        if (session.isRemote()) {
+            return;
+        }
+
+        for (SessionListener listener : listeners) {
+            listener.onSessionEnd(session, endTime);
+        }
 
-        // Invalidate leaderboard cache since player count changed
+        plugin.getDebugRecorder().record(DebugRecorder.Category.SESSION,
+                "Session ended for player: %1$s | Duration: %2$d seconds", session.getPlayerName(),
+                session.getDuration(endTime) / 1000);
+    }
+
+    /**
+     * Accepts a session handed off by another server.
+     * If the player isn't here yet it is parked, so a join within the grace
+     * window resumes it. If the player already joined (the join can arrive
+     * before the other server sees the quit), the fresh session is replaced.
+     *
+     * @param session The handed-off session
+     * @param quitTime When the player left the other server
+     */
+    public void receiveHandoff(PlayerSession session, long quitTime) {
+        Player player = plugin.getServer().getPlayer(session.getPlayerId());
+        if (player != null) {
+            plugin.getTaskScheduler().runForEntity(player, () -> adoptHandoff(player, session, quitTime, graceMillis));
+            return;
+        }
+        if (graceMillis <= 0) {
+            return;
+        }
+
+        GraceWindow.Parked replaced = graceWindow.park(session, quitTime, quitTime + graceMillis);
+        if (replaced != null && !replaced.session.isRemote()) {
+            // Left here and went on elsewhere without us seeing it
+            handOff(replaced.session, replaced.quitTime);
+        }
+    }
+
+    /**
+     * Replaces a player's fresh session with the session handed off by another server.
+     *
+     * @param player The player
+     * @param handoff The handed-off session
+     * @param quitTime When the player left the other server
+     * @param window How long after quitTime the handoff can still be taken over
+     */
+    private void adoptHandoff(Player player, PlayerSession handoff, long quitTime, long window) {
+        UUID playerId = player.getUniqueId();
+        PlayerSession local = sessions.get(playerId);
+        if (local == null || local.getSessionId().equals(handoff.getSessionId())
+                || local.getStartTime() - quitTime > window) {
+            return; // Already the same session, or a genuinely new one
+        }
+
+        long now = System.currentTimeMillis();
+        handoff.resume(local.getStartTime(), Math.max(0L, local.getStartTime() - quitTime));
+        handoff.setPlayerName(player.getName());
+        handoff.setRemote(false);
+        handoff.enterWorld(player.getWorld().getName(), local.getStartTime());
+
+        handOff(local, now);
+        untrack(local);
+        sessions.put(playerId, handoff);
+        track(handoff);
         invalidateCache();
 
-        if (debugMode) {
-            plugin.getLogger().info("[DEBUG] Session ended for player: " + event.getPlayer().getName() +
-                    " | Duration: " + (sessionDuration / 1000) + " seconds");
+        for (SessionListener listener : listeners) {
+            listener.onSessionStart(handoff, player, true);
+        }
+
+        plugin.getDebugRecorder().record(DebugRecorder.Category.SESSION,
+                "Session taken over from another server for player: %1$s", player.getName());
+    }
+
+    /**
+     * Drops a player's parked session because it continues on another server.
+     *
+     * @param playerId UUID of the player
+     * @param sessionId ID of the session started on the other server
+     */
+    public void receiveTakeover(UUID playerId, String sessionId) {
+        // Our own session resumed there, or an older handoff that is now elsewhere
+        GraceWindow.Parked parked = graceWindow.takeIf(playerId,
+                session -> session.isRemote() || session.getSessionId().equals(sessionId));
+        if (parked != null && !parked.session.isRemote()) {
+            handOff(parked.session, parked.quitTime);
         }
     }
 
+    /**
+     * Restores the sessions saved on the last shutdown.
+     * The file is read on the IO thread after the milestone grant log, so
+     * grants of a restored session are known before it can be checked.
+     */
+    private void restoreSessions() {
+        plugin.getIoExecutor().execute(() -> {
+            List<GraceWindow.Parked> restored = snapshot.load();
+            if (!restored.isEmpty()) {
+                plugin.getTaskScheduler().run(() -> applyRestored(restored));
+            }
+        });
+    }
+
+    private void applyRestored(List<GraceWindow.Parked> restored) {
+        long now = System.currentTimeMillis();
+        int kept = 0;
+        for (GraceWindow.Parked entry : restored) {
+            PlayerSession session = entry.session;
+            // Saved by this server - not a handoff waiting for another one
+            session.setRemote(false);
+
+            Player player = plugin.getServer().getPlayer(session.getPlayerId());
+            if (player != null) {
+                // Still online (plugin reload) or already back - replace the fresh session
+                long window = entry.deadline - entry.quitTime;
+                plugin.getTaskScheduler().runForEntity(player, () -> adoptHandoff(player, session, entry.quitTime, window));
+                kept++;
+            } else if (entry.deadline >= now) {
+                GraceWindow.Parked replaced = graceWindow.park(session, entry.quitTime, entry.deadline);
+                if (replaced != null && !replaced.session.isRemote()) {
+                    handOff(replaced.session, replaced.quitTime);
+                }
+                kept++;
+            } else {
+                endSession(session, entry.quitTime);
+            }
+        }
+
+        plugin.getDebugRecorder().record(DebugRecorder.Category.SESSION,
+                "Restored %2$d sessions from %1$s", SessionSnapshot.FILE_NAME, kept);
+    }
+
+    private void handOff(PlayerSession session, long endTime) {
+        for (SessionListener listener : listeners) {
+            listener.onSessionHandoff(session, endTime);
+        }
+
+        plugin.getDebugRecorder().record(DebugRecorder.Category.SESSION,
+                "Session handed off for player: %1$s | Duration: %2$d seconds", session.getPlayerName(),
+                session.getDuration(endTime) / 1000);
+    }
+
+    /**
+     * Gets the sessions of all online players.
+     *
+     * @return Unmodifiable view of the online sessions
+     */
+    public Collection<PlayerSession> getSessions() {
+        return Collections.unmodifiableCollection(sessions.values());
+    }
+
+    /**
+     * Gets the active session of an online player.
+     *
+     * @param playerId UUID of the player
+     * @return The session, or null if the player has no active session
+     */
+    public PlayerSession getSession(UUID playerId) {
+        return sessions.get(playerId);
+    }
+
+    /**
+     * Gets the number of sessions waiting in the reconnect grace window.
+     *
+     * @return Number of parked sessions
+     */
+    public int getParkedSessionCount() {
+        return graceWindow.size();
+    }
+
     /**
      * Gets the session duration in milliseconds for a player.
      *
@@ -122,11 +490,57 @@ public class SessionManager implements Listener {
      * @return Session duration in milliseconds, or 0 if no active session
      */
     public long getSessionDuration(UUID playerId) {
-        Long startTime = sessionStartTimes.get(playerId);
-        if (startTime == null) {
+        PlayerSession session = sessions.get(playerId);
+        if (session == null) {
             return 0L;
         }
-        return System.currentTimeMillis() - startTime;
+        return System.currentTimeMillis() - session.getStartTime();
+    }
+
+    /**
+     * Gets the world a player is in.
+     *
+     * @param playerId UUID of the player
+     * @return World name, or an empty string if no active session
+     */
+    public String getWorld(UUID playerId) {
+        PlayerSession session = sessions.get(playerId);
+        String world = session != null ? session.getWorld() : null;
+        return world != null ? world : "";
+    }
+
+    /**
+     * Gets the configured region a player is in.
+     *
+     * @param playerId UUID of the player
+     * @return Region name, or an empty string outside every region
+     */
+    public String getRegion(UUID playerId) {
+        PlayerSession session = sessions.get(playerId);
+        String region = session != null ? session.getRegion() : null;
+        return region != null ? region : "";
+    }
+
+    /**
+     * Gets how long a player has been in the current world, in seconds.
+     *
+     * @param playerId UUID of the player
+     * @return Seconds in the world, or 0 if no active session
+     */
+    public long getWorldSeconds(UUID playerId) {
+        PlayerSession session = sessions.get(playerId);
+        return session != null ? session.getWorldDuration(System.currentTimeMillis()) / 1000 : 0L;
+    }
+
+    /**
+     * Gets how long a player has been in the current region, in seconds.
+     *
+     * @param playerId UUID of the player
+     * @return Seconds in the region, or 0 outside every region or with no active session
+     */
+    public long getRegionSeconds(UUID playerId) {
+        PlayerSession session = sessions.get(playerId);
+        return session != null ? session.getRegionDuration(System.currentTimeMillis()) / 1000 : 0L;
     }
 
     /**
@@ -199,6 +613,43 @@ public class SessionManager implements Listener {
         return getSessionHours(playerId) % 24;
     }
 
+    /**
+     * Checks if active-time mode is enabled.
+     *
+     * @return true if idle time is excluded from active time
+     */
+    public boolean isActiveTimeEnabled() {
+        return activityTracker.isEnabled();
+    }
+
+    /**
+     * Gets the active (non-idle) session time in seconds for a player.
+     * Equals the session time when active-time mode is disabled.
+     *
+     * @param playerId UUID of the player
+     * @return Active session time in seconds, or 0 if no active session
+     */
+    public long getActiveSeconds(UUID playerId) {
+        PlayerSession session = sessions.get(playerId);
+        if (session == null) {
+            return 0L;
+        }
+        long now = System.currentTimeMillis();
+        long duration = activityTracker.isEnabled() ? session.getActiveDuration(now) : session.getDuration(now);
+        return duration / 1000;
+    }
+
+    /**
+     * Checks if a player is currently idle (AFK).
+     *
+     * @param playerId UUID of the player
+     * @return true if active-time mode is enabled and the player is idle
+     */
+    public boolean isIdle(UUID playerId) {
+        PlayerSession session = sessions.get(playerId);
+        return session != null && activityTracker.isEnabled() && session.isIdle();
+    }
+
     /**
      * Formats the session time using the specified format from config.
      *
@@ -207,10 +658,42 @@ public class SessionManager implements Listener {
      * @return Formatted session time string
      */
     public String getFormattedSessionTime(UUID playerId, String formatType) {
-        long days = getSessionDays(playerId);
-        long hours = getRemainingHours(playerId);
-        long minutes = getRemainingMinutes(playerId);
-        long seconds = getRemainingSeconds(playerId);
+        return formatDuration(getSessionSeconds(playerId), formatType);
+    }
+
+    /**
+     * Formats the session time using the default format from config.
+     *
+     * @param playerId UUID of the player
+     * @return Formatted session time string
+     */
+    public String getFormattedSessionTime(UUID playerId) {
+        return formatDuration(getSessionSeconds(playerId));
+    }
+
+    /**
+     * Formats a duration using the default format from config.
+     *
+     * @param totalSeconds Duration in seconds
+     * @return Formatted time string
+     */
+    public String formatDuration(long totalSeconds) {
+        String defaultFormat = plugin.getConfig().getString("default-format", "full");
+        return formatDuration(totalSeconds, defaultFormat);
+    }
+
+    /**
+     * Formats a duration using the specified format from config.
+     *
+     * @param totalSeconds Duration in seconds
+     * @param formatType Format type from config (full, short, custom)
+     * @return Formatted time string
+     */
+    public String formatDuration(long totalSeconds, String formatType) {
+        long days = totalSeconds / 86400;
+        long hours = (totalSeconds / 3600) % 24;
+        long minutes = (totalSeconds / 60) % 60;
+        long seconds = totalSeconds % 60;
 
         // Get format from config with proper fallback
         String format = plugin.getConfig().getString("time-formats." + formatType);
@@ -234,22 +717,92 @@ public class SessionManager implements Listener {
     }
 
     /**
-     * Formats the session time using the default format from config.
+     * Ends all active and parked sessions.
+     * With session.restore-window enabled they are saved and handed off
+     * instead, so the next start resumes them.
+     * Called when the plugin is disabled, before milestone progress is cleared.
+     */
+    public void clearAllSessions() {
+        if (graceTask != null) {
+            graceTask.cancel();
+            graceTask = null;
+        }
+        activityTracker.shutdown();
+        regionTracker.shutdown();
+
+        long now = System.currentTimeMillis();
+        List<GraceWindow.Parked> saved = new ArrayList<>();
+        for (GraceWindow.Parked parked : graceWindow.drain()) {
+            if (restoreMillis > 0 && !parked.session.isRemote()) {
+                saved.add(parked);
+            } else {
+                endSession(parked.session, parked.quitTime);
+            }
+        }
+        for (PlayerSession session : sessions.values()) {
+            if (restoreMillis > 0) {
+                saved.add(new GraceWindow.Parked(session, now, now + restoreMillis));
+            } else {
+                endSession(session, now);
+            }
+        }
+
+        if (!saved.isEmpty()) {
+            // Milestone progress is read before the handoff clears it
+            MilestoneManager milestoneManager = plugin.getMilestoneManager();
+            snapshot.save(saved, playerId -> milestoneManager != null ? milestoneManager.getNextMilestoneIndex(playerId) : 0);
+            for (GraceWindow.Parked entry : saved) {
+                handOff(entry.session, entry.quitTime);
+            }
+        }
+        sessions.clear();
+
+        synchronized (aggregateLock) {
+            sessionOrder.clear();
+            sessionCount = 0;
+            startTimeSum = 0L;
+        }
+    }
+
+    /**
+     * Gets the summed session time of all online players in seconds.
+     * Computed from running sums, without iterating players.
      *
-     * @param playerId UUID of the player
-     * @return Formatted session time string
+     * @return Total session time in seconds
      */
-    public String getFormattedSessionTime(UUID playerId) {
-        String defaultFormat = plugin.getConfig().getString("default-format", "full");
-        return getFormattedSessionTime(playerId, defaultFormat);
+    public long getServerTotalSeconds() {
+        long now = System.currentTimeMillis();
+        synchronized (aggregateLock) {
+            return Math.max(0L, now * sessionCount - startTimeSum) / 1000;
+        }
     }
 
     /**
-     * Clears all active sessions.
-     * Called when the plugin is disabled.
+     * Gets the average session time of online players in seconds.
+     *
+     * @return Average session time in seconds, or 0 if nobody is online
      */
-    public void clearAllSessions() {
-        sessionStartTimes.clear();
+    public long getServerAverageSeconds() {
+        long now = System.currentTimeMillis();
+        synchronized (aggregateLock) {
+            if (sessionCount == 0) {
+                return 0L;
+            }
+            return Math.max(0L, now * sessionCount - startTimeSum) / sessionCount / 1000;
+        }
+    }
+
+    /**
+     * Gets the longest session time of online players in seconds.
+     *
+     * @return Longest session time in seconds, or 0 if nobody is online
+     */
+    public long getServerLongestSeconds() {
+        try {
+            return sessionOrder.first().getDuration(System.currentTimeMillis()) / 1000;
+        } catch (NoSuchElementException e) {
+            return 0L;
+        }
     }
 
     /**
@@ -259,7 +812,7 @@ public class SessionManager implements Listener {
      * @return true if the player has an active session, false otherwise
      */
     public boolean hasActiveSession(UUID playerId) {
-        return sessionStartTimes.containsKey(playerId);
+        return sessions.containsKey(playerId);
     }
 
     /**
@@ -275,18 +828,12 @@ public class SessionManager implements Listener {
             return 0; // Player not online
         }
 
-        // Get sorted list (uses cache if available)
-        List<Player> sortedPlayers = getSortedPlayers();
-
-        // Find player's position in the sorted list
-        for (int i = 0; i < sortedPlayers.size(); i++) {
-            if (sortedPlayers.get(i).getUniqueId().equals(playerId)) {
-                return i + 1; // Rank is 1-indexed
-            }
-        }
+        // Make sure the cache is fresh, then look up the rank built with it
+        getSortedPlayers();
+        Integer rank = cachedRanks.get(playerId);
 
         // Player not found (shouldn't happen if hasActiveSession is true)
-        return 0;
+        return rank != null ? rank : 0;
     }
 
     /**
@@ -300,26 +847,35 @@ public class SessionManager implements Listener {
         long currentTime = System.currentTimeMillis();
 
         // Check if cache is still valid
-        if (cachedSortedPlayers != null && (currentTime - lastCacheUpdate) < CACHE_DURATION_MS) {
-            return cachedSortedPlayers;
+        List<Player> cached = cachedSortedPlayers;
+        if (cached != null && (currentTime - lastCacheUpdate) < CACHE_DURATION_MS) {
+            return cached;
         }
 
-        // Cache expired or doesn't exist - rebuild it
-        cachedSortedPlayers = plugin.getServer().getOnlinePlayers().stream()
-                .sorted((p1, p2) -> {
-                    long time1 = getSessionSeconds(p1.getUniqueId());
-                    long time2 = getSessionSeconds(p2.getUniqueId());
-                    return Long.compare(time2, time1); // Descending order
-                })
-                .collect(Collectors.toList());
+        // Cache expired or doesn't exist - rebuild it.
+        // Sessions are indexed by start time, so the oldest is the longest: no sort needed.
+        List<Player> sorted = new ArrayList<>(sessionOrder.size());
+        for (PlayerSession session : sessionOrder) {
+            Player player = plugin.getServer().getPlayer(session.getPlayerId());
+            if (player != null) {
+                sorted.add(player);
+            }
+        }
+
+        // Index ranks once so rank lookups don't scan the list
+        Map<UUID, Integer> ranks = new HashMap<>(sorted.size() * 2);
+        for (int i = 0; i < sorted.size(); i++) {
+            ranks.put(sorted.get(i).getUniqueId(), i + 1); // Rank is 1-indexed
+        }
 
+        cachedRanks = ranks;
+        cachedSortedPlayers = sorted;
         lastCacheUpdate = currentTime;
 
-        if (debugMode) {
-            plugin.getLogger().info("[DEBUG] Leaderboard cache rebuilt (" + cachedSortedPlayers.size() + " players)");
-        }
+        plugin.getDebugRecorder().record(DebugRecorder.Category.CACHE,
+                "Leaderboard cache rebuilt (%2$d players)", null, sorted.size());
 
-        return cachedSortedPlayers;
+        return sorted;
     }
 
     /**
@@ -329,10 +885,20 @@ public class SessionManager implements Listener {
     private void invalidateCache() {
         cachedSortedPlayers = null;
         lastCacheUpdate = 0;
+        leaderboardVersion.incrementAndGet();
 
-        if (debugMode) {
-            plugin.getLogger().info("[DEBUG] Leaderboard cache invalidated");
-        }
+        plugin.getDebugRecorder().record(DebugRecorder.Category.CACHE, "Leaderboard cache invalidated");
+    }
+
+    /**
+     * Gets the leaderboard version.
+     * Changes every time a player joins or quits, so renderers can tell
+     * when ranks may have moved without comparing the whole list.
+     *
+     * @return Current leaderboard version
+     */
+    public long getLeaderboardVersion() {
+        return leaderboardVersion.get();
     }
 
     /**
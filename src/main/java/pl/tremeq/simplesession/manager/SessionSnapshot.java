@@ -0,0 +1,105 @@
+package pl.tremeq.simplesession.manager;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import pl.tremeq.simplesession.SimpleSession;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.ToIntFunction;
+
+/**
+ * Sessions saved on shutdown so they survive a restart.
+ *
+ * Each session is stored with its ID, so milestone grants logged for it
+ * still match once it's restored. The file is deleted as soon as it's read -
+ * a later crash never restores the same sessions again.
+ *
+ * @author TremeQ
+ */
+class SessionSnapshot {
+
+    static final String FILE_NAME = "sessions.yml";
+
+    private final SimpleSession plugin;
+    private final File file;
+
+    SessionSnapshot(SimpleSession plugin) {
+        this.plugin = plugin;
+        this.file = new File(plugin.getDataFolder(), FILE_NAME);
+    }
+
+    /**
+     * Writes the sessions to disk. Called on shutdown, so it blocks.
+     *
+     * @param entries Sessions with the time the player left and until when they can be resumed
+     * @param milestoneIndex Gets a player's next session milestone index
+     */
+    void save(List<GraceWindow.Parked> entries, ToIntFunction<UUID> milestoneIndex) {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        YamlConfiguration config = new YamlConfiguration();
+        for (GraceWindow.Parked entry : entries) {
+            PlayerSession session = entry.session;
+            String path = session.getPlayerId().toString();
+            config.set(path + ".id", session.getSessionId());
+            config.set(path + ".name", session.getPlayerName());
+            config.set(path + ".start", session.getStartTime());
+            config.set(path + ".idle", session.getIdleDuration(entry.quitTime));
+            config.set(path + ".milestone", milestoneIndex.applyAsInt(session.getPlayerId()));
+            config.set(path + ".quit", entry.quitTime);
+            config.set(path + ".deadline", entry.deadline);
+        }
+
+        try {
+            config.save(file);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to save " + FILE_NAME + ", sessions won't be restored: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads and deletes the saved sessions.
+     * Sessions come back as handoffs carrying their milestone index.
+     *
+     * @return Saved sessions ordered by deadline, empty if there are none
+     */
+    List<GraceWindow.Parked> load() {
+        List<GraceWindow.Parked> entries = new ArrayList<>();
+        if (!file.exists()) {
+            return entries;
+        }
+
+        YamlConfiguration config = YamlConfiguration.loadConfiguration(file);
+        for (String key : config.getKeys(false)) {
+            ConfigurationSection section = config.getConfigurationSection(key);
+            String sessionId = section != null ? section.getString("id") : null;
+            UUID playerId;
+            try {
+                playerId = UUID.fromString(key);
+            } catch (IllegalArgumentException e) {
+                playerId = null;
+            }
+            if (playerId == null || sessionId == null) {
+                plugin.getLogger().warning("Invalid session '" + key + "' in " + FILE_NAME + ". Skipping.");
+                continue;
+            }
+
+            PlayerSession session = new PlayerSession(playerId, sessionId, section.getString("name", key),
+                    section.getLong("start"), section.getLong("idle"), section.getInt("milestone"));
+            entries.add(new GraceWindow.Parked(session, section.getLong("quit"), section.getLong("deadline")));
+        }
+        entries.sort(Comparator.comparingLong(entry -> entry.deadline));
+
+        if (!file.delete()) {
+            plugin.getLogger().warning("Could not delete " + FILE_NAME + ", the same sessions may be restored again.");
+        }
+        return entries;
+    }
+}
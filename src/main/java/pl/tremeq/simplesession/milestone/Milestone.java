@@ -3,6 +3,8 @@ package pl.tremeq.simplesession.milestone;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.entity.Player;
+import pl.tremeq.simplesession.SimpleSession;
+import pl.tremeq.simplesession.debug.TickMonitor;
 
 import java.util.List;
 
@@ -12,12 +14,18 @@ import java.util.List;
  * Milestones are triggered when a player reaches a specific session duration.
  * They can send messages and execute commands as rewards.
  *
+ * A recurring milestone first fires at its time and then again every
+ * interval, optionally up to a maximum number of times.
+ *
  * @author TremeQ
  */
 public class Milestone {
 
     private final String id;
+    private final String name;
     private final int timeSeconds;
+    private final int intervalSeconds;
+    private final int maxRepeats;
     private final String message;
     private final List<String> commands;
 
@@ -25,13 +33,33 @@ public class Milestone {
      * Creates a new milestone.
      *
      * @param id Unique identifier for this milestone
+     * @param name Display name for placeholders, or null to use the ID
      * @param timeSeconds Required session time in seconds
      * @param message Message to send to player (supports color codes)
      * @param commands Commands to execute (supports {player} placeholder)
      */
-    public Milestone(String id, int timeSeconds, String message, List<String> commands) {
+    public Milestone(String id, String name, int timeSeconds, String message, List<String> commands) {
+        this(id, name, timeSeconds, 0, 0, message, commands);
+    }
+
+    /**
+     * Creates a new recurring milestone.
+     *
+     * @param id Unique identifier for this milestone
+     * @param name Display name for placeholders, or null to use the ID
+     * @param timeSeconds Session time of the first repetition in seconds
+     * @param intervalSeconds Seconds between repetitions, or 0 for a one-time milestone
+     * @param maxRepeats Maximum number of repetitions, or 0 for no limit
+     * @param message Message to send to player (supports color codes)
+     * @param commands Commands to execute (supports {player} placeholder)
+     */
+    public Milestone(String id, String name, int timeSeconds, int intervalSeconds, int maxRepeats,
+                     String message, List<String> commands) {
         this.id = id;
+        this.name = name != null && !name.isEmpty() ? name : id;
         this.timeSeconds = timeSeconds;
+        this.intervalSeconds = intervalSeconds;
+        this.maxRepeats = maxRepeats;
         this.message = message;
         this.commands = commands;
     }
@@ -45,6 +73,15 @@ public class Milestone {
         return id;
     }
 
+    /**
+     * Gets the display name shown by the next_milestone placeholder.
+     *
+     * @return Display name, or the ID if none is configured
+     */
+    public String getName() {
+        return name;
+    }
+
     /**
      * Gets the required session time in seconds.
      *
@@ -54,6 +91,45 @@ public class Milestone {
         return timeSeconds;
     }
 
+    /**
+     * Checks if this milestone repeats.
+     *
+     * @return true if it fires every interval
+     */
+    public boolean isRecurring() {
+        return intervalSeconds > 0;
+    }
+
+    /**
+     * Gets how many repetitions are reached at a session time. O(1).
+     *
+     * @param seconds Session time in seconds
+     * @return Number of repetitions reached (0 or 1 for a one-time milestone)
+     */
+    public int getRepeatsReached(long seconds) {
+        if (seconds < timeSeconds) {
+            return 0;
+        }
+        if (intervalSeconds <= 0) {
+            return 1;
+        }
+        long reached = (seconds - timeSeconds) / intervalSeconds + 1;
+        return (int) Math.min(reached, maxRepeats > 0 ? maxRepeats : Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets the session time of a repetition.
+     *
+     * @param repeat Zero-based repetition
+     * @return Time in seconds, or -1 if the milestone never fires that often
+     */
+    public long getRepeatTime(int repeat) {
+        if (repeat > 0 && intervalSeconds <= 0 || maxRepeats > 0 && repeat >= maxRepeats) {
+            return -1L;
+        }
+        return timeSeconds + (long) repeat * intervalSeconds;
+    }
+
     /**
      * Gets the milestone message.
      *
@@ -75,15 +151,30 @@ public class Milestone {
     /**
      * Executes this milestone for a player.
      * Sends the message and runs all commands.
+     * Command dispatch runs on a later tick and is reported to the tick monitor
+     * as milestone reward time.
+     *
+     * @param plugin The main plugin instance
+     * @param player The player who achieved this milestone
+     */
+    public void execute(SimpleSession plugin, Player player) {
+        execute(plugin, player, timeSeconds);
+    }
+
+    /**
+     * Executes one repetition of this milestone for a player.
      *
+     * @param plugin The main plugin instance
      * @param player The player who achieved this milestone
+     * @param reachedSeconds Session time of the repetition, shown as {time} (and in whole days as {days})
      */
-    public void execute(Player player) {
+    public void execute(SimpleSession plugin, Player player, long reachedSeconds) {
         // Send message if configured
         if (message != null && !message.isEmpty()) {
             String formattedMessage = ChatColor.translateAlternateColorCodes('&', message)
                     .replace("{player}", player.getName())
-                    .replace("{time}", formatTime(timeSeconds));
+                    .replace("{time}", formatTime(reachedSeconds))
+                    .replace("{days}", String.valueOf(reachedSeconds / 86400));
             player.sendMessage(formattedMessage);
         }
 
@@ -95,8 +186,14 @@ public class Milestone {
                         .replace("{uuid}", player.getUniqueId().toString());
 
                 // Execute command from console
-                Bukkit.getScheduler().runTask(Bukkit.getPluginManager().getPlugin("SimpleSession"), () -> {
-                    Bukkit.dispatchCommand(Bukkit.getConsoleSender(), formattedCommand);
+                // Console commands run on the main thread (global region on Folia)
+                plugin.getTaskScheduler().run(() -> {
+                    long timerStart = plugin.getTickMonitor().start();
+                    try {
+                        Bukkit.dispatchCommand(Bukkit.getConsoleSender(), formattedCommand);
+                    } finally {
+                        plugin.getTickMonitor().stop(TickMonitor.Section.MILESTONE_REWARD, timerStart);
+                    }
                 });
             }
         }
@@ -108,10 +205,10 @@ public class Milestone {
      * @param seconds Time in seconds
      * @return Formatted time string (e.g., "1h 30m")
      */
-    private String formatTime(int seconds) {
-        int hours = seconds / 3600;
-        int minutes = (seconds % 3600) / 60;
-        int secs = seconds % 60;
+    private String formatTime(long seconds) {
+        long hours = seconds / 3600;
+        long minutes = (seconds % 3600) / 60;
+        long secs = seconds % 60;
 
         if (hours > 0) {
             return hours + "h " + minutes + "m";
@@ -124,6 +221,7 @@ public class Milestone {
 
     @Override
     public String toString() {
-        return "Milestone{id='" + id + "', time=" + timeSeconds + "s}";
+        return "Milestone{id='" + id + "', time=" + timeSeconds + "s"
+                + (isRecurring() ? ", every=" + intervalSeconds + "s" : "") + "}";
     }
 }
@@ -3,12 +3,15 @@ package pl.tremeq.simplesession.milestone;
 import org.bukkit.Bukkit;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
-import org.bukkit.event.player.PlayerJoinEvent;
-import org.bukkit.event.player.PlayerQuitEvent;
-import org.bukkit.scheduler.BukkitTask;
 import pl.tremeq.simplesession.SimpleSession;
+import pl.tremeq.simplesession.debug.DebugRecorder;
+import pl.tremeq.simplesession.debug.TickMonitor;
+import pl.tremeq.simplesession.leaderboard.PlaytimeTracker;
+import pl.tremeq.simplesession.manager.PlayerSession;
+import pl.tremeq.simplesession.manager.SessionListener;
+import pl.tremeq.simplesession.scheduler.ScheduledTask;
+import pl.tremeq.simplesession.storage.GrantLog;
+import pl.tremeq.simplesession.storage.PlayerProfile;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -19,15 +22,42 @@ import java.util.concurrent.ConcurrentHashMap;
  * This manager checks player session times periodically and triggers
  * milestones when players reach specific durations.
  *
+ * Lifetime milestones use total playtime instead and fire once per player.
+ * Their thresholds are kept sorted, so each check finds the reached ones by
+ * binary search and a per-player cursor; a claim is saved to disk before
+ * the reward is given.
+ *
+ * Recurring milestones aren't polled. Their next repetition time is computed
+ * from the interval and a one-shot task is scheduled for it, so the cost
+ * doesn't depend on how often they can repeat.
+ *
+ * Streak milestones fire when a player's join streak reaches a number of
+ * days. They are claimed like lifetime milestones and released when the
+ * streak breaks, so every new streak can earn them again.
+ *
  * @author TremeQ
  */
-public class MilestoneManager implements Listener {
+public class MilestoneManager implements SessionListener {
 
     private final SimpleSession plugin;
-    private final Map<UUID, Set<String>> playerMilestones; // playerId -> set of achieved milestone IDs
-    private final List<Milestone> milestones;
-    private BukkitTask checkTask;
+    // playerId -> index of the next session milestone; every milestone before it is reached
+    private final Map<UUID, Integer> nextMilestoneIndex;
+    // Sorted and replaced as a whole on reload, so readers on other threads see a consistent list
+    private volatile List<Milestone> milestones = Collections.emptyList();
+    private volatile long[] milestoneThresholds = new long[0];
+    private volatile List<Milestone> lifetimeMilestones = Collections.emptyList();
+    private volatile long[] lifetimeThresholds = new long[0];
+    // playerId -> number of lifetime milestones already claimed or being claimed
+    private final Map<UUID, Integer> lifetimeCursors = new ConcurrentHashMap<>();
+    private volatile List<Milestone> recurringMilestones = Collections.emptyList();
+    private final Map<UUID, RecurringState> recurringStates = new ConcurrentHashMap<>();
+    // Sorted by days; the milestone time is the streak length in seconds
+    private volatile List<Milestone> streakMilestones = Collections.emptyList();
+    private volatile long[] streakThresholds = new long[0];
+    private final GrantLog grantLog;
+    private ScheduledTask checkTask;
     private boolean enabled;
+    private boolean useActiveTime;
 
     /**
      * Creates a new MilestoneManager.
@@ -36,17 +66,25 @@ public class MilestoneManager implements Listener {
      */
     public MilestoneManager(SimpleSession plugin) {
         this.plugin = plugin;
-        this.playerMilestones = new ConcurrentHashMap<>();
-        this.milestones = new ArrayList<>();
+        this.nextMilestoneIndex = new ConcurrentHashMap<>();
+        this.grantLog = new GrantLog(plugin);
 
         // Load milestones from config
         loadMilestones();
 
-        // Register events
-        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        // Session milestones already granted, so a restored session isn't rewarded twice
+        int retentionHours = plugin.getConfig().getInt("milestones.grant-log-retention", 24);
+        if (retentionHours <= 0) {
+            plugin.getLogger().warning("Invalid grant-log-retention (" + retentionHours + "h). Using default 24h.");
+            retentionHours = 24;
+        }
+        grantLog.load(retentionHours * 3600_000L);
+
+        // Follow session start/end (keeps progress when a session is resumed)
+        plugin.getSessionManager().addListener(this);
 
         // Start checking task if enabled
-        if (enabled && !milestones.isEmpty()) {
+        if (enabled && (!milestones.isEmpty() || !lifetimeMilestones.isEmpty() || !streakMilestones.isEmpty())) {
             startCheckTask();
         }
     }
@@ -55,10 +93,17 @@ public class MilestoneManager implements Listener {
      * Loads milestones from the plugin configuration.
      */
     private void loadMilestones() {
-        milestones.clear();
+        milestones = Collections.emptyList();
+        milestoneThresholds = new long[0];
+        lifetimeMilestones = Collections.emptyList();
+        lifetimeThresholds = new long[0];
+        recurringMilestones = Collections.emptyList();
+        streakMilestones = Collections.emptyList();
+        streakThresholds = new long[0];
 
         // Check if milestones are enabled
         enabled = plugin.getConfig().getBoolean("milestones.enabled", false);
+        useActiveTime = plugin.getConfig().getBoolean("milestones.use-active-time", false);
 
         if (!enabled) {
             plugin.getLogger().info("Milestones are disabled in config");
@@ -66,15 +111,78 @@ public class MilestoneManager implements Listener {
         }
 
         ConfigurationSection milestonesSection = plugin.getConfig().getConfigurationSection("milestones.list");
+        ConfigurationSection lifetimeSection = plugin.getConfig().getConfigurationSection("milestones.lifetime");
+        ConfigurationSection recurringSection = plugin.getConfig().getConfigurationSection("milestones.recurring");
+        ConfigurationSection streakSection = plugin.getConfig().getConfigurationSection("milestones.streaks");
 
-        if (milestonesSection == null) {
+        if (milestonesSection == null && lifetimeSection == null && recurringSection == null && streakSection == null) {
             plugin.getLogger().warning("No milestones configured in config.yml!");
             return;
         }
 
+        List<Milestone> loaded = new ArrayList<>();
+        List<Milestone> loadedLifetime = new ArrayList<>();
+        loadMilestoneList(milestonesSection, loaded);
+        loadMilestoneList(lifetimeSection, loadedLifetime);
+
+        // Sort milestones by time (ascending)
+        loaded.sort(Comparator.comparingInt(Milestone::getTimeSeconds));
+        loadedLifetime.sort(Comparator.comparingInt(Milestone::getTimeSeconds));
+
+        milestoneThresholds = thresholdsOf(loaded);
+        milestones = Collections.unmodifiableList(loaded);
+        lifetimeThresholds = thresholdsOf(loadedLifetime);
+        lifetimeMilestones = Collections.unmodifiableList(loadedLifetime);
+
+        List<Milestone> loadedRecurring = new ArrayList<>();
+        loadRecurringList(recurringSection, loadedRecurring);
+        recurringMilestones = Collections.unmodifiableList(loadedRecurring);
+
+        List<Milestone> loadedStreaks = new ArrayList<>();
+        loadStreakList(streakSection, loadedStreaks);
+        loadedStreaks.sort(Comparator.comparingInt(Milestone::getTimeSeconds));
+        long[] days = thresholdsOf(loadedStreaks);
+        for (int i = 0; i < days.length; i++) {
+            days[i] /= 86400;
+        }
+        streakThresholds = days;
+        streakMilestones = Collections.unmodifiableList(loadedStreaks);
+
+        // Thresholds may have moved. Milestones already passed this session count as
+        // reached, so a reload never repeats them; lifetime claims are checked again.
+        for (UUID playerId : nextMilestoneIndex.keySet()) {
+            nextMilestoneIndex.put(playerId, countReached(milestoneThresholds, getMilestoneSeconds(playerId)));
+        }
+        lifetimeCursors.replaceAll((playerId, cursor) -> 0);
+
+        plugin.getLogger().info("Loaded " + milestones.size() + " milestones, "
+                + lifetimeMilestones.size() + " lifetime milestones, "
+                + recurringMilestones.size() + " recurring milestones and "
+                + streakMilestones.size() + " streak milestones");
+    }
+
+    private static long[] thresholdsOf(List<Milestone> sorted) {
+        long[] thresholds = new long[sorted.size()];
+        for (int i = 0; i < thresholds.length; i++) {
+            thresholds[i] = sorted.get(i).getTimeSeconds();
+        }
+        return thresholds;
+    }
+
+    /**
+     * Loads the milestones of one config section.
+     *
+     * @param section Section with one subsection per milestone, may be null
+     * @param into List to add the milestones to
+     */
+    private void loadMilestoneList(ConfigurationSection section, List<Milestone> into) {
+        if (section == null) {
+            return;
+        }
+
         // Load each milestone
-        for (String key : milestonesSection.getKeys(false)) {
-            ConfigurationSection milestoneSection = milestonesSection.getConfigurationSection(key);
+        for (String key : section.getKeys(false)) {
+            ConfigurationSection milestoneSection = section.getConfigurationSection(key);
 
             if (milestoneSection == null) continue;
 
@@ -87,11 +195,12 @@ public class MilestoneManager implements Listener {
                     continue;
                 }
 
+                String name = milestoneSection.getString("name");
                 String message = milestoneSection.getString("message", "");
                 List<String> commands = milestoneSection.getStringList("commands");
 
-                Milestone milestone = new Milestone(key, time, message, commands);
-                milestones.add(milestone);
+                Milestone milestone = new Milestone(key, name, time, message, commands);
+                into.add(milestone);
 
                 if (plugin.getConfig().getBoolean("debug", false)) {
                     plugin.getLogger().info("[DEBUG] Loaded milestone: " + key + " at " + time + "s");
@@ -100,11 +209,75 @@ public class MilestoneManager implements Listener {
                 plugin.getLogger().warning("Failed to load milestone '" + key + "': " + e.getMessage());
             }
         }
+    }
 
-        // Sort milestones by time (ascending)
-        milestones.sort(Comparator.comparingInt(Milestone::getTimeSeconds));
+    /**
+     * Loads the recurring milestones of one config section.
+     *
+     * @param section Section with one subsection per milestone, or null
+     * @param into List the loaded milestones are added to
+     */
+    private void loadRecurringList(ConfigurationSection section, List<Milestone> into) {
+        if (section == null) {
+            return;
+        }
+
+        for (String key : section.getKeys(false)) {
+            ConfigurationSection milestoneSection = section.getConfigurationSection(key);
+
+            if (milestoneSection == null) continue;
+
+            int every = milestoneSection.getInt("every");
+            int start = milestoneSection.getInt("start", every);
+            int max = milestoneSection.getInt("max", 0);
+
+            if (every <= 0 || start <= 0) {
+                plugin.getLogger().warning("Recurring milestone '" + key + "' has invalid every/start (" + every + "s/" + start + "s). Skipping.");
+                continue;
+            }
+            if (max < 0) {
+                plugin.getLogger().warning("Recurring milestone '" + key + "' has invalid max (" + max + "). Using 0 (no limit).");
+                max = 0;
+            }
+
+            into.add(new Milestone(key, milestoneSection.getString("name"), start, every, max,
+                    milestoneSection.getString("message", ""), milestoneSection.getStringList("commands")));
+
+            if (plugin.getConfig().getBoolean("debug", false)) {
+                plugin.getLogger().info("[DEBUG] Loaded recurring milestone: " + key + " every " + every + "s from " + start + "s");
+            }
+        }
+    }
+
+    /**
+     * Loads the streak milestones of one config section.
+     *
+     * @param section Section with one subsection per milestone, or null
+     * @param into List the loaded milestones are added to
+     */
+    private void loadStreakList(ConfigurationSection section, List<Milestone> into) {
+        if (section == null) {
+            return;
+        }
+
+        for (String key : section.getKeys(false)) {
+            ConfigurationSection milestoneSection = section.getConfigurationSection(key);
 
-        plugin.getLogger().info("Loaded " + milestones.size() + " milestones");
+            if (milestoneSection == null) continue;
+
+            int days = milestoneSection.getInt("days");
+            if (days <= 0 || days > Integer.MAX_VALUE / 86400) {
+                plugin.getLogger().warning("Streak milestone '" + key + "' has invalid days (" + days + "). Skipping.");
+                continue;
+            }
+
+            into.add(new Milestone(key, milestoneSection.getString("name"), days * 86400,
+                    milestoneSection.getString("message", ""), milestoneSection.getStringList("commands")));
+
+            if (plugin.getConfig().getBoolean("debug", false)) {
+                plugin.getLogger().info("[DEBUG] Loaded streak milestone: " + key + " at " + days + " days");
+            }
+        }
     }
 
     /**
@@ -122,9 +295,7 @@ public class MilestoneManager implements Listener {
 
         int intervalTicks = intervalSeconds * 20;
 
-        checkTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-            checkMilestones();
-        }, intervalTicks, intervalTicks);
+        checkTask = plugin.getTaskScheduler().runTimer(this::checkMilestones, intervalTicks, intervalTicks);
 
         if (plugin.getConfig().getBoolean("debug", false)) {
             plugin.getLogger().info("[DEBUG] Milestone check task started (interval: " + (intervalTicks / 20) + "s)");
@@ -133,10 +304,18 @@ public class MilestoneManager implements Listener {
 
     /**
      * Checks all online players for milestone achievements.
+     * Each check runs on the thread that owns the player (inline on Paper/Spigot).
      */
     private void checkMilestones() {
         for (Player player : Bukkit.getOnlinePlayers()) {
-            checkPlayerMilestones(player);
+            plugin.getTaskScheduler().runForEntity(player, () -> {
+                long timerStart = plugin.getTickMonitor().start();
+                try {
+                    checkPlayerMilestones(player);
+                } finally {
+                    plugin.getTickMonitor().stop(TickMonitor.Section.MILESTONE_CHECK, timerStart);
+                }
+            });
         }
     }
 
@@ -148,29 +327,211 @@ public class MilestoneManager implements Listener {
     private void checkPlayerMilestones(Player player) {
         UUID playerId = player.getUniqueId();
 
-        // Get player's current session time in seconds
-        long sessionSeconds = plugin.getSessionManager().getSessionSeconds(playerId);
-
-        // Get set of already achieved milestones for this session
-        Set<String> achieved = playerMilestones.computeIfAbsent(playerId, k -> new HashSet<>());
-
-        // Check each milestone
-        for (Milestone milestone : milestones) {
-            // Has the player reached this milestone time?
-            if (sessionSeconds >= milestone.getTimeSeconds()) {
-                // Has the player already received this milestone?
-                if (!achieved.contains(milestone.getId())) {
-                    // Grant the milestone!
-                    grantMilestone(player, milestone);
-                    achieved.add(milestone.getId());
-
-                    if (plugin.getConfig().getBoolean("debug", false)) {
-                        plugin.getLogger().info("[DEBUG] Player " + player.getName() +
-                                " achieved milestone: " + milestone.getId());
-                    }
+        checkLifetimeMilestones(player);
+        checkStreakMilestones(player);
+
+        PlayerSession session = plugin.getSessionManager().getSession(playerId);
+        if (session == null) {
+            return;
+        }
+
+        // Milestones are sorted, so only the ones from the player's next index on can be new
+        List<Milestone> current = milestones;
+        long sessionSeconds = getMilestoneSeconds(playerId);
+        int next = nextMilestoneIndex.getOrDefault(playerId, 0);
+        int reached = next;
+        while (reached < current.size() && sessionSeconds >= current.get(reached).getTimeSeconds()) {
+            reached++;
+        }
+
+        // Move the index before queuing the grants, and only if nothing moved it since it was read -
+        // a failed write on the IO thread then can't be overwritten, only the next check sees it
+        if (reached == next || !nextMilestoneIndex.replace(playerId, next, reached)) {
+            return;
+        }
+
+        for (int i = next; i < reached; i++) {
+            Milestone milestone = current.get(i);
+            int index = i;
+            // Log the grant first and reward once it's on disk - exactly once, even across a restore
+            grantLog.record(playerId, session.getSessionId(), milestone.getId(), committed -> {
+                if (committed) {
+                    plugin.getTaskScheduler().runForEntity(player, () -> grantMilestone(player, milestone));
+                    plugin.getDebugRecorder().record(DebugRecorder.Category.MILESTONE,
+                            "Milestone achieved: %1$s at %2$d seconds", player.getName() + " -> " + milestone.getId(), milestone.getTimeSeconds());
+                } else {
+                    // Not written - look at it again on the next check
+                    nextMilestoneIndex.computeIfPresent(playerId, (id, cursor) -> Math.min(cursor, index));
                 }
+            });
+        }
+    }
+
+    /**
+     * Gets the session time milestones are measured against.
+     * Excludes AFK time if milestones.use-active-time is enabled.
+     *
+     * @param playerId UUID of the player
+     * @return Session time in seconds
+     */
+    public long getMilestoneSeconds(UUID playerId) {
+        return useActiveTime
+                ? plugin.getSessionManager().getActiveSeconds(playerId)
+                : plugin.getSessionManager().getSessionSeconds(playerId);
+    }
+
+    /**
+     * Gets the next session milestone a player will reach. O(1).
+     *
+     * @param playerId UUID of the player
+     * @return The next milestone, or null if all are reached or the player has no session
+     */
+    public Milestone getNextMilestone(UUID playerId) {
+        Integer next = nextMilestoneIndex.get(playerId);
+        List<Milestone> current = milestones;
+        return next != null && next < current.size() ? current.get(next) : null;
+    }
+
+    /**
+     * Gets the index of a player's next session milestone.
+     *
+     * @param playerId UUID of the player
+     * @return Index into the sorted session milestones, 0 if none reached
+     */
+    public int getNextMilestoneIndex(UUID playerId) {
+        return nextMilestoneIndex.getOrDefault(playerId, 0);
+    }
+
+    /**
+     * Gets the time of the last session milestone a player reached. O(1).
+     *
+     * @param playerId UUID of the player
+     * @return Time in seconds, or 0 if none was reached yet
+     */
+    public long getPreviousMilestoneTime(UUID playerId) {
+        Integer next = nextMilestoneIndex.get(playerId);
+        List<Milestone> current = milestones;
+        if (next == null || next == 0 || next > current.size()) {
+            return 0L;
+        }
+        return current.get(next - 1).getTimeSeconds();
+    }
+
+    /**
+     * Grants every lifetime milestone the player has reached but not yet claimed.
+     * Binary search gives the number of reached thresholds; only thresholds
+     * past the player's cursor are looked at, so a check with nothing new is O(log n).
+     *
+     * @param player The player to check
+     */
+    private void checkLifetimeMilestones(Player player) {
+        long[] thresholds = lifetimeThresholds;
+        if (thresholds.length == 0) {
+            return;
+        }
+
+        UUID playerId = player.getUniqueId();
+        PlaytimeTracker tracker = plugin.getPlaytimeTracker();
+        long lifetime = tracker.getLifetimeSeconds(playerId);
+        if (lifetime < 0) {
+            return; // Profile still loading - claims can't be checked yet
+        }
+
+        int reached = countReached(thresholds, lifetime);
+        int cursor = lifetimeCursors.getOrDefault(playerId, 0);
+        if (reached <= cursor) {
+            return;
+        }
+
+        // Claim callbacks may move the cursor back, so it's moved forward first and only from the value read
+        if (!lifetimeCursors.replace(playerId, cursor, reached)) {
+            return;
+        }
+
+        for (int i = cursor; i < reached; i++) {
+            Milestone milestone = lifetimeMilestones.get(i);
+            if (tracker.isLifetimeClaimed(playerId, milestone.getId())) {
+                continue;
+            }
+
+            int index = i;
+            boolean claimed = tracker.claimLifetimeMilestone(playerId, milestone.getId(), saved -> {
+                if (saved) {
+                    // Claim is on disk - now it's safe to reward
+                    plugin.getTaskScheduler().runForEntity(player, () -> grantMilestone(player, milestone));
+                    plugin.getDebugRecorder().record(DebugRecorder.Category.MILESTONE,
+                            "Lifetime milestone achieved: %1$s at %2$d seconds", player.getName() + " -> " + milestone.getId(), milestone.getTimeSeconds());
+                } else {
+                    // Not saved - look at it again on the next check
+                    lifetimeCursors.computeIfPresent(playerId, (id, current) -> Math.min(current, index));
+                }
+            });
+            if (!claimed && !tracker.isLifetimeClaimed(playerId, milestone.getId())) {
+                // Profile went away, retry from here
+                lifetimeCursors.computeIfPresent(playerId, (id, current) -> Math.min(current, index));
+                break;
+            }
+        }
+    }
+
+    /**
+     * Grants every streak milestone the player's current streak has reached
+     * but that wasn't claimed during this streak yet.
+     *
+     * @param player The player to check
+     */
+    private void checkStreakMilestones(Player player) {
+        long[] thresholds = streakThresholds;
+        List<Milestone> current = streakMilestones;
+        if (thresholds.length == 0) {
+            return;
+        }
+
+        UUID playerId = player.getUniqueId();
+        PlaytimeTracker tracker = plugin.getPlaytimeTracker();
+        int streak = tracker.getStreak(playerId);
+        if (streak <= 0) {
+            return; // Profile still loading or nothing played yet
+        }
+
+        int reached = Math.min(countReached(thresholds, streak), current.size());
+        for (int i = 0; i < reached; i++) {
+            Milestone milestone = current.get(i);
+            String claimId = PlayerProfile.STREAK_CLAIM_PREFIX + milestone.getId();
+            if (tracker.isLifetimeClaimed(playerId, claimId)) {
+                continue;
+            }
+
+            // A claim that can't be saved is reverted and retried on the next check
+            tracker.claimLifetimeMilestone(playerId, claimId, saved -> {
+                if (saved) {
+                    plugin.getTaskScheduler().runForEntity(player, () -> grantMilestone(player, milestone));
+                    plugin.getDebugRecorder().record(DebugRecorder.Category.MILESTONE,
+                            "Streak milestone achieved: %1$s at %2$d days", player.getName() + " -> " + milestone.getId(), milestone.getTimeSeconds() / 86400);
+                }
+            });
+        }
+    }
+
+    /**
+     * Counts thresholds at or below a value (upper bound binary search).
+     *
+     * @param thresholds Sorted thresholds
+     * @param value Value to compare
+     * @return Number of thresholds reached
+     */
+    private static int countReached(long[] thresholds, long value) {
+        int low = 0;
+        int high = thresholds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (thresholds[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
             }
         }
+        return low;
     }
 
     /**
@@ -181,33 +542,193 @@ public class MilestoneManager implements Listener {
      */
     private void grantMilestone(Player player, Milestone milestone) {
         // Execute the milestone (send message, run commands)
-        milestone.execute(player);
+        milestone.execute(plugin, player);
     }
 
     /**
-     * Handles player join event.
-     * Initializes milestone tracking for the player.
+     * Schedules a player's next recurring milestone.
+     * The next repetition time of every recurring milestone is computed and a
+     * single task is scheduled for the earliest one.
      *
-     * @param event PlayerJoinEvent
+     * @param player The player
      */
-    @EventHandler
-    public void onPlayerJoin(PlayerJoinEvent event) {
-        UUID playerId = event.getPlayer().getUniqueId();
-        // Clear any previous milestone data (new session)
-        playerMilestones.put(playerId, new HashSet<>());
+    private void scheduleRecurring(Player player) {
+        UUID playerId = player.getUniqueId();
+        RecurringState state = recurringStates.get(playerId);
+        if (state == null) {
+            return;
+        }
+
+        synchronized (state) {
+            if (state.task != null) {
+                state.task.cancel();
+                state.task = null;
+            }
+
+            long nextDue = Long.MAX_VALUE;
+            for (int i = 0; i < state.milestones.size(); i++) {
+                long due = state.milestones.get(i).getRepeatTime(state.fired[i]);
+                if (due >= 0 && due < nextDue) {
+                    nextDue = due;
+                }
+            }
+            if (nextDue == Long.MAX_VALUE) {
+                return; // Every recurring milestone reached its max
+            }
+
+            long delaySeconds = Math.max(1L, nextDue - getMilestoneSeconds(playerId));
+            if (useActiveTime && plugin.getSessionManager().isIdle(playerId)) {
+                // Active time is paused - look again after a check interval instead of spinning
+                delaySeconds = Math.max(delaySeconds, Math.max(1, plugin.getConfig().getInt("milestones.check-interval", 60)));
+            }
+            state.task = plugin.getTaskScheduler().runLaterForEntity(player, () -> fireRecurring(player), delaySeconds * 20);
+        }
     }
 
     /**
-     * Handles player quit event.
-     * Cleans up milestone tracking data.
+     * Grants every recurring milestone repetition a player has reached, then
+     * schedules the next one. Runs on the thread that owns the player.
      *
-     * @param event PlayerQuitEvent
+     * @param player The player
      */
-    @EventHandler
-    public void onPlayerQuit(PlayerQuitEvent event) {
-        UUID playerId = event.getPlayer().getUniqueId();
+    private void fireRecurring(Player player) {
+        UUID playerId = player.getUniqueId();
+        RecurringState state = recurringStates.get(playerId);
+        PlayerSession session = plugin.getSessionManager().getSession(playerId);
+        if (state == null || session == null || !player.isOnline()) {
+            return; // Scheduled again when the session is resumed
+        }
+
+        long timerStart = plugin.getTickMonitor().start();
+        try {
+            long seconds = getMilestoneSeconds(playerId);
+            synchronized (state) {
+                state.task = null;
+                for (int i = 0; i < state.milestones.size(); i++) {
+                    Milestone milestone = state.milestones.get(i);
+                    int reached = milestone.getRepeatsReached(seconds);
+                    while (state.fired[i] < reached) {
+                        int index = i;
+                        int repeat = state.fired[i]++;
+                        long repeatTime = milestone.getRepeatTime(repeat);
+
+                        // Each repetition is logged on its own, so none is rewarded twice
+                        grantLog.record(playerId, session.getSessionId(), milestone.getId() + "#" + repeat, committed -> {
+                            if (committed) {
+                                plugin.getTaskScheduler().runForEntity(player, () -> milestone.execute(plugin, player, repeatTime));
+                                plugin.getDebugRecorder().record(DebugRecorder.Category.MILESTONE,
+                                        "Recurring milestone achieved: %1$s at %2$d seconds", player.getName() + " -> " + milestone.getId() + "#" + repeat, repeatTime);
+                            } else {
+                                // Not written - fire it again right away
+                                synchronized (state) {
+                                    state.fired[index] = Math.min(state.fired[index], repeat);
+                                }
+                                plugin.getTaskScheduler().runForEntity(player, () -> scheduleRecurring(player));
+                            }
+                        });
+                    }
+                }
+            }
+            scheduleRecurring(player);
+        } finally {
+            plugin.getTickMonitor().stop(TickMonitor.Section.MILESTONE_CHECK, timerStart);
+        }
+    }
+
+    /**
+     * Restarts recurring milestone tracking for every session after a reload.
+     * Repetitions already passed count as fired, so a reload never repeats them.
+     */
+    private void resetRecurring() {
+        List<Milestone> current = recurringMilestones;
+        for (Map.Entry<UUID, RecurringState> entry : recurringStates.entrySet()) {
+            entry.getValue().cancel();
+            if (current.isEmpty()) {
+                continue;
+            }
+
+            RecurringState state = new RecurringState(current);
+            long seconds = getMilestoneSeconds(entry.getKey());
+            for (int i = 0; i < current.size(); i++) {
+                state.fired[i] = current.get(i).getRepeatsReached(seconds);
+            }
+            entry.setValue(state);
+
+            Player player = Bukkit.getPlayer(entry.getKey());
+            if (player != null) {
+                plugin.getTaskScheduler().runForEntity(player, () -> scheduleRecurring(player));
+            }
+        }
+        if (current.isEmpty()) {
+            recurringStates.clear();
+        }
+    }
+
+    /**
+     * Initializes milestone tracking when a session starts.
+     * A resumed session keeps the milestones it already reached.
+     *
+     * @param session The session
+     * @param player The player
+     * @param resumed true if the session was resumed within the grace window
+     */
+    @Override
+    public void onSessionStart(PlayerSession session, Player player, boolean resumed) {
+        if (resumed) {
+            // A session handed off by another server brings its milestone progress
+            nextMilestoneIndex.putIfAbsent(session.getPlayerId(), session.getCarriedMilestoneIndex());
+            // A restored session keeps its ID - skip whatever the grant log already has
+            nextMilestoneIndex.computeIfPresent(session.getPlayerId(),
+                    (id, next) -> skipGranted(session.getSessionId(), next));
+        } else {
+            // Clear any previous milestone data (new session)
+            nextMilestoneIndex.put(session.getPlayerId(), 0);
+        }
+        lifetimeCursors.putIfAbsent(session.getPlayerId(), 0);
+
+        List<Milestone> recurring = recurringMilestones;
+        if (!recurring.isEmpty()) {
+            if (!resumed || !recurringStates.containsKey(session.getPlayerId())) {
+                RecurringState state = new RecurringState(recurring);
+                if (resumed) {
+                    // Handed off by another server - repetitions already passed were fired there
+                    long seconds = getMilestoneSeconds(session.getPlayerId());
+                    for (int i = 0; i < recurring.size(); i++) {
+                        state.fired[i] = recurring.get(i).getRepeatsReached(seconds);
+                    }
+                }
+                recurringStates.put(session.getPlayerId(), state);
+            }
+            // The player object changes on rejoin, so schedule again either way
+            scheduleRecurring(player);
+        }
+    }
+
+    private int skipGranted(String sessionId, int next) {
+        List<Milestone> current = milestones;
+        while (next < current.size() && grantLog.isGranted(sessionId, current.get(next).getId())) {
+            next++;
+        }
+        return next;
+    }
+
+    /**
+     * Cleans up milestone tracking data when a session ends for good.
+     *
+     * @param session The session
+     * @param endTime When the player left
+     */
+    @Override
+    public void onSessionEnd(PlayerSession session, long endTime) {
         // Remove milestone data to free memory
-        playerMilestones.remove(playerId);
+        nextMilestoneIndex.remove(session.getPlayerId());
+        grantLog.forgetSession(session.getSessionId());
+        lifetimeCursors.remove(session.getPlayerId());
+
+        RecurringState state = recurringStates.remove(session.getPlayerId());
+        if (state != null) {
+            state.cancel();
+        }
     }
 
     /**
@@ -223,9 +744,10 @@ public class MilestoneManager implements Listener {
 
         // Reload milestones
         loadMilestones();
+        resetRecurring();
 
         // Restart task if enabled
-        if (enabled && !milestones.isEmpty()) {
+        if (enabled && (!milestones.isEmpty() || !lifetimeMilestones.isEmpty() || !streakMilestones.isEmpty())) {
             startCheckTask();
         }
 
@@ -243,7 +765,12 @@ public class MilestoneManager implements Listener {
             checkTask.cancel();
             checkTask = null;
         }
-        playerMilestones.clear();
+        nextMilestoneIndex.clear();
+        lifetimeCursors.clear();
+        for (RecurringState state : recurringStates.values()) {
+            state.cancel();
+        }
+        recurringStates.clear();
     }
 
     /**
@@ -263,4 +790,26 @@ public class MilestoneManager implements Listener {
     public boolean isEnabled() {
         return enabled;
     }
+
+    /**
+     * A player's progress through the recurring milestones.
+     */
+    private static final class RecurringState {
+        final List<Milestone> milestones;
+        // Repetitions already granted, per milestone
+        final int[] fired;
+        ScheduledTask task;
+
+        RecurringState(List<Milestone> milestones) {
+            this.milestones = milestones;
+            this.fired = new int[milestones.size()];
+        }
+
+        synchronized void cancel() {
+            if (task != null) {
+                task.cancel();
+                task = null;
+            }
+        }
+    }
 }
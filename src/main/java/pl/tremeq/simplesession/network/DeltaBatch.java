@@ -0,0 +1,120 @@
+package pl.tremeq.simplesession.network;
+
+import pl.tremeq.simplesession.storage.VarInts;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One message of session deltas as sent over a {@link NetworkTransport}.
+ *
+ * Wire format: version byte, sender server ID, flags byte, varint delta
+ * count, then the deltas. A tick's deltas are split into as many messages
+ * as needed to keep each one below {@link #MAX_BATCH_BYTES}.
+ *
+ * @author TremeQ
+ */
+final class DeltaBatch {
+
+    static final int VERSION = 1;
+    // Plugin messages are limited to 32 KiB, keep batches well below
+    static final int MAX_BATCH_BYTES = 30_000;
+    private static final int FLAG_HELLO = 1;
+
+    final String sender;
+    final boolean hello;
+    final List<SessionDelta> deltas;
+
+    private DeltaBatch(String sender, boolean hello, List<SessionDelta> deltas) {
+        this.sender = sender;
+        this.hello = hello;
+        this.deltas = deltas;
+    }
+
+    /**
+     * Encodes deltas into messages of at most {@link #MAX_BATCH_BYTES} of deltas each.
+     * Only the first message carries the hello flag. Always returns at least one message.
+     *
+     * @param sender This server's ID
+     * @param hello Whether this server just (re)started
+     * @param deltas Deltas in the order they happened
+     * @return Encoded messages, to be sent in order
+     */
+    static List<byte[]> encode(String sender, boolean hello, List<SessionDelta> deltas) {
+        List<byte[]> messages = new ArrayList<>();
+        int from = 0;
+        do {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            List<byte[]> records = new ArrayList<>();
+            int size = 0;
+            int to = from;
+            try {
+                while (to < deltas.size()) {
+                    ByteArrayOutputStream record = new ByteArrayOutputStream(64);
+                    deltas.get(to).write(new DataOutputStream(record));
+                    if (size > 0 && size + record.size() > MAX_BATCH_BYTES) {
+                        break;
+                    }
+                    records.add(record.toByteArray());
+                    size += record.size();
+                    to++;
+                }
+
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeByte(VERSION);
+                out.writeUTF(sender);
+                out.writeByte(hello ? FLAG_HELLO : 0);
+                VarInts.writeVarLong(out, records.size());
+                for (byte[] record : records) {
+                    out.write(record);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e); // In-memory stream
+            }
+
+            messages.add(bytes.toByteArray());
+            hello = false;
+            from = to;
+        } while (from < deltas.size());
+        return messages;
+    }
+
+    /**
+     * Gets the format version of a message without decoding it.
+     *
+     * @param message Encoded message
+     * @return Version, or -1 if the message is empty
+     */
+    static int version(byte[] message) {
+        return message.length > 0 ? message[0] & 0xFF : -1;
+    }
+
+    /**
+     * Decodes a message of the current {@link #VERSION}.
+     *
+     * @param message Encoded message
+     * @return The decoded batch
+     * @throws IOException If the message is malformed or of another version
+     */
+    static DeltaBatch decode(byte[] message) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(message))) {
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported batch version " + version);
+            }
+            String sender = in.readUTF();
+            boolean hello = (in.readUnsignedByte() & FLAG_HELLO) != 0;
+            long count = VarInts.readVarLong(in);
+            List<SessionDelta> deltas = new ArrayList<>();
+            for (long i = 0; i < count; i++) {
+                deltas.add(SessionDelta.read(in));
+            }
+            return new DeltaBatch(sender, hello, deltas);
+        }
+    }
+}
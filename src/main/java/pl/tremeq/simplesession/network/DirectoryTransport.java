@@ -0,0 +1,157 @@
+package pl.tremeq.simplesession.network;
+
+import pl.tremeq.simplesession.SimpleSession;
+import pl.tremeq.simplesession.scheduler.ScheduledTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * {@link NetworkTransport} over a directory shared by all servers.
+ *
+ * Every batch becomes one file named "time-sequence-server.batch", written
+ * to a temporary name first and then renamed, so readers never see half a
+ * batch. Servers poll the directory on the IO thread, read files they
+ * haven't seen yet in name (time) order and delete their own files once
+ * everyone had time to read them.
+ *
+ * @author TremeQ
+ */
+public class DirectoryTransport implements NetworkTransport {
+
+    private static final String SUFFIX = ".batch";
+    private static final long RETENTION_MILLIS = 60_000L;
+
+    private final SimpleSession plugin;
+    private final File directory;
+    private final String ownSuffix;
+    private final long pollTicks;
+    private final AtomicBoolean pollQueued = new AtomicBoolean();
+
+    // IO thread only
+    private final Set<String> seen = new HashSet<>();
+    private boolean primed;
+    private int sequence;
+
+    private volatile Consumer<byte[]> receiver;
+    private ScheduledTask pollTask;
+
+    /**
+     * Creates the transport.
+     *
+     * @param plugin The main plugin instance
+     * @param directory The shared directory
+     * @param serverId ID of this server
+     * @param pollTicks How often to look for new batches, in ticks
+     */
+    public DirectoryTransport(SimpleSession plugin, File directory, String serverId, long pollTicks) {
+        this.plugin = plugin;
+        this.directory = directory;
+        // Server IDs end up in file names
+        this.ownSuffix = "-" + serverId.replaceAll("[^A-Za-z0-9_.-]", "_") + SUFFIX;
+        this.pollTicks = Math.max(1L, pollTicks);
+    }
+
+    @Override
+    public void start(Consumer<byte[]> receiver) {
+        this.receiver = receiver;
+        plugin.getIoExecutor().execute(() -> {
+            if (!directory.exists() && !directory.mkdirs()) {
+                plugin.getLogger().warning("Could not create network directory " + directory.getPath());
+            }
+        });
+        pollTask = plugin.getTaskScheduler().runTimer(() -> {
+            // Don't pile up polls behind slow IO
+            if (pollQueued.compareAndSet(false, true)) {
+                plugin.getIoExecutor().execute(this::poll);
+            }
+        }, pollTicks, pollTicks);
+    }
+
+    @Override
+    public void send(byte[] batch) {
+        long now = System.currentTimeMillis();
+        plugin.getIoExecutor().execute(() -> {
+            String name = String.format("%013d-%06d%s", now, sequence, ownSuffix);
+            sequence = (sequence + 1) % 1_000_000;
+
+            File temp = new File(directory, name + ".tmp");
+            try {
+                Files.write(temp.toPath(), batch);
+                Files.move(temp.toPath(), new File(directory, name).toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not write network batch " + name + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Reads new batches and deletes old own ones. Runs on the IO thread.
+     */
+    private void poll() {
+        pollQueued.set(false);
+        String[] names = directory.list((dir, name) -> name.endsWith(SUFFIX));
+        if (names == null) {
+            return;
+        }
+        Arrays.sort(names);
+
+        long expired = System.currentTimeMillis() - RETENTION_MILLIS;
+        Set<String> present = new HashSet<>(names.length * 2);
+        for (String name : names) {
+            present.add(name);
+            boolean own = name.endsWith(ownSuffix);
+
+            // Batches already there on startup are history - only newer ones are read
+            if (seen.add(name) && primed && !own) {
+                read(name);
+            }
+            if (own && batchTime(name) < expired) {
+                File file = new File(directory, name);
+                if (!file.delete()) {
+                    plugin.getLogger().warning("Could not delete old network batch " + name);
+                }
+            }
+        }
+        seen.retainAll(present);
+        primed = true;
+    }
+
+    private void read(String name) {
+        Consumer<byte[]> current = receiver;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.accept(Files.readAllBytes(new File(directory, name).toPath()));
+        } catch (IOException e) {
+            // Deleted by its server in the meantime - it was too old anyway
+            plugin.getLogger().warning("Could not read network batch " + name + ": " + e.getMessage());
+        }
+    }
+
+    private static long batchTime(String name) {
+        int dash = name.indexOf('-');
+        try {
+            return dash > 0 ? Long.parseLong(name.substring(0, dash)) : Long.MAX_VALUE;
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (pollTask != null) {
+            pollTask.cancel();
+            pollTask = null;
+        }
+        receiver = null;
+    }
+}
@@ -0,0 +1,66 @@
+package pl.tremeq.simplesession.network;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * {@link NetworkTransport} that delivers batches inside this JVM.
+ *
+ * Every transport joined to the same {@link Hub} receives the batches of
+ * the others, synchronously. Meant for testing several sync instances
+ * without a proxy.
+ *
+ * @author TremeQ
+ */
+public class InMemoryTransport implements NetworkTransport {
+
+    /**
+     * A group of in-memory transports that see each other's batches.
+     */
+    public static final class Hub {
+
+        /** Hub used when the transport is picked in config.yml. */
+        public static final Hub DEFAULT = new Hub();
+
+        private final List<InMemoryTransport> members = new CopyOnWriteArrayList<>();
+
+        void deliver(InMemoryTransport sender, byte[] batch) {
+            for (InMemoryTransport member : members) {
+                Consumer<byte[]> receiver = member.receiver;
+                if (member != sender && receiver != null) {
+                    receiver.accept(batch.clone());
+                }
+            }
+        }
+    }
+
+    private final Hub hub;
+    private volatile Consumer<byte[]> receiver;
+
+    /**
+     * Creates a transport on a hub.
+     *
+     * @param hub The hub to join
+     */
+    public InMemoryTransport(Hub hub) {
+        this.hub = hub;
+    }
+
+    @Override
+    public void start(Consumer<byte[]> receiver) {
+        this.receiver = receiver;
+        hub.members.add(this);
+    }
+
+    @Override
+    public void send(byte[] batch) {
+        hub.deliver(this, batch);
+    }
+
+    @Override
+    public void close() {
+        hub.members.remove(this);
+        receiver = null;
+    }
+}
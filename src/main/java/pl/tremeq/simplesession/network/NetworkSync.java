@@ -0,0 +1,333 @@
+package pl.tremeq.simplesession.network;
+
+import org.bukkit.entity.Player;
+import pl.tremeq.simplesession.SimpleSession;
+import pl.tremeq.simplesession.debug.DebugRecorder;
+import pl.tremeq.simplesession.manager.PlayerSession;
+import pl.tremeq.simplesession.manager.SessionListener;
+import pl.tremeq.simplesession.milestone.MilestoneManager;
+import pl.tremeq.simplesession.scheduler.ScheduledTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Keeps sessions going when players switch servers behind a proxy.
+ *
+ * Session changes are queued as small deltas and sent once per tick as one
+ * batch over a {@link NetworkTransport}. When a player leaves, a handoff
+ * with the session's start time, idle time and milestone progress goes out;
+ * every other server parks it in its grace window, so joining one of them
+ * resumes the session instead of starting a new one. Starts from all
+ * servers also feed a network-wide session leaderboard.
+ *
+ * @author TremeQ
+ */
+public class NetworkSync implements SessionListener {
+
+    /**
+     * A session somewhere on the network.
+     */
+    public static final class Entry {
+        private final UUID playerId;
+        private final String playerName;
+        private final long startTime;
+        private final String serverId;
+
+        Entry(UUID playerId, String playerName, long startTime, String serverId) {
+            this.playerId = playerId;
+            this.playerName = playerName;
+            this.startTime = startTime;
+            this.serverId = serverId;
+        }
+
+        public UUID getPlayerId() {
+            return playerId;
+        }
+
+        public String getPlayerName() {
+            return playerName;
+        }
+
+        public long getStartTime() {
+            return startTime;
+        }
+
+        public String getServerId() {
+            return serverId;
+        }
+    }
+
+    private final SimpleSession plugin;
+    private final String serverId;
+    private final NetworkTransport transport;
+
+    private final Object pendingLock = new Object();
+    private List<SessionDelta> pending = new ArrayList<>();
+    private boolean helloPending = true;
+
+    // Network sessions, and the same ordered by start time - oldest (longest) first
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Entry> entryOrder = new ConcurrentSkipListSet<>(
+            Comparator.comparingLong(Entry::getStartTime).thenComparing(Entry::getPlayerId));
+
+    private ScheduledTask flushTask;
+    private volatile boolean closing;
+
+    /**
+     * Creates the sync and starts the transport picked in config.yml.
+     *
+     * @param plugin The main plugin instance
+     */
+    public NetworkSync(SimpleSession plugin) {
+        this.plugin = plugin;
+        this.serverId = plugin.getConfig().getString("network.server-id", "server");
+        this.transport = createTransport(plugin, serverId);
+
+        plugin.getSessionManager().addListener(this);
+        for (PlayerSession session : plugin.getSessionManager().getSessions()) {
+            putEntry(new Entry(session.getPlayerId(), session.getPlayerName(), session.getStartTime(), serverId));
+            queue(startDelta(session));
+        }
+
+        transport.start(this::receive);
+        // Batch everything queued during a tick into one message
+        flushTask = plugin.getTaskScheduler().runTimer(this::flush, 1L, 1L);
+    }
+
+    private static NetworkTransport createTransport(SimpleSession plugin, String serverId) {
+        String name = plugin.getConfig().getString("network.transport", "plugin-message");
+        switch (name.toLowerCase()) {
+            case "directory":
+                File directory = new File(plugin.getConfig().getString("network.directory", "../simplesession-network"));
+                return new DirectoryTransport(plugin, directory, serverId, plugin.getConfig().getLong("network.poll-interval", 5L));
+
+            case "memory":
+                return new InMemoryTransport(InMemoryTransport.Hub.DEFAULT);
+
+            case "plugin-message":
+                return new PluginMessageTransport(plugin);
+
+            default:
+                plugin.getLogger().warning("Unknown network.transport '" + name + "'. Using plugin-message.");
+                return new PluginMessageTransport(plugin);
+        }
+    }
+
+    @Override
+    public void onSessionStart(PlayerSession session, Player player, boolean resumed) {
+        putEntry(new Entry(session.getPlayerId(), session.getPlayerName(), session.getStartTime(), serverId));
+        queue(startDelta(session));
+    }
+
+    @Override
+    public void onSessionPark(PlayerSession session, long quitTime) {
+        removeEntry(session.getPlayerId(), serverId);
+        queue(handoffDelta(session, quitTime));
+    }
+
+    @Override
+    public void onSessionHandoff(PlayerSession session, long endTime) {
+        // Continues elsewhere - the other server announced it already
+        removeEntry(session.getPlayerId(), serverId);
+    }
+
+    @Override
+    public void onSessionEnd(PlayerSession session, long endTime) {
+        removeEntry(session.getPlayerId(), serverId);
+        if (!closing) {
+            queue(new SessionDelta(SessionDelta.Type.END, session.getPlayerId(), session.getSessionId(),
+                    null, 0L, 0L, 0L, 0));
+        }
+    }
+
+    private SessionDelta startDelta(PlayerSession session) {
+        long now = System.currentTimeMillis();
+        return new SessionDelta(SessionDelta.Type.START, session.getPlayerId(), session.getSessionId(),
+                session.getPlayerName(), session.getStartTime(), session.getIdleDuration(now), 0L, 0);
+    }
+
+    private SessionDelta handoffDelta(PlayerSession session, long quitTime) {
+        MilestoneManager milestoneManager = plugin.getMilestoneManager();
+        int milestoneIndex = milestoneManager != null ? milestoneManager.getNextMilestoneIndex(session.getPlayerId()) : 0;
+        return new SessionDelta(SessionDelta.Type.HANDOFF, session.getPlayerId(), session.getSessionId(),
+                session.getPlayerName(), session.getStartTime(), session.getIdleDuration(quitTime),
+                Math.max(quitTime, session.getStartTime()), milestoneIndex);
+    }
+
+    private void queue(SessionDelta delta) {
+        synchronized (pendingLock) {
+            pending.add(delta);
+        }
+    }
+
+    /**
+     * Sends everything queued since the last tick. Runs every tick.
+     */
+    private void flush() {
+        List<SessionDelta> batch;
+        boolean hello;
+        synchronized (pendingLock) {
+            if (pending.isEmpty() && !helloPending) {
+                return;
+            }
+            batch = pending;
+            pending = new ArrayList<>();
+            hello = helloPending;
+            helloPending = false;
+        }
+
+        // Split into messages of at most MAX_BATCH_BYTES
+        for (byte[] message : DeltaBatch.encode(serverId, hello, batch)) {
+            transport.send(message);
+        }
+    }
+
+    /**
+     * Receives a batch from the transport, on any thread.
+     */
+    private void receive(byte[] batch) {
+        plugin.getTaskScheduler().run(() -> apply(batch));
+    }
+
+    private void apply(byte[] message) {
+        int version = DeltaBatch.version(message);
+        if (version != DeltaBatch.VERSION) {
+            plugin.getLogger().warning("Ignoring network batch of version " + version + " - are all servers on the same SimpleSession version?");
+            return;
+        }
+        DeltaBatch batch;
+        try {
+            batch = DeltaBatch.decode(message);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Malformed network batch: " + e.getMessage());
+            return;
+        }
+        String sender = batch.sender;
+        boolean hello = batch.hello;
+        List<SessionDelta> deltas = batch.deltas;
+
+        if (sender.equals(serverId)) {
+            return; // Our own batch
+        }
+
+        if (hello) {
+            // The sender (re)started - forget what it had and tell it about our sessions
+            removeServerEntries(sender);
+            for (PlayerSession session : plugin.getSessionManager().getSessions()) {
+                queue(startDelta(session));
+            }
+        }
+
+        for (SessionDelta delta : deltas) {
+            switch (delta.type) {
+                case START:
+                    putEntry(new Entry(delta.playerId, delta.playerName, delta.startTime, sender));
+                    plugin.getSessionManager().receiveTakeover(delta.playerId, delta.sessionId);
+                    break;
+
+                case HANDOFF:
+                    removeEntry(delta.playerId, sender);
+                    plugin.getSessionManager().receiveHandoff(new PlayerSession(delta.playerId, delta.sessionId,
+                            delta.playerName, delta.startTime, delta.idleMillis, delta.milestoneIndex), delta.quitTime);
+                    break;
+
+                case END:
+                    removeEntry(delta.playerId, sender);
+                    break;
+            }
+        }
+
+        plugin.getDebugRecorder().record(DebugRecorder.Category.SESSION,
+                "Applied network batch from %1$s with %2$d changes", sender, deltas.size());
+    }
+
+    private synchronized void removeServerEntries(String server) {
+        for (Entry entry : entries.values()) {
+            if (entry.serverId.equals(server) && entries.remove(entry.playerId, entry)) {
+                entryOrder.remove(entry);
+            }
+        }
+    }
+
+    private synchronized void putEntry(Entry entry) {
+        Entry previous = entries.put(entry.playerId, entry);
+        if (previous != null) {
+            entryOrder.remove(previous);
+        }
+        entryOrder.add(entry);
+    }
+
+    private synchronized void removeEntry(UUID playerId, String server) {
+        Entry entry = entries.get(playerId);
+        if (entry != null && entry.serverId.equals(server) && entries.remove(playerId, entry)) {
+            entryOrder.remove(entry);
+        }
+    }
+
+    /**
+     * Gets the network session at a leaderboard position.
+     *
+     * @param position Position (1 = longest session on the network)
+     * @return The entry, or null if there are fewer sessions
+     */
+    public Entry getTopEntry(int position) {
+        if (position < 1) {
+            return null;
+        }
+        Iterator<Entry> iterator = entryOrder.iterator();
+        for (int i = 1; iterator.hasNext(); i++) {
+            Entry entry = iterator.next();
+            if (i == position) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the number of sessions on the whole network.
+     *
+     * @return Number of network sessions
+     */
+    public int getNetworkSessionCount() {
+        return entries.size();
+    }
+
+    /**
+     * Gets this server's ID on the network.
+     *
+     * @return Server ID
+     */
+    public String getServerId() {
+        return serverId;
+    }
+
+    /**
+     * Hands off every online session and stops syncing.
+     * Called before sessions are cleared on disable, so players moved to
+     * another server by the proxy keep their session there.
+     */
+    public void shutdown() {
+        closing = true;
+        long now = System.currentTimeMillis();
+        for (PlayerSession session : plugin.getSessionManager().getSessions()) {
+            queue(handoffDelta(session, now));
+        }
+        flush();
+
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        transport.close();
+    }
+}
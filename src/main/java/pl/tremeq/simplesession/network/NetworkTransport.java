@@ -0,0 +1,35 @@
+package pl.tremeq.simplesession.network;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries session delta batches between the servers of a network.
+ *
+ * A transport only moves opaque byte arrays. Batches sent by one server
+ * should reach every other server in the order they were sent; a server
+ * may also receive its own batches, which are ignored.
+ *
+ * @author TremeQ
+ */
+public interface NetworkTransport {
+
+    /**
+     * Starts receiving batches.
+     *
+     * @param receiver Called with every received batch, from any thread
+     */
+    void start(Consumer<byte[]> receiver);
+
+    /**
+     * Sends a batch to the other servers. Must not block on IO.
+     * Called from the main thread (global region on Folia).
+     *
+     * @param batch Encoded batch
+     */
+    void send(byte[] batch);
+
+    /**
+     * Stops receiving and releases resources.
+     */
+    void close();
+}
@@ -0,0 +1,97 @@
+package pl.tremeq.simplesession.network;
+
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.messaging.Messenger;
+import org.bukkit.plugin.messaging.PluginMessageListener;
+import pl.tremeq.simplesession.SimpleSession;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * {@link NetworkTransport} over proxy plugin messaging.
+ *
+ * Uses the BungeeCord "Forward" sub-channel, which both BungeeCord and
+ * Velocity (with bungee-plugin-message-channel enabled) relay to every
+ * other backend. Plugin messages travel over a player connection, so a
+ * server with nobody online can neither send nor receive.
+ *
+ * @author TremeQ
+ */
+public class PluginMessageTransport implements NetworkTransport, PluginMessageListener {
+
+    private static final String CHANNEL = "BungeeCord";
+    private static final String SUBCHANNEL = "SimpleSession";
+
+    private final SimpleSession plugin;
+    private volatile Consumer<byte[]> receiver;
+
+    /**
+     * Creates the transport.
+     *
+     * @param plugin The main plugin instance
+     */
+    public PluginMessageTransport(SimpleSession plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public void start(Consumer<byte[]> receiver) {
+        this.receiver = receiver;
+        Messenger messenger = plugin.getServer().getMessenger();
+        messenger.registerOutgoingPluginChannel(plugin, CHANNEL);
+        messenger.registerIncomingPluginChannel(plugin, CHANNEL, this);
+    }
+
+    @Override
+    public void send(byte[] batch) {
+        Iterator<? extends Player> players = plugin.getServer().getOnlinePlayers().iterator();
+        if (!players.hasNext()) {
+            return; // No connection to the proxy
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(batch.length + 32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF("Forward");
+            out.writeUTF("ALL");
+            out.writeUTF(SUBCHANNEL);
+            out.writeShort(batch.length);
+            out.write(batch);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // In-memory stream
+        }
+        players.next().sendPluginMessage(plugin, CHANNEL, bytes.toByteArray());
+    }
+
+    @Override
+    public void onPluginMessageReceived(String channel, Player player, byte[] message) {
+        Consumer<byte[]> current = receiver;
+        if (!CHANNEL.equals(channel) || current == null) {
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(message))) {
+            if (!SUBCHANNEL.equals(in.readUTF())) {
+                return;
+            }
+            byte[] batch = new byte[in.readUnsignedShort()];
+            in.readFully(batch);
+            current.accept(batch);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Malformed network sync message: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        receiver = null;
+        Messenger messenger = plugin.getServer().getMessenger();
+        messenger.unregisterIncomingPluginChannel(plugin, CHANNEL);
+        messenger.unregisterOutgoingPluginChannel(plugin, CHANNEL);
+    }
+}
@@ -0,0 +1,100 @@
+package pl.tremeq.simplesession.network;
+
+import pl.tremeq.simplesession.storage.VarInts;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * One session change sent between servers.
+ *
+ * Wire format: type byte, player UUID and session UUID as two longs each,
+ * then the fields of the type. Times are varints, the quit time as an
+ * offset from the start time, so a record is around 50 bytes.
+ *
+ * @author TremeQ
+ */
+final class SessionDelta {
+
+    enum Type {
+        /** Session started or resumed on the sender. */
+        START,
+        /** Player left the sender - the session may continue elsewhere. */
+        HANDOFF,
+        /** Session ended for good on the sender. */
+        END
+    }
+
+    final Type type;
+    final UUID playerId;
+    final String sessionId;
+    final String playerName;
+    final long startTime;
+    final long idleMillis;
+    final long quitTime;
+    final int milestoneIndex;
+
+    SessionDelta(Type type, UUID playerId, String sessionId, String playerName,
+                 long startTime, long idleMillis, long quitTime, int milestoneIndex) {
+        this.type = type;
+        this.playerId = playerId;
+        this.sessionId = sessionId;
+        this.playerName = playerName;
+        this.startTime = startTime;
+        this.idleMillis = idleMillis;
+        this.quitTime = quitTime;
+        this.milestoneIndex = milestoneIndex;
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeByte(type.ordinal());
+        writeUuid(out, playerId);
+        writeUuid(out, UUID.fromString(sessionId));
+        if (type == Type.END) {
+            return;
+        }
+
+        out.writeUTF(playerName);
+        VarInts.writeVarLong(out, startTime);
+        VarInts.writeVarLong(out, idleMillis);
+        if (type == Type.HANDOFF) {
+            VarInts.writeVarLong(out, quitTime - startTime);
+            VarInts.writeVarLong(out, milestoneIndex);
+        }
+    }
+
+    static SessionDelta read(DataInput in) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        if (ordinal >= Type.values().length) {
+            throw new IOException("Unknown delta type " + ordinal);
+        }
+        Type type = Type.values()[ordinal];
+        UUID playerId = readUuid(in);
+        String sessionId = readUuid(in).toString();
+        if (type == Type.END) {
+            return new SessionDelta(type, playerId, sessionId, null, 0L, 0L, 0L, 0);
+        }
+
+        String playerName = in.readUTF();
+        long startTime = VarInts.readVarLong(in);
+        long idleMillis = VarInts.readVarLong(in);
+        long quitTime = 0L;
+        int milestoneIndex = 0;
+        if (type == Type.HANDOFF) {
+            quitTime = startTime + VarInts.readVarLong(in);
+            milestoneIndex = (int) VarInts.readVarLong(in);
+        }
+        return new SessionDelta(type, playerId, sessionId, playerName, startTime, idleMillis, quitTime, milestoneIndex);
+    }
+
+    private static void writeUuid(DataOutput out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInput in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+}
@@ -1,11 +1,20 @@
 package pl.tremeq.simplesession.placeholder;
 
 import me.clip.placeholderapi.expansion.PlaceholderExpansion;
+import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import pl.tremeq.simplesession.SimpleSession;
+import pl.tremeq.simplesession.leaderboard.AllTimeRanking;
+import pl.tremeq.simplesession.leaderboard.Period;
+import pl.tremeq.simplesession.leaderboard.PeriodLeaderboard;
 import pl.tremeq.simplesession.manager.SessionManager;
+import pl.tremeq.simplesession.milestone.Milestone;
+import pl.tremeq.simplesession.milestone.MilestoneManager;
+import pl.tremeq.simplesession.network.NetworkSync;
+import pl.tremeq.simplesession.stats.SessionHistogram;
+import pl.tremeq.simplesession.stats.SessionStatistics;
 
 import java.util.UUID;
 
@@ -27,7 +36,40 @@ import java.util.UUID;
  * - %simplesession_formatted_full% - Formatted time using full format
  * - %simplesession_formatted_short% - Formatted time using short format
  * - %simplesession_formatted_custom% - Formatted time using custom format
- * - %simplesession_rank% - Player's rank in current session leaderboard
+ * - %simplesession_rank% - Player's rank in current session leaderboard (or all-time, see leaderboard.rank-mode)
+ * - %simplesession_alltime_rank% - Player's all-time playtime rank among everyone who ever joined
+ * - %simplesession_active_seconds% - Remaining active seconds (0-59)
+ * - %simplesession_active_minutes% - Remaining active minutes (0-59)
+ * - %simplesession_active_hours% - Remaining active hours (0-23)
+ * - %simplesession_active_days% - Total active days
+ * - %simplesession_active_total_seconds% - Active (non-AFK) time in seconds
+ * - %simplesession_active_total_minutes% - Active (non-AFK) time in minutes
+ * - %simplesession_active_total_hours% - Active (non-AFK) time in hours
+ * - %simplesession_active_formatted% - Active time using default format (also _full, _short, _custom)
+ * - %simplesession_afk% - true if the player is idle, false otherwise
+ * - %simplesession_world% - World the player is in
+ * - %simplesession_world_seconds% - Time in the current world in seconds
+ * - %simplesession_world_formatted% - Time in the current world using default format
+ * - %simplesession_region% - Configured region the player is in (empty outside every region)
+ * - %simplesession_region_seconds% - Time in the current region in seconds
+ * - %simplesession_region_formatted% - Time in the current region using default format
+ * - %simplesession_server_average% - Average session time of online players
+ * - %simplesession_server_longest% - Longest session time of online players
+ * - %simplesession_server_total% - Sum of all online players' session times
+ * - %simplesession_stats_<hour|day|all>_p<percentile>% - Finished session length percentile (e.g. stats_day_p90)
+ * - %simplesession_stats_<hour|day|all>_count% - Number of finished sessions in the window
+ * - %simplesession_top_<daily|weekly|monthly|alltime>_<position>_<name|time>% - Period playtime leaderboard
+ * - %simplesession_playtime_<daily|weekly|monthly|alltime>% - Player's playtime in the period
+ * - %simplesession_streak% - Consecutive days the player joined on (0 once a day is missed)
+ * - %simplesession_best_streak% - Player's longest join streak in days
+ * - %simplesession_last_session% - Length of the player's last finished session
+ * - %simplesession_avg_session% - Average length of the player's last finished sessions
+ * - %simplesession_sessions_today% - Number of sessions the player finished today
+ * - %simplesession_network_top_<position>_<name|time>% - Longest current sessions on the whole network
+ * - %simplesession_network_online% - Number of sessions on the whole network
+ * - %simplesession_next_milestone% - Name of the next session milestone (empty if all are reached)
+ * - %simplesession_next_milestone_in% - Time left until the next session milestone
+ * - %simplesession_milestone_progress% - Progress towards the next session milestone in percent
  *
  * @author TremeQ
  */
@@ -87,6 +129,21 @@ public class SimpleSessionExpansion extends PlaceholderExpansion {
         return true;
     }
 
+    /**
+     * Handles placeholder requests for online and offline players.
+     * Playtime, streaks, recent sessions and all-time rank work for offline players too; their profile
+     * is read from a cache and loaded in the background on a miss.
+     *
+     * @param player The player for which the placeholder is being requested
+     * @param params The placeholder parameters (after %simplesession_)
+     * @return The placeholder value, or null if invalid
+     */
+    @Override
+    @Nullable
+    public String onRequest(OfflinePlayer player, @NotNull String params) {
+        return handleRequest(player != null ? player.getUniqueId() : null, params);
+    }
+
     /**
      * Handles placeholder requests.
      *
@@ -97,6 +154,17 @@ public class SimpleSessionExpansion extends PlaceholderExpansion {
     @Override
     @Nullable
     public String onPlaceholderRequest(Player player, @NotNull String params) {
+        return handleRequest(player != null ? player.getUniqueId() : null, params);
+    }
+
+    /**
+     * Resolves a placeholder.
+     *
+     * @param playerId UUID of the player, or null if there is no player
+     * @param params The placeholder parameters (after %simplesession_)
+     * @return The placeholder value, or null if invalid
+     */
+    private String handleRequest(UUID playerId, String params) {
         SessionManager sessionManager = plugin.getSessionManager();
         String lowerParams = params.toLowerCase();
 
@@ -105,12 +173,67 @@ public class SimpleSessionExpansion extends PlaceholderExpansion {
             return handleTopPlaceholder(lowerParams, sessionManager);
         }
 
+        // Session length statistics (don't require player)
+        if (lowerParams.startsWith("stats_")) {
+            return handleStatsPlaceholder(lowerParams, sessionManager);
+        }
+
+        // Network-wide sessions (don't require player)
+        if (lowerParams.startsWith("network_")) {
+            return handleNetworkPlaceholder(lowerParams, sessionManager);
+        }
+
+        // Server-wide aggregates (don't require player)
+        switch (lowerParams) {
+            case "server_average":
+                return sessionManager.formatDuration(sessionManager.getServerAverageSeconds());
+
+            case "server_longest":
+                return sessionManager.formatDuration(sessionManager.getServerLongestSeconds());
+
+            case "server_total":
+                return sessionManager.formatDuration(sessionManager.getServerTotalSeconds());
+        }
+
         // All other placeholders require a player
-        if (player == null) {
+        if (playerId == null) {
             return "";
         }
 
-        UUID playerId = player.getUniqueId();
+        if (lowerParams.equals("afk")) {
+            return String.valueOf(sessionManager.isIdle(playerId));
+        }
+
+        if (lowerParams.equals("alltime_rank")
+                || (lowerParams.equals("rank") && plugin.getPlaytimeTracker().isAllTimeRankMode())) {
+            int rank = plugin.getPlaytimeTracker().getRanking().getRank(playerId);
+            return rank > 0 ? String.valueOf(rank) : "N/A";
+        }
+
+        if (lowerParams.startsWith("playtime_")) {
+            Period period = Period.fromName(lowerParams.substring("playtime_".length()));
+            if (period == null) {
+                return null;
+            }
+            long playtime = plugin.getPlaytimeTracker().getPlaytime(playerId, period);
+            if (playtime < 0) {
+                // Offline profile is being loaded - shown until the next refresh
+                return plugin.getConfig().getString("playtime.cache.loading-text", "...");
+            }
+            return sessionManager.formatDuration(playtime / 1000);
+        }
+
+        if (lowerParams.equals("streak") || lowerParams.equals("best_streak")) {
+            int streak = lowerParams.equals("streak")
+                    ? plugin.getPlaytimeTracker().getStreak(playerId)
+                    : plugin.getPlaytimeTracker().getBestStreak(playerId);
+            return streak >= 0 ? String.valueOf(streak) : plugin.getConfig().getString("playtime.cache.loading-text", "...");
+        }
+
+        if (lowerParams.equals("last_session") || lowerParams.equals("avg_session")
+                || lowerParams.equals("sessions_today")) {
+            return handleRecentPlaceholder(lowerParams, playerId, sessionManager);
+        }
 
         // Check if player has an active session
         if (!sessionManager.hasActiveSession(playerId)) {
@@ -163,15 +286,282 @@ public class SimpleSessionExpansion extends PlaceholderExpansion {
                 int rank = sessionManager.getPlayerRank(playerId);
                 return rank > 0 ? String.valueOf(rank) : "N/A";
 
+            // Active (non-AFK) time
+            case "active_seconds":
+                return String.valueOf(sessionManager.getActiveSeconds(playerId) % 60);
+
+            case "active_minutes":
+                return String.valueOf((sessionManager.getActiveSeconds(playerId) / 60) % 60);
+
+            case "active_hours":
+                return String.valueOf((sessionManager.getActiveSeconds(playerId) / 3600) % 24);
+
+            case "active_days":
+                return String.valueOf(sessionManager.getActiveSeconds(playerId) / 86400);
+
+            case "active_total_seconds":
+                return String.valueOf(sessionManager.getActiveSeconds(playerId));
+
+            case "active_total_minutes":
+                return String.valueOf(sessionManager.getActiveSeconds(playerId) / 60);
+
+            case "active_total_hours":
+                return String.valueOf(sessionManager.getActiveSeconds(playerId) / 3600);
+
+            case "active_formatted":
+                return sessionManager.formatDuration(sessionManager.getActiveSeconds(playerId));
+
+            case "active_formatted_full":
+                return sessionManager.formatDuration(sessionManager.getActiveSeconds(playerId), "full");
+
+            case "active_formatted_short":
+                return sessionManager.formatDuration(sessionManager.getActiveSeconds(playerId), "short");
+
+            case "active_formatted_custom":
+                return sessionManager.formatDuration(sessionManager.getActiveSeconds(playerId), "custom");
+
+            // Current world and region
+            case "world":
+                return sessionManager.getWorld(playerId);
+
+            case "world_seconds":
+                return String.valueOf(sessionManager.getWorldSeconds(playerId));
+
+            case "world_formatted":
+                return sessionManager.formatDuration(sessionManager.getWorldSeconds(playerId));
+
+            case "region":
+                return sessionManager.getRegion(playerId);
+
+            case "region_seconds":
+                return String.valueOf(sessionManager.getRegionSeconds(playerId));
+
+            case "region_formatted":
+                return sessionManager.formatDuration(sessionManager.getRegionSeconds(playerId));
+
+            // Next session milestone
+            case "next_milestone":
+            case "next_milestone_in":
+            case "milestone_progress":
+                return handleMilestonePlaceholder(lowerParams, playerId, sessionManager);
+
             default:
                 // Return null for unknown placeholders
                 return null;
         }
     }
 
+    /**
+     * Handles placeholders about a player's last finished sessions.
+     *
+     * @param params Lowercase placeholder parameters
+     * @param playerId UUID of the player
+     * @param sessionManager The session manager
+     * @return The placeholder value
+     */
+    private String handleRecentPlaceholder(String params, UUID playerId, SessionManager sessionManager) {
+        long value;
+        switch (params) {
+            case "last_session":
+                value = plugin.getPlaytimeTracker().getLastSessionMillis(playerId);
+                break;
+            case "avg_session":
+                value = plugin.getPlaytimeTracker().getAverageSessionMillis(playerId);
+                break;
+            default:
+                value = plugin.getPlaytimeTracker().getSessionsToday(playerId);
+                break;
+        }
+
+        if (value < 0) {
+            return plugin.getConfig().getString("playtime.cache.loading-text", "...");
+        }
+        return params.equals("sessions_today") ? String.valueOf(value) : sessionManager.formatDuration(value / 1000);
+    }
+
+    /**
+     * Handles network session placeholders.
+     * Format: network_online or network_top_<position>_<name|time>
+     *
+     * @param params Lowercase placeholder parameters
+     * @param sessionManager The session manager
+     * @return The placeholder value, or null if invalid
+     */
+    private String handleNetworkPlaceholder(String params, SessionManager sessionManager) {
+        NetworkSync networkSync = plugin.getNetworkSync();
+
+        if (params.equals("network_online")) {
+            return String.valueOf(networkSync != null ? networkSync.getNetworkSessionCount() : 0);
+        }
+
+        String[] parts = params.split("_");
+        if (parts.length != 4 || !parts[1].equals("top")) {
+            return null;
+        }
+
+        int position;
+        try {
+            position = Integer.parseInt(parts[2]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        NetworkSync.Entry entry = networkSync != null ? networkSync.getTopEntry(position) : null;
+        if (entry == null) {
+            return "";
+        }
+
+        switch (parts[3]) {
+            case "name":
+                return entry.getPlayerName();
+
+            case "time":
+                return sessionManager.formatDuration(Math.max(0L, System.currentTimeMillis() - entry.getStartTime()) / 1000);
+
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Handles next milestone placeholders.
+     * Served from the player's cached next milestone index, so no milestone list is scanned.
+     *
+     * @param params Lowercase placeholder parameters
+     * @param playerId UUID of the player
+     * @param sessionManager The session manager
+     * @return The placeholder value
+     */
+    private String handleMilestonePlaceholder(String params, UUID playerId, SessionManager sessionManager) {
+        MilestoneManager milestoneManager = plugin.getMilestoneManager();
+        Milestone next = milestoneManager.getNextMilestone(playerId);
+
+        if (next == null) {
+            // All milestones reached (or milestones disabled)
+            return params.equals("milestone_progress") ? "100" : "";
+        }
+
+        long seconds = milestoneManager.getMilestoneSeconds(playerId);
+        long remaining = Math.max(0L, next.getTimeSeconds() - seconds);
+
+        switch (params) {
+            case "next_milestone":
+                return next.getName();
+
+            case "next_milestone_in":
+                return sessionManager.formatDuration(remaining);
+
+            default:
+                // Progress is measured from the previous milestone, so each step fills from 0 to 100
+                long previous = milestoneManager.getPreviousMilestoneTime(playerId);
+                long span = next.getTimeSeconds() - previous;
+                long done = Math.max(0L, seconds - previous);
+                return String.valueOf(span > 0 ? Math.min(100L, done * 100 / span) : 100L);
+        }
+    }
+
+    /**
+     * Handles period leaderboard placeholders.
+     * Format: top_<period>_<position>_<type> where type is 'name' or 'time'
+     *
+     * @param parts Placeholder parameters split by '_'
+     * @param sessionManager SessionManager instance
+     * @return Placeholder value, or empty string if invalid
+     */
+    private String handlePeriodTopPlaceholder(String[] parts, SessionManager sessionManager) {
+        Period period = Period.fromName(parts[1]);
+        if (period == null) {
+            return "";
+        }
+
+        int position;
+        try {
+            position = Integer.parseInt(parts[2]);
+        } catch (NumberFormatException e) {
+            return "";
+        }
+
+        PeriodLeaderboard.Entry entry = plugin.getPlaytimeTracker().getBoard(period).get(position);
+        if (entry == null && period == Period.ALL_TIME) {
+            // Past the end of the board - ask the all-time ranking
+            entry = getRankedEntry(position);
+        }
+        if (entry == null) {
+            return "";
+        }
+
+        switch (parts[3]) {
+            case "name":
+                return entry.getPlayerName();
+
+            case "time":
+                return sessionManager.formatDuration(entry.getTotalMillis() / 1000);
+
+            default:
+                return "";
+        }
+    }
+
+    /**
+     * Gets the player at an all-time rank from the order-statistic ranking.
+     *
+     * @param position Rank (1 = most playtime)
+     * @return The entry, or null if the rank is empty
+     */
+    private PeriodLeaderboard.Entry getRankedEntry(int position) {
+        AllTimeRanking ranking = plugin.getPlaytimeTracker().getRanking();
+        UUID playerId = ranking.getPlayerAt(position);
+        if (playerId == null) {
+            return null;
+        }
+        String name = plugin.getServer().getOfflinePlayer(playerId).getName();
+        return new PeriodLeaderboard.Entry(playerId, name != null ? name : playerId.toString(), ranking.getPlaytimeAt(position));
+    }
+
+    /**
+     * Handles session length statistics placeholders.
+     * Format: stats_<window>_p<percentile> or stats_<window>_count
+     *
+     * @param params Placeholder parameters
+     * @param sessionManager SessionManager instance
+     * @return Placeholder value, or empty string if invalid
+     */
+    private String handleStatsPlaceholder(String params, SessionManager sessionManager) {
+        String[] parts = params.split("_");
+        if (parts.length != 3) {
+            return "";
+        }
+
+        SessionStatistics.Window window = SessionStatistics.Window.fromName(parts[1]);
+        if (window == null) {
+            return "";
+        }
+
+        SessionHistogram histogram = plugin.getSessionStatistics().getHistogram(window);
+        if (parts[2].equals("count")) {
+            return String.valueOf(histogram.getTotalCount());
+        }
+        if (!parts[2].startsWith("p")) {
+            return "";
+        }
+
+        int percentile;
+        try {
+            percentile = Integer.parseInt(parts[2].substring(1));
+        } catch (NumberFormatException e) {
+            return "";
+        }
+        if (percentile < 1 || percentile > 100) {
+            return "";
+        }
+
+        return sessionManager.formatDuration(histogram.getPercentile(percentile));
+    }
+
     /**
      * Handles top leaderboard placeholders.
-     * Format: top_<position>_<type> where type is 'name' or 'time'
+     * Format: top_<position>_<type> where type is 'name' or 'time',
+     * or top_<period>_<position>_<type> for period leaderboards
      *
      * @param params Placeholder parameters
      * @param sessionManager SessionManager instance
@@ -181,6 +571,11 @@ public class SimpleSessionExpansion extends PlaceholderExpansion {
         // Expected format: top_1_name or top_1_time
         String[] parts = params.split("_");
 
+        // Period leaderboard: top_daily_1_name
+        if (parts.length == 4) {
+            return handlePeriodTopPlaceholder(parts, sessionManager);
+        }
+
         // Validate format: should have exactly 3 parts (top, number, type)
         if (parts.length != 3) {
             return "";
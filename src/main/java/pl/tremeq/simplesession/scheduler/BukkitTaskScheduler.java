@@ -0,0 +1,57 @@
+package pl.tremeq.simplesession.scheduler;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
+import org.bukkit.scheduler.BukkitTask;
+import pl.tremeq.simplesession.SimpleSession;
+
+/**
+ * {@link TaskScheduler} for Paper and Spigot.
+ * Everything runs on the main server thread.
+ *
+ * @author TremeQ
+ */
+public class BukkitTaskScheduler implements TaskScheduler {
+
+    private final SimpleSession plugin;
+
+    /**
+     * Creates a new Bukkit scheduler wrapper.
+     *
+     * @param plugin The main plugin instance
+     */
+    public BukkitTaskScheduler(SimpleSession plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public ScheduledTask runTimer(Runnable task, long delayTicks, long periodTicks) {
+        BukkitTask bukkitTask = Bukkit.getScheduler().runTaskTimer(plugin, task, delayTicks, periodTicks);
+        return bukkitTask::cancel;
+    }
+
+    @Override
+    public void run(Runnable task) {
+        Bukkit.getScheduler().runTask(plugin, task);
+    }
+
+    @Override
+    public void runForEntity(Entity entity, Runnable task) {
+        if (Bukkit.isPrimaryThread()) {
+            task.run();
+        } else {
+            Bukkit.getScheduler().runTask(plugin, task);
+        }
+    }
+
+    @Override
+    public ScheduledTask runLaterForEntity(Entity entity, Runnable task, long delayTicks) {
+        BukkitTask bukkitTask = Bukkit.getScheduler().runTaskLater(plugin, task, Math.max(1L, delayTicks));
+        return bukkitTask::cancel;
+    }
+
+    @Override
+    public boolean isRegionThreaded() {
+        return false;
+    }
+}
@@ -0,0 +1,121 @@
+package pl.tremeq.simplesession.scheduler;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+import pl.tremeq.simplesession.SimpleSession;
+
+import java.lang.reflect.Method;
+import java.util.function.Consumer;
+
+/**
+ * {@link TaskScheduler} for Folia's region-threaded server.
+ *
+ * Global work goes to the global region scheduler and per-player work to
+ * the player's entity scheduler, so it runs on the region thread that owns
+ * the player. The plugin compiles against the Spigot API, so the Folia
+ * scheduler API is resolved reflectively once at startup.
+ *
+ * @author TremeQ
+ */
+public class FoliaTaskScheduler implements TaskScheduler {
+
+    private static final String REGIONIZED_SERVER_CLASS = "io.papermc.paper.threadedregions.RegionizedServer";
+
+    private final SimpleSession plugin;
+    private final Object globalScheduler;
+    private final Method globalRunAtFixedRate;
+    private final Method globalExecute;
+    private final Method entityGetScheduler;
+    private final Method entityExecute;
+    private final Method entityRunDelayed;
+    private final Method isOwnedByCurrentRegion;
+    private final Method taskCancel;
+
+    /**
+     * Creates a new Folia scheduler wrapper.
+     *
+     * @param plugin The main plugin instance
+     * @throws ReflectiveOperationException if the Folia scheduler API is missing
+     */
+    public FoliaTaskScheduler(SimpleSession plugin) throws ReflectiveOperationException {
+        this.plugin = plugin;
+
+        Method getGlobalRegionScheduler = Bukkit.class.getMethod("getGlobalRegionScheduler");
+        this.globalScheduler = getGlobalRegionScheduler.invoke(null);
+
+        Class<?> globalClass = getGlobalRegionScheduler.getReturnType();
+        this.globalRunAtFixedRate = globalClass.getMethod("runAtFixedRate", Plugin.class, Consumer.class, long.class, long.class);
+        this.globalExecute = globalClass.getMethod("execute", Plugin.class, Runnable.class);
+
+        this.entityGetScheduler = Entity.class.getMethod("getScheduler");
+        Class<?> entityClass = entityGetScheduler.getReturnType();
+        this.entityExecute = entityClass.getMethod("execute", Plugin.class, Runnable.class, Runnable.class, long.class);
+        this.entityRunDelayed = entityClass.getMethod("runDelayed", Plugin.class, Consumer.class, Runnable.class, long.class);
+
+        this.isOwnedByCurrentRegion = Bukkit.class.getMethod("isOwnedByCurrentRegion", Entity.class);
+        this.taskCancel = globalRunAtFixedRate.getReturnType().getMethod("cancel");
+    }
+
+    /**
+     * Checks if the server is running Folia.
+     *
+     * @return true if Folia's regionized server class is present
+     */
+    public static boolean isSupported() {
+        try {
+            Class.forName(REGIONIZED_SERVER_CLASS);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public ScheduledTask runTimer(Runnable task, long delayTicks, long periodTicks) {
+        Consumer<Object> consumer = foliaTask -> task.run();
+        // Folia requires an initial delay of at least one tick
+        Object foliaTask = invoke(globalRunAtFixedRate, globalScheduler, plugin, consumer, Math.max(1L, delayTicks), periodTicks);
+        return () -> invoke(taskCancel, foliaTask);
+    }
+
+    @Override
+    public void run(Runnable task) {
+        invoke(globalExecute, globalScheduler, plugin, task);
+    }
+
+    @Override
+    public void runForEntity(Entity entity, Runnable task) {
+        if ((Boolean) invoke(isOwnedByCurrentRegion, null, entity)) {
+            task.run();
+            return;
+        }
+        Object entityScheduler = invoke(entityGetScheduler, entity);
+        // Returns false if the entity was removed - the task is simply dropped
+        invoke(entityExecute, entityScheduler, plugin, task, null, 1L);
+    }
+
+    @Override
+    public ScheduledTask runLaterForEntity(Entity entity, Runnable task, long delayTicks) {
+        Consumer<Object> consumer = foliaTask -> task.run();
+        Object entityScheduler = invoke(entityGetScheduler, entity);
+        Object foliaTask = invoke(entityRunDelayed, entityScheduler, plugin, consumer, null, Math.max(1L, delayTicks));
+        if (foliaTask == null) {
+            return () -> { }; // Entity already removed - nothing was scheduled
+        }
+        return () -> invoke(taskCancel, foliaTask);
+    }
+
+    @Override
+    public boolean isRegionThreaded() {
+        return true;
+    }
+
+    private static Object invoke(Method method, Object target, Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Folia scheduler call failed: " + method.getName(), e);
+        }
+    }
+}
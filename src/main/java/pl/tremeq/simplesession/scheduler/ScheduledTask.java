@@ -0,0 +1,14 @@
+package pl.tremeq.simplesession.scheduler;
+
+/**
+ * Handle to a task scheduled through a {@link TaskScheduler}.
+ *
+ * @author TremeQ
+ */
+public interface ScheduledTask {
+
+    /**
+     * Cancels the task. Does nothing if it already finished or was cancelled.
+     */
+    void cancel();
+}
@@ -0,0 +1,78 @@
+package pl.tremeq.simplesession.scheduler;
+
+import org.bukkit.entity.Entity;
+import pl.tremeq.simplesession.SimpleSession;
+
+/**
+ * Schedules plugin work on the correct thread for the running server.
+ *
+ * On Paper and Spigot everything runs on the main thread. On Folia global
+ * work runs on the global region thread and per-player work on the thread
+ * of the region that owns the player.
+ *
+ * @author TremeQ
+ */
+public interface TaskScheduler {
+
+    /**
+     * Runs a repeating task on the main thread (global region on Folia).
+     *
+     * @param task Task to run
+     * @param delayTicks Delay before the first run in ticks (minimum 1)
+     * @param periodTicks Period between runs in ticks
+     * @return Handle to cancel the task
+     */
+    ScheduledTask runTimer(Runnable task, long delayTicks, long periodTicks);
+
+    /**
+     * Runs a task on the next tick on the main thread (global region on Folia).
+     *
+     * @param task Task to run
+     */
+    void run(Runnable task);
+
+    /**
+     * Runs a task on the thread that owns the entity.
+     * Runs immediately if the current thread already owns it, otherwise schedules it.
+     * The task is dropped if the entity is removed before it runs.
+     *
+     * @param entity Entity that the task works on
+     * @param task Task to run
+     */
+    void runForEntity(Entity entity, Runnable task);
+
+    /**
+     * Runs a task on the thread that owns the entity after a delay.
+     * The task is dropped if the entity is removed before it runs (Folia only).
+     *
+     * @param entity Entity that the task works on
+     * @param task Task to run
+     * @param delayTicks Delay in ticks (minimum 1)
+     * @return Handle to cancel the task
+     */
+    ScheduledTask runLaterForEntity(Entity entity, Runnable task, long delayTicks);
+
+    /**
+     * Checks if the server uses region-threaded scheduling.
+     *
+     * @return true on Folia, false otherwise
+     */
+    boolean isRegionThreaded();
+
+    /**
+     * Creates the scheduler matching the running server.
+     *
+     * @param plugin The main plugin instance
+     * @return Folia scheduler on Folia, Bukkit scheduler otherwise
+     */
+    static TaskScheduler create(SimpleSession plugin) {
+        if (FoliaTaskScheduler.isSupported()) {
+            try {
+                return new FoliaTaskScheduler(plugin);
+            } catch (ReflectiveOperationException e) {
+                plugin.getLogger().severe("Folia detected but its scheduler API could not be loaded: " + e.getMessage());
+            }
+        }
+        return new BukkitTaskScheduler(plugin);
+    }
+}
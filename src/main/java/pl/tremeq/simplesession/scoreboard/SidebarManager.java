@@ -0,0 +1,399 @@
+package pl.tremeq.simplesession.scoreboard;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.scoreboard.Criteria;
+import org.bukkit.scoreboard.DisplaySlot;
+import org.bukkit.scoreboard.Objective;
+import org.bukkit.scoreboard.Scoreboard;
+import org.bukkit.scoreboard.Team;
+import pl.tremeq.simplesession.SimpleSession;
+import pl.tremeq.simplesession.debug.TickMonitor;
+import pl.tremeq.simplesession.leaderboard.PlaytimeTracker;
+import pl.tremeq.simplesession.manager.SessionManager;
+import pl.tremeq.simplesession.scheduler.ScheduledTask;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Renders an optional per-player sidebar and tab list header/footer.
+ *
+ * Lines are rendered once per update. Lines that only use leaderboard
+ * tokens ({top_N}, {top_N_name}, {top_N_time}, {online}) are rendered once
+ * and shared by every viewer; lines with player tokens ({time}, {rank},
+ * {player}) are rendered per viewer. Each sidebar line is a team prefix,
+ * and only lines whose text changed since the last update are sent.
+ * The leaderboard order and session ranks are only read again when
+ * SessionManager's leaderboard version changes (join or quit).
+ *
+ * @author TremeQ
+ */
+public class SidebarManager implements Listener {
+
+    private static final int MAX_LINES = 15;
+    private static final String OBJECTIVE_NAME = "simplesession";
+    private static final String TEAM_PREFIX = "ss_line_";
+
+    private final SimpleSession plugin;
+    private final Map<UUID, Viewer> viewers = new ConcurrentHashMap<>();
+
+    private ScheduledTask updateTask;
+    private boolean sidebarEnabled;
+    private boolean tablistEnabled;
+    private String title;
+    private List<LineTemplate> lines = new ArrayList<>();
+    private String topLineFormat;
+    private LineTemplate header;
+    private LineTemplate footer;
+    private int topSize;
+
+    // Leaderboard order and names as of renderedVersion
+    private long renderedVersion = -1L;
+    private List<Player> sortedPlayers = Collections.emptyList();
+    private String[] topNames = new String[0];
+
+    /**
+     * Creates a new SidebarManager.
+     *
+     * @param plugin The main plugin instance
+     */
+    public SidebarManager(SimpleSession plugin) {
+        this.plugin = plugin;
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        reload();
+    }
+
+    /**
+     * Loads settings from config and (re)starts the update task.
+     */
+    public void reload() {
+        shutdown();
+
+        sidebarEnabled = plugin.getConfig().getBoolean("scoreboard.enabled", false);
+        tablistEnabled = plugin.getConfig().getBoolean("scoreboard.tablist.enabled", false);
+
+        if (!sidebarEnabled && !tablistEnabled) {
+            return;
+        }
+
+        // The scoreboard API is not available on region-threaded servers
+        if (plugin.getTaskScheduler().isRegionThreaded()) {
+            plugin.getLogger().warning("Scoreboard and tab list rendering is not supported on Folia. Disabling.");
+            sidebarEnabled = false;
+            tablistEnabled = false;
+            return;
+        }
+
+        title = color(plugin.getConfig().getString("scoreboard.title", "&6&lSimpleSession"));
+        topLineFormat = color(plugin.getConfig().getString("scoreboard.top-line", "&e{rank}. &f{player} &7{time}"));
+        header = new LineTemplate(color(plugin.getConfig().getString("scoreboard.tablist.header", "")));
+        footer = new LineTemplate(color(plugin.getConfig().getString("scoreboard.tablist.footer", "")));
+
+        List<String> configLines = plugin.getConfig().getStringList("scoreboard.lines");
+        if (configLines.size() > MAX_LINES) {
+            plugin.getLogger().warning("scoreboard.lines has " + configLines.size() + " lines. Only the first " + MAX_LINES + " are shown.");
+            configLines = configLines.subList(0, MAX_LINES);
+        }
+
+        lines = new ArrayList<>(configLines.size());
+        topSize = 0;
+        for (String line : configLines) {
+            LineTemplate template = new LineTemplate(color(line));
+            lines.add(template);
+            topSize = Math.max(topSize, template.maxTopPosition);
+        }
+        topSize = Math.max(topSize, Math.max(header.maxTopPosition, footer.maxTopPosition));
+
+        int interval = plugin.getConfig().getInt("scoreboard.update-interval", 20);
+        if (interval <= 0) {
+            plugin.getLogger().warning("Invalid scoreboard.update-interval (" + interval + "). Using default 20.");
+            interval = 20;
+        }
+
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            addViewer(player);
+        }
+
+        updateTask = plugin.getTaskScheduler().runTimer(this::update, 1L, interval);
+    }
+
+    /**
+     * Stops updates and gives players back the main scoreboard.
+     */
+    public void shutdown() {
+        if (updateTask != null) {
+            updateTask.cancel();
+            updateTask = null;
+        }
+        renderedVersion = -1L;
+
+        for (Viewer viewer : viewers.values()) {
+            Player player = Bukkit.getPlayer(viewer.playerId);
+            if (player == null) continue;
+            if (viewer.scoreboard != null && player.getScoreboard() == viewer.scoreboard) {
+                player.setScoreboard(Bukkit.getScoreboardManager().getMainScoreboard());
+            }
+            if (viewer.lastHeader != null) {
+                player.setPlayerListHeaderFooter("", "");
+            }
+        }
+        viewers.clear();
+    }
+
+    /**
+     * Unregisters listeners and stops updates. Called when the plugin is disabled.
+     */
+    public void disable() {
+        shutdown();
+        HandlerList.unregisterAll(this);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        if (updateTask != null) {
+            addViewer(event.getPlayer());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        viewers.remove(event.getPlayer().getUniqueId());
+    }
+
+    private void addViewer(Player player) {
+        Viewer viewer = new Viewer(player.getUniqueId(), lines.size());
+
+        if (sidebarEnabled) {
+            Scoreboard scoreboard = Bukkit.getScoreboardManager().getNewScoreboard();
+            Objective objective = scoreboard.registerNewObjective(OBJECTIVE_NAME, Criteria.DUMMY, title);
+            objective.setDisplaySlot(DisplaySlot.SIDEBAR);
+
+            // One team per line; the entry is an invisible unique color code
+            for (int i = 0; i < lines.size(); i++) {
+                String entry = ChatColor.values()[i].toString() + ChatColor.RESET;
+                Team team = scoreboard.registerNewTeam(TEAM_PREFIX + i);
+                team.addEntry(entry);
+                objective.getScore(entry).setScore(lines.size() - i);
+                viewer.teams[i] = team;
+            }
+
+            viewer.scoreboard = scoreboard;
+            player.setScoreboard(scoreboard);
+        }
+
+        viewers.put(player.getUniqueId(), viewer);
+    }
+
+    /**
+     * Renders shared lines once, then per-player lines, sending only changes.
+     */
+    private void update() {
+        if (viewers.isEmpty()) {
+            return;
+        }
+
+        long timerStart = plugin.getTickMonitor().start();
+        try {
+            SessionManager sessionManager = plugin.getSessionManager();
+
+            // The order only changes on join or quit - otherwise keep the last one
+            long version = sessionManager.getLeaderboardVersion();
+            if (version != renderedVersion) {
+                sortedPlayers = sessionManager.getSortedPlayers();
+                topNames = new String[topSize];
+                for (int i = 0; i < topSize; i++) {
+                    topNames[i] = i < sortedPlayers.size() ? sortedPlayers.get(i).getName() : "";
+                }
+                renderedVersion = version;
+            }
+
+            // Render leaderboard rows once for all viewers
+            String[] topTimes = new String[topSize];
+            String[] topLines = new String[topSize];
+            for (int i = 0; i < topSize; i++) {
+                if (i < sortedPlayers.size()) {
+                    Player top = sortedPlayers.get(i);
+                    topTimes[i] = sessionManager.getFormattedSessionTime(top.getUniqueId());
+                    topLines[i] = topLineFormat
+                            .replace("{rank}", String.valueOf(i + 1))
+                            .replace("{player}", topNames[i])
+                            .replace("{time}", topTimes[i]);
+                } else {
+                    topTimes[i] = "";
+                    topLines[i] = "";
+                }
+            }
+            String online = String.valueOf(sortedPlayers.size());
+
+            // Leaderboard tokens are the same for everyone - substitute them once
+            String[] shared = new String[lines.size()];
+            for (int i = 0; i < lines.size(); i++) {
+                shared[i] = lines.get(i).render(topNames, topTimes, topLines, online);
+            }
+            String sharedHeader = header.render(topNames, topTimes, topLines, online);
+            String sharedFooter = footer.render(topNames, topTimes, topLines, online);
+
+            for (Player player : sortedPlayers) {
+                Viewer viewer = viewers.get(player.getUniqueId());
+                if (viewer == null) continue;
+
+                String time = null;
+                String rank = null;
+
+                if (sidebarEnabled) {
+                    for (int i = 0; i < lines.size(); i++) {
+                        String text = shared[i];
+                        if (lines.get(i).perPlayer) {
+                            if (time == null) {
+                                time = sessionManager.getFormattedSessionTime(player.getUniqueId());
+                                rank = rankOf(viewer, player, version);
+                            }
+                            text = applyPlayer(text, player.getName(), time, rank);
+                        }
+
+                        // Only push lines that changed
+                        if (!text.equals(viewer.lastLines[i])) {
+                            viewer.teams[i].setPrefix(text);
+                            viewer.lastLines[i] = text;
+                        }
+                    }
+                }
+
+                if (tablistEnabled) {
+                    if (time == null) {
+                        time = sessionManager.getFormattedSessionTime(player.getUniqueId());
+                        rank = rankOf(viewer, player, version);
+                    }
+                    String playerHeader = applyPlayer(sharedHeader, player.getName(), time, rank);
+                    String playerFooter = applyPlayer(sharedFooter, player.getName(), time, rank);
+                    if (!playerHeader.equals(viewer.lastHeader) || !playerFooter.equals(viewer.lastFooter)) {
+                        player.setPlayerListHeaderFooter(playerHeader, playerFooter);
+                        viewer.lastHeader = playerHeader;
+                        viewer.lastFooter = playerFooter;
+                    }
+                }
+            }
+        } finally {
+            plugin.getTickMonitor().stop(TickMonitor.Section.SIDEBAR, timerStart);
+        }
+    }
+
+    /**
+     * Gets a viewer's {rank} text. Session ranks only move on join or quit,
+     * so they are kept until the leaderboard version changes; all-time ranks
+     * move with playtime and are read every update.
+     */
+    private String rankOf(Viewer viewer, Player player, long version) {
+        if (viewer.rank == null || viewer.rankVersion != version || plugin.getPlaytimeTracker().isAllTimeRankMode()) {
+            viewer.rank = String.valueOf(getRank(player));
+            viewer.rankVersion = version;
+        }
+        return viewer.rank;
+    }
+
+    /**
+     * Gets the rank shown for {rank}, following leaderboard.rank-mode.
+     */
+    private int getRank(Player player) {
+        PlaytimeTracker tracker = plugin.getPlaytimeTracker();
+        if (tracker.isAllTimeRankMode()) {
+            return tracker.getRanking().getRank(player.getUniqueId());
+        }
+        return plugin.getSessionManager().getPlayerRank(player.getUniqueId());
+    }
+
+    private static String applyPlayer(String text, String name, String time, String rank) {
+        return text
+                .replace("{player}", name)
+                .replace("{time}", time)
+                .replace("{rank}", rank);
+    }
+
+    private static String color(String text) {
+        return ChatColor.translateAlternateColorCodes('&', text == null ? "" : text);
+    }
+
+    /**
+     * Sidebar state of a single player.
+     */
+    private static final class Viewer {
+        private final UUID playerId;
+        private final String[] lastLines;
+        private final Team[] teams;
+        private Scoreboard scoreboard;
+        private String lastHeader;
+        private String lastFooter;
+        private String rank;
+        private long rankVersion;
+
+        Viewer(UUID playerId, int lineCount) {
+            this.playerId = playerId;
+            this.lastLines = new String[lineCount];
+            this.teams = new Team[lineCount];
+        }
+    }
+
+    /**
+     * A configured line, analysed once when config is loaded.
+     */
+    private static final class LineTemplate {
+        private final String text;
+        private final boolean perPlayer;
+        private final boolean usesTop;
+        private final int maxTopPosition;
+
+        LineTemplate(String text) {
+            this.text = text;
+            this.perPlayer = text.contains("{time}") || text.contains("{rank}") || text.contains("{player}");
+            this.usesTop = text.contains("{top_");
+
+            int max = 0;
+            int index = text.indexOf("{top_");
+            while (index >= 0) {
+                int end = index + 5;
+                while (end < text.length() && Character.isDigit(text.charAt(end))) {
+                    end++;
+                }
+                if (end > index + 5) {
+                    try {
+                        max = Math.max(max, Math.min(Integer.parseInt(text.substring(index + 5, end)), 100));
+                    } catch (NumberFormatException ignored) {
+                        // Too many digits - not a valid position
+                    }
+                }
+                index = text.indexOf("{top_", end);
+            }
+            this.maxTopPosition = max;
+        }
+
+        /**
+         * Renders the shared (leaderboard) tokens.
+         */
+        String render(String[] topNames, String[] topTimes, String[] topLines, String online) {
+            String result = text.replace("{online}", online);
+            if (!usesTop) {
+                return result;
+            }
+            for (int i = 0; i < topNames.length; i++) {
+                String position = String.valueOf(i + 1);
+                result = result
+                        .replace("{top_" + position + "_name}", topNames[i])
+                        .replace("{top_" + position + "_time}", topTimes[i])
+                        .replace("{top_" + position + "}", topLines[i]);
+            }
+            return result;
+        }
+    }
+}
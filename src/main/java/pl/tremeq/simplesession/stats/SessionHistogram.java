@@ -0,0 +1,117 @@
+package pl.tremeq.simplesession.stats;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size log-linear histogram of session lengths in seconds.
+ *
+ * Values below 16 get a bucket each; every power of two above that is split
+ * into 16 linear sub-buckets, so any recorded value is off by at most ~6%.
+ * Memory stays the same no matter how many sessions are recorded.
+ * Not thread-safe - callers synchronize.
+ *
+ * @author TremeQ
+ */
+public class SessionHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // Highest tracked power of two (2^31 seconds is about 68 years)
+    private static final int MAX_EXPONENT = 31;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount;
+
+    /**
+     * Records one session length.
+     *
+     * @param seconds Session length in seconds
+     */
+    public void record(long seconds) {
+        counts[bucketIndex(seconds)]++;
+        totalCount++;
+    }
+
+    /**
+     * Adds all counts of another histogram to this one.
+     *
+     * @param other Histogram to add
+     */
+    public void add(SessionHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+    }
+
+    /**
+     * Removes all recorded values.
+     */
+    public void clear() {
+        Arrays.fill(counts, 0L);
+        totalCount = 0L;
+    }
+
+    /**
+     * Gets the number of recorded sessions.
+     *
+     * @return Session count
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Gets the value below or at which the given percentage of sessions fall.
+     *
+     * @param percentile Percentile (0-100)
+     * @return Session length in seconds, or 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0L;
+        }
+
+        long rank = Math.max(1L, (long) Math.ceil(totalCount * Math.min(100.0, Math.max(0.0, percentile)) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return bucketValue(i);
+            }
+        }
+        return bucketValue(BUCKET_COUNT - 1);
+    }
+
+    /**
+     * Maps a value to its bucket.
+     */
+    private static int bucketIndex(long seconds) {
+        if (seconds < SUB_BUCKETS) {
+            return (int) Math.max(0L, seconds);
+        }
+
+        int exponent = Math.min(MAX_EXPONENT, 63 - Long.numberOfLeadingZeros(seconds));
+        if (exponent == MAX_EXPONENT) {
+            seconds = Math.min(seconds, (1L << (MAX_EXPONENT + 1)) - 1);
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (seconds >>> shift) - SUB_BUCKETS;
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Gets the middle value of a bucket.
+     */
+    private static long bucketValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int shift = (index >> SUB_BUCKET_BITS) - 1;
+        long lower = (long) (SUB_BUCKETS + (index & (SUB_BUCKETS - 1))) << shift;
+        return lower + ((1L << shift) >> 1);
+    }
+}
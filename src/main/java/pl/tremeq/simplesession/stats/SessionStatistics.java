@@ -0,0 +1,158 @@
+package pl.tremeq.simplesession.stats;
+
+import pl.tremeq.simplesession.SimpleSession;
+import pl.tremeq.simplesession.manager.PlayerSession;
+import pl.tremeq.simplesession.manager.SessionListener;
+
+/**
+ * Collects the distribution of finished session lengths.
+ *
+ * Each window is a ring of histogram slots (e.g. 24 hourly slots for the last
+ * day). Recording a session only touches the current slot; stale slots are
+ * cleared when the ring wraps around. No per-session records are kept.
+ *
+ * @author TremeQ
+ */
+public class SessionStatistics implements SessionListener {
+
+    /**
+     * Rolling windows available for queries.
+     */
+    public enum Window {
+        HOUR("hour", 12, 5 * 60 * 1000L),
+        DAY("day", 24, 60 * 60 * 1000L),
+        ALL("all", 1, Long.MAX_VALUE);
+
+        private final String configName;
+        private final int slots;
+        private final long slotMillis;
+
+        Window(String configName, int slots, long slotMillis) {
+            this.configName = configName;
+            this.slots = slots;
+            this.slotMillis = slotMillis;
+        }
+
+        public String getConfigName() {
+            return configName;
+        }
+
+        /**
+         * Finds a window by its name.
+         *
+         * @param name Window name (hour, day, all)
+         * @return The window, or null if unknown
+         */
+        public static Window fromName(String name) {
+            for (Window window : values()) {
+                if (window.configName.equalsIgnoreCase(name)) {
+                    return window;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Ring[] rings = new Ring[Window.values().length];
+
+    /**
+     * Creates the statistics collector and starts listening for finished sessions.
+     *
+     * @param plugin The main plugin instance
+     */
+    public SessionStatistics(SimpleSession plugin) {
+        for (Window window : Window.values()) {
+            rings[window.ordinal()] = new Ring(window);
+        }
+        plugin.getSessionManager().addListener(this);
+    }
+
+    /**
+     * Records the length of a finished session.
+     *
+     * @param session The session
+     * @param endTime When the player left
+     */
+    @Override
+    public void onSessionEnd(PlayerSession session, long endTime) {
+        long seconds = session.getDuration(endTime) / 1000;
+        synchronized (this) {
+            for (Ring ring : rings) {
+                ring.record(seconds, endTime);
+            }
+        }
+    }
+
+    /**
+     * Ignores sessions that continue on another server - they are recorded where they end.
+     *
+     * @param session The session
+     * @param endTime When the session left this server
+     */
+    @Override
+    public void onSessionHandoff(PlayerSession session, long endTime) {
+    }
+
+    /**
+     * Gets a snapshot of the session length distribution in a window.
+     *
+     * @param window The window
+     * @return Histogram snapshot (shared, do not modify)
+     */
+    public synchronized SessionHistogram getHistogram(Window window) {
+        return rings[window.ordinal()].snapshot(System.currentTimeMillis());
+    }
+
+    /**
+     * Ring of histogram slots covering one window.
+     * The merged snapshot is cached until something is recorded or a slot expires.
+     */
+    private static final class Ring {
+
+        private final Window window;
+        private final SessionHistogram[] slots;
+        private final long[] slotEpochs;
+
+        private SessionHistogram snapshot;
+        private long snapshotEpoch = -1;
+
+        Ring(Window window) {
+            this.window = window;
+            this.slots = new SessionHistogram[window.slots];
+            this.slotEpochs = new long[window.slots];
+            for (int i = 0; i < window.slots; i++) {
+                slots[i] = new SessionHistogram();
+                slotEpochs[i] = -1;
+            }
+        }
+
+        void record(long seconds, long time) {
+            long epoch = time / window.slotMillis;
+            int index = (int) (epoch % window.slots);
+            if (slotEpochs[index] != epoch) {
+                slots[index].clear();
+                slotEpochs[index] = epoch;
+            }
+            slots[index].record(seconds);
+            snapshot = null;
+        }
+
+        SessionHistogram snapshot(long now) {
+            long epoch = now / window.slotMillis;
+            if (snapshot != null && snapshotEpoch == epoch) {
+                return snapshot;
+            }
+
+            SessionHistogram merged = new SessionHistogram();
+            for (int i = 0; i < window.slots; i++) {
+                // Only slots from the last window.slots epochs are still in the window
+                if (slotEpochs[i] >= 0 && epoch - slotEpochs[i] < window.slots) {
+                    merged.add(slots[i]);
+                }
+            }
+            snapshot = merged;
+            snapshotEpoch = epoch;
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package pl.tremeq.simplesession.storage;
+
+import pl.tremeq.simplesession.SimpleSession;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Append-only log of session milestone grants.
+ *
+ * Each line is "timestamp, player, session ID, milestone ID". Grants are
+ * indexed in memory right away, so a milestone can't be granted twice, and
+ * written by the IO thread. Grants queued while a write is pending are
+ * written and synced together (group commit), and the caller is told once
+ * its line is on disk - only then is the reward given.
+ *
+ * @author TremeQ
+ */
+public class GrantLog {
+
+    private static final String FILE_NAME = "milestone-grants.log";
+
+    private final SimpleSession plugin;
+    private final File file;
+    // sessionId -> milestone IDs granted in that session
+    private final Map<String, Set<String>> granted = new ConcurrentHashMap<>();
+
+    private final Object pendingLock = new Object();
+    private List<Pending> pending = new ArrayList<>();
+    private boolean flushQueued;
+
+    /**
+     * Creates the grant log.
+     *
+     * @param plugin The main plugin instance
+     */
+    public GrantLog(SimpleSession plugin) {
+        this.plugin = plugin;
+        this.file = new File(plugin.getDataFolder(), FILE_NAME);
+    }
+
+    /**
+     * Queues loading the log into the index.
+     * Lines older than the retention are dropped and the file is rewritten
+     * without them. Runs on the IO thread before any grant is written.
+     *
+     * @param retentionMillis How long grants are kept
+     */
+    public void load(long retentionMillis) {
+        plugin.getIoExecutor().execute(() -> {
+            if (!file.exists()) {
+                return;
+            }
+
+            long cutoff = System.currentTimeMillis() - retentionMillis;
+            List<String> kept = new ArrayList<>();
+            int dropped = 0;
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.split("\t", 4);
+                    long timestamp;
+                    try {
+                        timestamp = Long.parseLong(parts[0]);
+                    } catch (NumberFormatException e) {
+                        timestamp = -1L;
+                    }
+                    // A torn last line after a crash has fewer fields - skip it
+                    if (parts.length < 4 || timestamp < cutoff) {
+                        dropped++;
+                        continue;
+                    }
+                    index(parts[2], parts[3]);
+                    kept.add(line);
+                }
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not read " + FILE_NAME + ": " + e.getMessage());
+                return;
+            }
+
+            if (dropped > 0) {
+                compact(kept);
+            }
+        });
+    }
+
+    private void compact(List<String> kept) {
+        File temp = new File(file.getPath() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+            for (String line : kept) {
+                writer.write(line);
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not compact " + FILE_NAME + ": " + e.getMessage());
+            return;
+        }
+
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not compact " + FILE_NAME + ": " + e.getMessage());
+        }
+    }
+
+    private boolean index(String sessionId, String milestoneId) {
+        return granted.computeIfAbsent(sessionId, id -> ConcurrentHashMap.newKeySet()).add(milestoneId);
+    }
+
+    /**
+     * Checks if a milestone was already granted in a session.
+     *
+     * @param sessionId ID of the session
+     * @param milestoneId ID of the milestone
+     * @return true if granted (or being written)
+     */
+    public boolean isGranted(String sessionId, String milestoneId) {
+        Set<String> milestoneIds = granted.get(sessionId);
+        return milestoneIds != null && milestoneIds.contains(milestoneId);
+    }
+
+    /**
+     * Records a grant. Never blocks - the line is written by the IO thread.
+     *
+     * @param playerId UUID of the player
+     * @param sessionId ID of the session
+     * @param milestoneId ID of the milestone
+     * @param onCommitted Called on the IO thread with true once the grant is on disk, or false if it could not be written
+     * @return false if the milestone was already granted in this session
+     */
+    public boolean record(UUID playerId, String sessionId, String milestoneId, Consumer<Boolean> onCommitted) {
+        if (!index(sessionId, milestoneId)) {
+            return false;
+        }
+
+        String line = System.currentTimeMillis() + "\t" + playerId + "\t" + sessionId + "\t" + milestoneId;
+        synchronized (pendingLock) {
+            pending.add(new Pending(line, sessionId, milestoneId, onCommitted));
+            if (flushQueued) {
+                return true; // Joins the batch of the write already queued
+            }
+            flushQueued = true;
+        }
+        plugin.getIoExecutor().execute(this::flush);
+        return true;
+    }
+
+    /**
+     * Writes every queued grant with a single sync.
+     */
+    private void flush() {
+        List<Pending> batch;
+        synchronized (pendingLock) {
+            batch = pending;
+            pending = new ArrayList<>();
+            flushQueued = false;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        boolean written = write(batch);
+        for (Pending grant : batch) {
+            if (!written) {
+                // Not on disk - forget it so the grant is tried again
+                Set<String> milestoneIds = granted.get(grant.sessionId);
+                if (milestoneIds != null) {
+                    milestoneIds.remove(grant.milestoneId);
+                }
+            }
+            grant.onCommitted.accept(written);
+        }
+    }
+
+    private boolean write(List<Pending> batch) {
+        StringBuilder lines = new StringBuilder();
+        for (Pending grant : batch) {
+            lines.append(grant.line).append('\n');
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            return true;
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not write " + FILE_NAME + ", " + batch.size() + " milestone grant(s) delayed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Drops a finished session from the index.
+     * Its lines stay in the file until they fall out of the retention.
+     *
+     * @param sessionId ID of the session
+     */
+    public void forgetSession(String sessionId) {
+        granted.remove(sessionId);
+    }
+
+    private static final class Pending {
+        final String line;
+        final String sessionId;
+        final String milestoneId;
+        final Consumer<Boolean> onCommitted;
+
+        Pending(String line, String sessionId, String milestoneId, Consumer<Boolean> onCommitted) {
+            this.line = line;
+            this.sessionId = sessionId;
+            this.milestoneId = milestoneId;
+            this.onCommitted = onCommitted;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package pl.tremeq.simplesession.storage;
+
+import pl.tremeq.simplesession.SimpleSession;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Single background thread for all file IO.
+ *
+ * Tasks run one at a time in submission order, so a load queued after a save
+ * of the same file always sees the saved data.
+ *
+ * @author TremeQ
+ */
+public class IoExecutor {
+
+    private final SimpleSession plugin;
+    private final ExecutorService executor;
+
+    /**
+     * Creates the IO executor.
+     *
+     * @param plugin The main plugin instance
+     */
+    public IoExecutor(SimpleSession plugin) {
+        this.plugin = plugin;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "SimpleSession-IO");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues a task. Exceptions are logged instead of being lost.
+     *
+     * @param task Task to run on the IO thread
+     * @return Future completing when the task has run
+     */
+    public Future<?> execute(Runnable task) {
+        Runnable logged = () -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                plugin.getLogger().log(Level.WARNING, "IO task failed", e);
+            }
+        };
+
+        try {
+            return executor.submit(logged);
+        } catch (RejectedExecutionException e) {
+            // Already shut down - run inline so nothing is lost on disable
+            logged.run();
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Finishes all queued tasks and stops the IO thread.
+     * Called when the plugin is disabled.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("IO tasks did not finish within 10 seconds!");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
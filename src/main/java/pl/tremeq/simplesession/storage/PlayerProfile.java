@@ -0,0 +1,275 @@
+package pl.tremeq.simplesession.storage;
+
+import pl.tremeq.simplesession.leaderboard.Period;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Stored playtime of one player, split into leaderboard periods.
+ *
+ * Each period total is tagged with the key of the period it belongs to;
+ * a total with an old key counts as zero, so rolling over to a new day,
+ * week or month needs no reset pass. Days played are kept in a
+ * {@link StreakBitmap}, the last finished sessions in {@link RecentSessions}.
+ * Not thread-safe - callers synchronize.
+ *
+ * @author TremeQ
+ */
+public class PlayerProfile {
+
+    private static final long NO_KEY = Long.MIN_VALUE;
+
+    /** Prefix of streak milestone claims, dropped whenever a streak breaks. */
+    public static final String STREAK_CLAIM_PREFIX = "streak:";
+
+    private final UUID playerId;
+    private String playerName;
+    private final long[] totals = new long[Period.values().length];
+    private final long[] keys = new long[Period.values().length];
+    private final Set<String> claimedMilestones = new HashSet<>();
+    private final StreakBitmap streak = new StreakBitmap();
+    private final RecentSessions recentSessions = new RecentSessions();
+    private boolean loaded;
+    private boolean dirty;
+
+    /**
+     * Creates an empty profile.
+     *
+     * @param playerId UUID of the player
+     * @param playerName Name of the player
+     */
+    public PlayerProfile(UUID playerId, String playerName) {
+        this.playerId = playerId;
+        this.playerName = playerName;
+        Arrays.fill(keys, NO_KEY);
+    }
+
+    public UUID getPlayerId() {
+        return playerId;
+    }
+
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    public void setPlayerName(String playerName) {
+        this.playerName = playerName;
+    }
+
+    /**
+     * Adds playtime to every period.
+     *
+     * @param millis Playtime in milliseconds
+     * @param currentKeys Current key of each period, indexed by ordinal
+     */
+    public void add(long millis, long[] currentKeys) {
+        for (int i = 0; i < totals.length; i++) {
+            if (keys[i] != currentKeys[i]) {
+                keys[i] = currentKeys[i];
+                totals[i] = 0L;
+            }
+            totals[i] += millis;
+        }
+        dirty = true;
+    }
+
+    /**
+     * Gets the playtime in a period.
+     *
+     * @param period The period
+     * @param currentKey Current key of the period
+     * @return Playtime in milliseconds, 0 if nothing was played in this period
+     */
+    public long getTotal(Period period, long currentKey) {
+        int i = period.ordinal();
+        return keys[i] == currentKey ? totals[i] : 0L;
+    }
+
+    /**
+     * Gets the raw total of a period, whatever key it belongs to.
+     *
+     * @param period The period
+     * @return Playtime in milliseconds
+     */
+    public long getStoredTotal(Period period) {
+        return totals[period.ordinal()];
+    }
+
+    /**
+     * Gets the key of the period the stored total belongs to.
+     *
+     * @param period The period
+     * @return Period key, or Long.MIN_VALUE if nothing was stored
+     */
+    public long getStoredKey(Period period) {
+        return keys[period.ordinal()];
+    }
+
+    /**
+     * Sets a stored total. Used when reading a profile from disk.
+     *
+     * @param period The period
+     * @param key Period key the total belongs to
+     * @param millis Playtime in milliseconds
+     */
+    public void setStored(Period period, long key, long millis) {
+        keys[period.ordinal()] = key;
+        totals[period.ordinal()] = millis;
+    }
+
+    /**
+     * Checks if a lifetime milestone was already granted.
+     *
+     * @param milestoneId Milestone ID
+     * @return true if granted
+     */
+    public boolean isClaimed(String milestoneId) {
+        return claimedMilestones.contains(milestoneId);
+    }
+
+    /**
+     * Marks a lifetime milestone as granted.
+     *
+     * @param milestoneId Milestone ID
+     * @return true if it wasn't granted before
+     */
+    public boolean claim(String milestoneId) {
+        if (!claimedMilestones.add(milestoneId)) {
+            return false;
+        }
+        dirty = true;
+        return true;
+    }
+
+    /**
+     * Reverts a claim that could not be saved.
+     *
+     * @param milestoneId Milestone ID
+     */
+    public void unclaim(String milestoneId) {
+        claimedMilestones.remove(milestoneId);
+    }
+
+    /**
+     * Gets the granted lifetime milestones.
+     *
+     * @return Unmodifiable set of milestone IDs
+     */
+    public Set<String> getClaimedMilestones() {
+        return Collections.unmodifiableSet(claimedMilestones);
+    }
+
+    /**
+     * Marks a day as played. Starting a new streak releases the streak
+     * milestones claimed during the old one, so they can be reached again.
+     *
+     * @param day Day number in the playtime timezone
+     * @return true if the day wasn't marked yet
+     */
+    public boolean markDay(long day) {
+        long lastDay = streak.getLastDay();
+        if (!streak.mark(day)) {
+            return false;
+        }
+        if (lastDay == StreakBitmap.NONE || day - lastDay > 1) {
+            claimedMilestones.removeIf(id -> id.startsWith(STREAK_CLAIM_PREFIX));
+        }
+        dirty = true;
+        return true;
+    }
+
+    /**
+     * Gets the days played.
+     *
+     * @return The streak bitmap (modify only through {@link #markDay(long)})
+     */
+    public StreakBitmap getStreak() {
+        return streak;
+    }
+
+    /**
+     * Records a finished session.
+     *
+     * @param millis Session length in milliseconds
+     * @param endDay Day the session ended in the playtime timezone
+     */
+    public void addSession(long millis, long endDay) {
+        recentSessions.add(millis, endDay);
+        dirty = true;
+    }
+
+    /**
+     * Gets the last finished sessions.
+     *
+     * @return The ring (modify only through {@link #addSession(long, long)})
+     */
+    public RecentSessions getRecentSessions() {
+        return recentSessions;
+    }
+
+    /**
+     * Merges a profile read from disk into this one.
+     * Playtime credited before the stored data arrived is kept.
+     *
+     * @param stored Profile read from disk
+     */
+    public void merge(PlayerProfile stored) {
+        for (int i = 0; i < totals.length; i++) {
+            if (stored.keys[i] == keys[i]) {
+                totals[i] += stored.totals[i];
+            } else if (stored.keys[i] > keys[i]) {
+                keys[i] = stored.keys[i];
+                totals[i] = stored.totals[i];
+            }
+        }
+        claimedMilestones.addAll(stored.claimedMilestones);
+        if (stored.streak.getLastDay() > streak.getLastDay()) {
+            streak.copyFrom(stored.streak);
+        }
+        recentSessions.mergeOlder(stored.recentSessions);
+        loaded = true;
+        dirty = true;
+    }
+
+    /**
+     * Checks if the stored data has been merged in. Unloaded profiles must not
+     * be saved, they would overwrite the player's stored playtime.
+     *
+     * @return true if loaded
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void setLoaded(boolean loaded) {
+        this.loaded = loaded;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public void setDirty(boolean dirty) {
+        this.dirty = dirty;
+    }
+
+    /**
+     * Creates a copy for saving off-thread.
+     *
+     * @return Copy of this profile
+     */
+    public PlayerProfile copy() {
+        PlayerProfile copy = new PlayerProfile(playerId, playerName);
+        System.arraycopy(totals, 0, copy.totals, 0, totals.length);
+        System.arraycopy(keys, 0, copy.keys, 0, keys.length);
+        copy.claimedMilestones.addAll(claimedMilestones);
+        copy.streak.copyFrom(streak);
+        copy.recentSessions.copyFrom(recentSessions);
+        copy.loaded = loaded;
+        return copy;
+    }
+}
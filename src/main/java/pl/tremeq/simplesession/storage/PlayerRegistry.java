@@ -0,0 +1,138 @@
+package pl.tremeq.simplesession.storage;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Maps player UUIDs to dense int ids (0, 1, 2, ...) in order of first join.
+ *
+ * UUIDs are kept as two primitive arrays and looked up through an
+ * open-addressing table of ids, so millions of players cost ~40 bytes each
+ * instead of a boxed HashMap entry. Ids never change once assigned.
+ * Not thread-safe - callers synchronize.
+ *
+ * @author TremeQ
+ */
+public class PlayerRegistry {
+
+    private static final int EMPTY = -1;
+
+    private long[] most = new long[1024];
+    private long[] least = new long[1024];
+    private int size;
+
+    // Slots hold ids, EMPTY when free. Length is a power of two, at most half full.
+    private int[] table = newTable(2048);
+
+    /**
+     * Gets the id of a player.
+     *
+     * @param playerId UUID of the player
+     * @return The id, or -1 if the player is not registered
+     */
+    public int getId(UUID playerId) {
+        long msb = playerId.getMostSignificantBits();
+        long lsb = playerId.getLeastSignificantBits();
+        int mask = table.length - 1;
+        for (int slot = hash(msb, lsb) & mask; ; slot = (slot + 1) & mask) {
+            int id = table[slot];
+            if (id == EMPTY) {
+                return -1;
+            }
+            if (most[id] == msb && least[id] == lsb) {
+                return id;
+            }
+        }
+    }
+
+    /**
+     * Gets the id of a player, registering the player if needed.
+     *
+     * @param playerId UUID of the player
+     * @return The id
+     */
+    public int getOrRegister(UUID playerId) {
+        int id = getId(playerId);
+        if (id >= 0) {
+            return id;
+        }
+
+        if (size == most.length) {
+            most = Arrays.copyOf(most, size * 2);
+            least = Arrays.copyOf(least, size * 2);
+        }
+        id = size++;
+        most[id] = playerId.getMostSignificantBits();
+        least[id] = playerId.getLeastSignificantBits();
+
+        if (size * 2 > table.length) {
+            rehash(table.length * 2);
+        } else {
+            insert(id);
+        }
+        return id;
+    }
+
+    /**
+     * Gets the UUID of an id.
+     *
+     * @param id Player id
+     * @return The UUID
+     */
+    public UUID getUuid(int id) {
+        return new UUID(most[id], least[id]);
+    }
+
+    public long getMostSignificantBits(int id) {
+        return most[id];
+    }
+
+    public long getLeastSignificantBits(int id) {
+        return least[id];
+    }
+
+    /**
+     * Gets the number of registered players.
+     *
+     * @return Player count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every player, keeping the allocated arrays for reuse.
+     * Ids are handed out from 0 again.
+     */
+    public void clear() {
+        size = 0;
+        Arrays.fill(table, EMPTY);
+    }
+
+    private void insert(int id) {
+        int mask = table.length - 1;
+        int slot = hash(most[id], least[id]) & mask;
+        while (table[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = id;
+    }
+
+    private void rehash(int capacity) {
+        table = newTable(capacity);
+        for (int id = 0; id < size; id++) {
+            insert(id);
+        }
+    }
+
+    private static int[] newTable(int capacity) {
+        int[] table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+
+    private static int hash(long msb, long lsb) {
+        long h = msb ^ (lsb * 0x9E3779B97F4A7C15L);
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,129 @@
+package pl.tremeq.simplesession.storage;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Size- and time-bounded LRU cache of offline players' profiles.
+ *
+ * Cached profiles are copies that are never modified, so callers may read
+ * them without holding any lock. The cache also remembers which players are
+ * being loaded, so a burst of placeholder requests queues one load only.
+ *
+ * @author TremeQ
+ */
+public class ProfileCache {
+
+    private static final class Cached {
+        private final PlayerProfile profile;
+        private final long expires;
+
+        Cached(PlayerProfile profile, long expires) {
+            this.profile = profile;
+            this.expires = expires;
+        }
+    }
+
+    private final Map<UUID, Cached> entries = new LinkedHashMap<UUID, Cached>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, Cached> eldest) {
+            return size() > maxSize;
+        }
+    };
+    private final Set<UUID> loading = new HashSet<>();
+    private int maxSize;
+    private long expireMillis;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maxSize Maximum number of cached profiles
+     * @param expireMillis How long a profile stays cached
+     */
+    public ProfileCache(int maxSize, long expireMillis) {
+        this.maxSize = maxSize;
+        this.expireMillis = expireMillis;
+    }
+
+    /**
+     * Changes the limits, dropping the least recently used profiles if needed.
+     *
+     * @param maxSize Maximum number of cached profiles
+     * @param expireMillis How long a profile stays cached
+     */
+    public synchronized void setLimits(int maxSize, long expireMillis) {
+        this.maxSize = maxSize;
+        this.expireMillis = expireMillis;
+        Iterator<Map.Entry<UUID, Cached>> iterator = entries.entrySet().iterator();
+        while (entries.size() > maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Gets a cached profile.
+     *
+     * @param playerId UUID of the player
+     * @param now Current time in milliseconds
+     * @return The profile, or null if not cached or expired
+     */
+    public synchronized PlayerProfile get(UUID playerId, long now) {
+        Cached cached = entries.get(playerId);
+        if (cached == null) {
+            return null;
+        }
+        if (now > cached.expires) {
+            entries.remove(playerId);
+            return null;
+        }
+        return cached.profile;
+    }
+
+    /**
+     * Caches an up-to-date profile, replacing any cached one.
+     *
+     * @param profile Profile copy that won't be modified any more
+     * @param now Current time in milliseconds
+     */
+    public synchronized void put(PlayerProfile profile, long now) {
+        entries.put(profile.getPlayerId(), new Cached(profile, now + expireMillis));
+    }
+
+    /**
+     * Marks a player as being loaded.
+     *
+     * @param playerId UUID of the player
+     * @return true if the caller should load the profile, false if a load is already queued
+     */
+    public synchronized boolean startLoading(UUID playerId) {
+        return loading.add(playerId);
+    }
+
+    /**
+     * Caches a loaded profile unless a fresher one was put in the meantime.
+     *
+     * @param playerId UUID of the player
+     * @param profile Loaded profile, or null if loading failed
+     * @param now Current time in milliseconds
+     */
+    public synchronized void finishLoading(UUID playerId, PlayerProfile profile, long now) {
+        loading.remove(playerId);
+        if (profile != null && !entries.containsKey(playerId)) {
+            entries.put(playerId, new Cached(profile, now + expireMillis));
+        }
+    }
+
+    /**
+     * Removes a player's profile from the cache.
+     *
+     * @param playerId UUID of the player
+     */
+    public synchronized void invalidate(UUID playerId) {
+        entries.remove(playerId);
+    }
+}
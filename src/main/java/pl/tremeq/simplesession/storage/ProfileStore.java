@@ -0,0 +1,143 @@
+package pl.tremeq.simplesession.storage;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import pl.tremeq.simplesession.SimpleSession;
+import pl.tremeq.simplesession.leaderboard.Period;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reads and writes player profiles, one YAML file per player in players/.
+ * Blocking - only call from the IO thread.
+ *
+ * @author TremeQ
+ */
+public class ProfileStore {
+
+    private final SimpleSession plugin;
+    private final File folder;
+
+    /**
+     * Creates the profile store.
+     *
+     * @param plugin The main plugin instance
+     */
+    public ProfileStore(SimpleSession plugin) {
+        this.plugin = plugin;
+        this.folder = new File(plugin.getDataFolder(), "players");
+    }
+
+    /**
+     * Loads a player's profile.
+     *
+     * @param playerId UUID of the player
+     * @param playerName Name to use if the player has no profile yet
+     * @return The profile (empty if none is stored), or null if the file could not be read
+     */
+    public PlayerProfile load(UUID playerId, String playerName) {
+        File file = new File(folder, playerId + ".yml");
+        PlayerProfile profile = new PlayerProfile(playerId, playerName);
+        if (!file.exists()) {
+            profile.setLoaded(true);
+            return profile;
+        }
+
+        YamlConfiguration config = YamlConfiguration.loadConfiguration(file);
+        if (!config.contains("name")) {
+            plugin.getLogger().warning("Could not read player profile " + file.getName() + ", playtime of this player won't be saved!");
+            return null;
+        }
+
+        profile.setPlayerName(config.getString("name", playerName));
+        for (Period period : Period.values()) {
+            String path = "periods." + period.getConfigName();
+            if (config.contains(path)) {
+                profile.setStored(period, config.getLong(path + ".key"), config.getLong(path + ".millis"));
+            }
+        }
+        for (String milestoneId : config.getStringList("milestones")) {
+            profile.claim(milestoneId);
+        }
+        if (config.contains("streak.day")) {
+            List<Long> words = config.getLongList("streak.bits");
+            long[] bits = new long[words.size()];
+            for (int i = 0; i < bits.length; i++) {
+                bits[i] = words.get(i);
+            }
+            profile.getStreak().setStored(config.getLong("streak.day"), bits,
+                    config.getInt("streak.carried"), config.getInt("streak.best"));
+        }
+        if (config.contains("recent.sessions")) {
+            List<Long> lengths = config.getLongList("recent.sessions");
+            long[] stored = new long[lengths.size()];
+            for (int i = 0; i < stored.length; i++) {
+                stored[i] = lengths.get(i);
+            }
+            profile.getRecentSessions().setStored(stored, config.getLong("recent.day"), config.getInt("recent.today"));
+        }
+        profile.setDirty(false);
+        profile.setLoaded(true);
+        return profile;
+    }
+
+    /**
+     * Saves a player's profile.
+     *
+     * @param profile The profile
+     * @return true if the profile was written
+     */
+    public boolean save(PlayerProfile profile) {
+        if (!folder.exists() && !folder.mkdirs()) {
+            plugin.getLogger().warning("Could not create " + folder.getPath());
+            return false;
+        }
+
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("name", profile.getPlayerName());
+        for (Period period : Period.values()) {
+            if (profile.getStoredKey(period) == Long.MIN_VALUE) {
+                continue;
+            }
+            String path = "periods." + period.getConfigName();
+            config.set(path + ".key", profile.getStoredKey(period));
+            config.set(path + ".millis", profile.getStoredTotal(period));
+        }
+        if (!profile.getClaimedMilestones().isEmpty()) {
+            config.set("milestones", new ArrayList<>(profile.getClaimedMilestones()));
+        }
+        StreakBitmap streak = profile.getStreak();
+        if (streak.getLastDay() != StreakBitmap.NONE) {
+            List<Long> words = new ArrayList<>();
+            for (int i = 0; i < streak.getWordCount(); i++) {
+                words.add(streak.getWord(i));
+            }
+            config.set("streak.day", streak.getLastDay());
+            config.set("streak.bits", words);
+            config.set("streak.carried", streak.getCarried());
+            config.set("streak.best", streak.getBest());
+        }
+        RecentSessions recent = profile.getRecentSessions();
+        if (recent.size() > 0) {
+            List<Long> lengths = new ArrayList<>();
+            for (int i = 0; i < recent.size(); i++) {
+                lengths.add(recent.get(i));
+            }
+            config.set("recent.sessions", lengths);
+            config.set("recent.day", recent.getDay());
+            config.set("recent.today", recent.getDayCount());
+        }
+
+        File file = new File(folder, profile.getPlayerId() + ".yml");
+        try {
+            config.save(file);
+            return true;
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to save player profile " + file.getName() + ": " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package pl.tremeq.simplesession.storage;
+
+/**
+ * Lengths of a player's last finished sessions.
+ *
+ * A fixed ring of {@link #CAPACITY} lengths with a running sum, so the last
+ * and average session are O(1) and recording one never allocates. Sessions
+ * finished on the current day are counted separately, tagged with the day
+ * like period totals. Not thread-safe - callers synchronize.
+ *
+ * @author TremeQ
+ */
+public class RecentSessions {
+
+    /** Number of sessions kept. */
+    public static final int CAPACITY = 16;
+
+    private final long[] lengths = new long[CAPACITY];
+    // Index the next session is written to
+    private int head;
+    private int size;
+    private long sum;
+    private long day = Long.MIN_VALUE;
+    private int dayCount;
+
+    /**
+     * Records a finished session, dropping the oldest once full.
+     *
+     * @param millis Session length in milliseconds
+     * @param endDay Day the session ended (epoch day in the playtime timezone)
+     */
+    public void add(long millis, long endDay) {
+        push(millis);
+        if (endDay != day) {
+            if (endDay < day) {
+                return; // Ended before the day already counted
+            }
+            day = endDay;
+            dayCount = 0;
+        }
+        dayCount++;
+    }
+
+    private void push(long millis) {
+        if (size == CAPACITY) {
+            sum -= lengths[head];
+        } else {
+            size++;
+        }
+        lengths[head] = millis;
+        sum += millis;
+        head = (head + 1) % CAPACITY;
+    }
+
+    /**
+     * Gets the number of sessions recorded.
+     *
+     * @return Sessions kept, at most {@link #CAPACITY}
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets a recorded session, oldest first.
+     *
+     * @param index 0 for the oldest kept session
+     * @return Session length in milliseconds
+     */
+    public long get(int index) {
+        return lengths[(head - size + index + CAPACITY) % CAPACITY];
+    }
+
+    /**
+     * Gets the length of the last finished session.
+     *
+     * @return Milliseconds, or 0 if none was recorded
+     */
+    public long getLast() {
+        return size > 0 ? lengths[(head - 1 + CAPACITY) % CAPACITY] : 0L;
+    }
+
+    /**
+     * Gets the average length of the kept sessions.
+     *
+     * @return Milliseconds, or 0 if none was recorded
+     */
+    public long getAverage() {
+        return size > 0 ? sum / size : 0L;
+    }
+
+    /**
+     * Gets the number of sessions finished on a day.
+     *
+     * @param today Current day
+     * @return Sessions finished today
+     */
+    public int getCount(long today) {
+        return day == today ? dayCount : 0;
+    }
+
+    public long getDay() {
+        return day;
+    }
+
+    public int getDayCount() {
+        return dayCount;
+    }
+
+    /**
+     * Sets the stored state. Used when reading a profile from disk.
+     *
+     * @param stored Session lengths, oldest first (only the last {@link #CAPACITY} are kept)
+     * @param day Day the day count belongs to
+     * @param dayCount Sessions finished on that day
+     */
+    public void setStored(long[] stored, long day, int dayCount) {
+        clear();
+        for (int i = Math.max(0, stored.length - CAPACITY); i < stored.length; i++) {
+            push(stored[i]);
+        }
+        this.day = day;
+        this.dayCount = Math.max(0, dayCount);
+    }
+
+    /**
+     * Puts stored sessions before the ones recorded here. Used when a profile
+     * read from disk arrives after sessions were already recorded.
+     *
+     * @param stored Sessions read from disk
+     */
+    public void mergeOlder(RecentSessions stored) {
+        long[] newer = new long[size];
+        for (int i = 0; i < size; i++) {
+            newer[i] = get(i);
+        }
+        long newerDay = day;
+        int newerCount = dayCount;
+
+        copyFrom(stored);
+        for (long millis : newer) {
+            push(millis);
+        }
+        if (newerDay == day) {
+            dayCount += newerCount;
+        } else if (newerDay > day) {
+            day = newerDay;
+            dayCount = newerCount;
+        }
+    }
+
+    /**
+     * Copies another ring into this one.
+     *
+     * @param other The ring to copy
+     */
+    public void copyFrom(RecentSessions other) {
+        System.arraycopy(other.lengths, 0, lengths, 0, CAPACITY);
+        head = other.head;
+        size = other.size;
+        sum = other.sum;
+        day = other.day;
+        dayCount = other.dayCount;
+    }
+
+    private void clear() {
+        head = 0;
+        size = 0;
+        sum = 0L;
+        day = Long.MIN_VALUE;
+        dayCount = 0;
+    }
+}
@@ -0,0 +1,168 @@
+package pl.tremeq.simplesession.storage;
+
+import java.util.Arrays;
+
+/**
+ * Days a player joined on, one bit per day.
+ *
+ * Bit 0 is the last day played, bit n the day n days before it. Marking a
+ * later day shifts the window, so a streak is the run of trailing ones and
+ * is counted a word at a time. Streaks longer than the window keep
+ * counting in a carry. Not thread-safe - callers synchronize.
+ *
+ * @author TremeQ
+ */
+public class StreakBitmap {
+
+    /** Days covered by the window. */
+    public static final int WINDOW_DAYS = 256;
+
+    /** Last day value of a bitmap that was never marked. */
+    public static final long NONE = Long.MIN_VALUE;
+
+    private static final int WORDS = WINDOW_DAYS / Long.SIZE;
+
+    private final long[] words = new long[WORDS];
+    private long lastDay = NONE;
+    // Streak days shifted out of a full window
+    private int carried;
+    private int best;
+
+    /**
+     * Marks a day as played.
+     *
+     * @param day Day number (e.g. epoch day in the playtime timezone)
+     * @return true if the day wasn't marked yet
+     */
+    public boolean mark(long day) {
+        if (lastDay != NONE && day <= lastDay) {
+            return false;
+        }
+
+        long gap = lastDay == NONE ? WINDOW_DAYS : day - lastDay;
+        boolean wasFull = isFull();
+        shift(gap);
+        words[0] |= 1L;
+        carried = gap == 1 && wasFull ? carried + 1 : 0;
+        lastDay = day;
+        best = Math.max(best, length());
+        return true;
+    }
+
+    private void shift(long gap) {
+        if (gap >= WINDOW_DAYS) {
+            Arrays.fill(words, 0L);
+            return;
+        }
+
+        int wordShift = (int) (gap >>> 6);
+        int bitShift = (int) (gap & 63);
+        for (int i = WORDS - 1; i >= 0; i--) {
+            int source = i - wordShift;
+            long value = source >= 0 ? words[source] << bitShift : 0L;
+            if (bitShift != 0 && source > 0) {
+                value |= words[source - 1] >>> (Long.SIZE - bitShift);
+            }
+            words[i] = value;
+        }
+    }
+
+    private boolean isFull() {
+        for (long word : words) {
+            if (word != -1L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the length of the streak ending on the last day played.
+     *
+     * @return Consecutive days
+     */
+    public int length() {
+        int length = 0;
+        for (long word : words) {
+            int ones = Long.numberOfTrailingZeros(~word);
+            length += ones;
+            if (ones < Long.SIZE) {
+                return length;
+            }
+        }
+        return length + carried;
+    }
+
+    /**
+     * Gets the current streak. A streak stays current until a whole day
+     * passes without playing.
+     *
+     * @param today Current day number
+     * @return Consecutive days, 0 if the streak is broken
+     */
+    public int getCurrent(long today) {
+        if (lastDay == NONE || today - lastDay > 1) {
+            return 0;
+        }
+        return length();
+    }
+
+    public int getBest() {
+        return best;
+    }
+
+    public long getLastDay() {
+        return lastDay;
+    }
+
+    public int getCarried() {
+        return carried;
+    }
+
+    /**
+     * Gets a word of the window.
+     *
+     * @param index Word index, 0 holds the last day played
+     * @return 64 days as bits
+     */
+    public long getWord(int index) {
+        return words[index];
+    }
+
+    /**
+     * Gets the number of words in the window.
+     *
+     * @return Word count
+     */
+    public int getWordCount() {
+        return WORDS;
+    }
+
+    /**
+     * Sets the stored state. Used when reading a profile from disk.
+     *
+     * @param lastDay Last day played, or {@link #NONE}
+     * @param bits Window words, missing words count as zero
+     * @param carried Streak days beyond the window
+     * @param best Longest streak
+     */
+    public void setStored(long lastDay, long[] bits, int carried, int best) {
+        Arrays.fill(words, 0L);
+        System.arraycopy(bits, 0, words, 0, Math.min(bits.length, WORDS));
+        this.lastDay = lastDay;
+        this.carried = Math.max(0, carried);
+        this.best = Math.max(best, lastDay == NONE ? 0 : length());
+    }
+
+    /**
+     * Copies another bitmap into this one.
+     *
+     * @param other The bitmap to copy
+     */
+    public void copyFrom(StreakBitmap other) {
+        System.arraycopy(other.words, 0, words, 0, WORDS);
+        lastDay = other.lastDay;
+        carried = other.carried;
+        best = other.best;
+    }
+}
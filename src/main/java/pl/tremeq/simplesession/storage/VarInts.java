@@ -0,0 +1,72 @@
+package pl.tremeq.simplesession.storage;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Variable-length integer encoding (7 bits per byte, high bit = more bytes).
+ * Small values take one byte, so compact formats store deltas with it.
+ * Negative values should be zig-zag encoded first.
+ *
+ * @author TremeQ
+ */
+public final class VarInts {
+
+    private VarInts() {
+    }
+
+    /**
+     * Writes an unsigned variable-length long.
+     *
+     * @param out Output
+     * @param value Value, treated as unsigned
+     * @throws IOException if writing fails
+     */
+    public static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * Reads an unsigned variable-length long.
+     *
+     * @param in Input
+     * @return The value
+     * @throws IOException if reading fails or the value is malformed
+     */
+    public static long readVarLong(DataInput in) throws IOException {
+        long value = 0L;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Zig-zag encodes a signed value, so small negative numbers stay small.
+     *
+     * @param value Signed value
+     * @return Encoded value
+     */
+    public static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Reverses {@link #zigZag(long)}.
+     *
+     * @param value Encoded value
+     * @return Signed value
+     */
+    public static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,157 @@
+package pl.tremeq.simplesession.history;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the binary session history segment written by {@link SegmentWriter}
+ * and read by {@link SegmentReader}.
+ *
+ * @author TremeQ
+ */
+class SegmentFormatTest {
+
+    private static final UUID ALICE = new UUID(1L, 1L);
+    private static final UUID BOB = new UUID(2L, 2L);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recordsRoundTrip() throws IOException {
+        Path file = dir.resolve("segment.bin");
+        List<SessionRecord> written = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            long end = 1_000_000L + i * 60_000L;
+            written.add(new SessionRecord(i % 3 == 0 ? BOB : ALICE, i % 3 == 0 ? "Bob" : "Alice",
+                    end - i * 1_000L, end, i * 500L));
+        }
+        // More than one block, so the second one starts a fresh dictionary
+        try (SegmentWriter writer = new SegmentWriter(file, 0)) {
+            for (int i = 0; i < written.size(); i++) {
+                writer.append(written.get(i));
+                if (i == 49) {
+                    writer.flush();
+                }
+            }
+        }
+
+        List<SessionRecord> read = readAll(file, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(written.size(), read.size());
+        for (int i = 0; i < written.size(); i++) {
+            assertSameRecord(written.get(i), read.get(i));
+        }
+    }
+
+    @Test
+    void rangeSkipsOtherBlocksAndRecords() throws IOException {
+        Path file = dir.resolve("segment.bin");
+        try (SegmentWriter writer = new SegmentWriter(file, 0)) {
+            for (long block = 0; block < 3; block++) {
+                for (long i = 0; i < 10; i++) {
+                    long end = block * 10_000L + i * 100L;
+                    writer.append(new SessionRecord(ALICE, "Alice", end - 50L, end, 50L));
+                }
+                writer.flush();
+            }
+        }
+
+        // The middle block only, and within it only ends in [10200, 10500)
+        List<SessionRecord> read = readAll(file, 10_200L, 10_500L);
+        assertEquals(3, read.size());
+        assertEquals(10_200L, read.get(0).getEndTime());
+        assertEquals(10_400L, read.get(2).getEndTime());
+
+        assertTrue(readAll(file, 30_000L, 40_000L).isEmpty());
+    }
+
+    @Test
+    void reopenTruncatesTornTail() throws IOException {
+        Path file = dir.resolve("segment.bin");
+        try (SegmentWriter writer = new SegmentWriter(file, 0)) {
+            writer.append(new SessionRecord(ALICE, "Alice", 0L, 1_000L, 1_000L));
+        }
+        long complete = Files.size(file);
+
+        // A crash in the middle of the next block: full header, half the payload
+        ByteBuffer torn = ByteBuffer.allocate(SegmentFormat.BLOCK_HEADER_BYTES + 4);
+        torn.putInt(1).putLong(2_000L).putLong(2_000L).putInt(40).putInt(40)
+                .put((byte) SegmentFormat.CODEC_STORED).putInt(0).putInt(0xDEAD).flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.APPEND)) {
+            channel.write(torn);
+        }
+        assertEquals(1, readAll(file, Long.MIN_VALUE, Long.MAX_VALUE).size());
+
+        try (SegmentWriter writer = new SegmentWriter(file, 0)) {
+            assertEquals(complete, Files.size(file));
+            writer.append(new SessionRecord(BOB, "Bob", 2_000L, 3_000L, 500L));
+        }
+
+        List<SessionRecord> read = readAll(file, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(2, read.size());
+        assertEquals(ALICE, read.get(0).getPlayerId());
+        assertSameRecord(new SessionRecord(BOB, "Bob", 2_000L, 3_000L, 500L), read.get(1));
+    }
+
+    @Test
+    void blockFailingChecksumIsSkipped() throws IOException {
+        Path file = dir.resolve("segment.bin");
+        long[] blockStarts = new long[3];
+        try (SegmentWriter writer = new SegmentWriter(file, 0)) {
+            for (int block = 0; block < 3; block++) {
+                blockStarts[block] = Files.size(file);
+                writer.append(new SessionRecord(ALICE, "Alice", 0L, block * 1_000L + 1_000L, 0L));
+                writer.append(new SessionRecord(BOB, "Bob", 0L, block * 1_000L + 1_500L, 0L));
+                writer.flush();
+            }
+        }
+
+        // Flip a payload byte of the middle block
+        long position = blockStarts[1] + SegmentFormat.BLOCK_HEADER_BYTES + 2;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer one = ByteBuffer.allocate(1);
+            channel.read(one, position);
+            one.put(0, (byte) (one.get(0) ^ 0xFF)).rewind();
+            channel.write(one, position);
+        }
+
+        List<SessionRecord> read = readAll(file, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(4, read.size());
+        assertEquals(1_000L, read.get(0).getEndTime());
+        assertEquals(1_500L, read.get(1).getEndTime());
+        assertEquals(3_000L, read.get(2).getEndTime());
+        assertEquals(3_500L, read.get(3).getEndTime());
+    }
+
+    private static List<SessionRecord> readAll(Path file, long from, long to) throws IOException {
+        List<SessionRecord> records = new ArrayList<>();
+        try (SegmentReader reader = new SegmentReader(file, from, to)) {
+            SessionRecord record;
+            while ((record = reader.next()) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    private static void assertSameRecord(SessionRecord expected, SessionRecord actual) {
+        assertEquals(expected.getPlayerId(), actual.getPlayerId());
+        assertEquals(expected.getPlayerName(), actual.getPlayerName());
+        assertEquals(expected.getStartTime(), actual.getStartTime());
+        assertEquals(expected.getEndTime(), actual.getEndTime());
+        assertEquals(expected.getActiveMillis(), actual.getActiveMillis());
+    }
+}
@@ -0,0 +1,117 @@
+package pl.tremeq.simplesession.network;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests session deltas sent between two servers joined to one
+ * {@link InMemoryTransport.Hub}, encoded as {@link DeltaBatch} messages.
+ *
+ * @author TremeQ
+ */
+class InMemoryTransportTest {
+
+    private static final UUID ALICE = new UUID(1L, 1L);
+    private static final UUID BOB = new UUID(2L, 2L);
+
+    @Test
+    void deltasRoundTripToTheOtherServer() throws IOException {
+        InMemoryTransport.Hub hub = new InMemoryTransport.Hub();
+        List<byte[]> lobbyReceived = new ArrayList<>();
+        List<byte[]> survivalReceived = new ArrayList<>();
+        InMemoryTransport lobby = join(hub, lobbyReceived);
+        join(hub, survivalReceived);
+
+        List<SessionDelta> sent = List.of(
+                new SessionDelta(SessionDelta.Type.START, ALICE, new UUID(3L, 3L).toString(), "Alice", 1_000L, 0L, 0L, 0),
+                new SessionDelta(SessionDelta.Type.HANDOFF, BOB, new UUID(4L, 4L).toString(), "Bob", 2_000L, 300L, 9_000L, 2),
+                new SessionDelta(SessionDelta.Type.END, ALICE, new UUID(3L, 3L).toString(), null, 0L, 0L, 0L, 0));
+        for (byte[] message : DeltaBatch.encode("lobby", true, sent)) {
+            lobby.send(message);
+        }
+
+        // The sender never gets its own batch back
+        assertTrue(lobbyReceived.isEmpty());
+        assertEquals(1, survivalReceived.size());
+
+        DeltaBatch batch = DeltaBatch.decode(survivalReceived.get(0));
+        assertEquals("lobby", batch.sender);
+        assertTrue(batch.hello);
+        assertEquals(sent.size(), batch.deltas.size());
+        for (int i = 0; i < sent.size(); i++) {
+            assertSameDelta(sent.get(i), batch.deltas.get(i));
+        }
+    }
+
+    @Test
+    void largeBatchIsSplitAcrossMessages() throws IOException {
+        InMemoryTransport.Hub hub = new InMemoryTransport.Hub();
+        List<byte[]> received = new ArrayList<>();
+        InMemoryTransport lobby = join(hub, new ArrayList<>());
+        join(hub, received);
+
+        // Around 60 bytes each, so a few times MAX_BATCH_BYTES in total
+        List<SessionDelta> sent = new ArrayList<>();
+        for (long i = 0; i < 2_000; i++) {
+            sent.add(new SessionDelta(SessionDelta.Type.HANDOFF, new UUID(i, i), new UUID(i, -i).toString(),
+                    "Player" + i, 1_000_000L + i, i * 10L, 2_000_000L + i, (int) (i % 7)));
+        }
+        for (byte[] message : DeltaBatch.encode("lobby", true, sent)) {
+            lobby.send(message);
+        }
+
+        assertTrue(received.size() > 1);
+        List<SessionDelta> decoded = new ArrayList<>();
+        for (int i = 0; i < received.size(); i++) {
+            byte[] message = received.get(i);
+            // Header: version, sender, flags and count
+            assertTrue(message.length <= DeltaBatch.MAX_BATCH_BYTES + 16);
+            DeltaBatch batch = DeltaBatch.decode(message);
+            assertEquals(i == 0, batch.hello);
+            decoded.addAll(batch.deltas);
+        }
+
+        assertEquals(sent.size(), decoded.size());
+        for (int i = 0; i < sent.size(); i++) {
+            assertSameDelta(sent.get(i), decoded.get(i));
+        }
+    }
+
+    @Test
+    void closedTransportStopsReceiving() {
+        InMemoryTransport.Hub hub = new InMemoryTransport.Hub();
+        List<byte[]> received = new ArrayList<>();
+        InMemoryTransport lobby = join(hub, new ArrayList<>());
+        InMemoryTransport survival = join(hub, received);
+
+        survival.close();
+        for (byte[] message : DeltaBatch.encode("lobby", false, List.of())) {
+            lobby.send(message);
+        }
+        assertTrue(received.isEmpty());
+    }
+
+    private static InMemoryTransport join(InMemoryTransport.Hub hub, List<byte[]> received) {
+        InMemoryTransport transport = new InMemoryTransport(hub);
+        transport.start(received::add);
+        return transport;
+    }
+
+    private static void assertSameDelta(SessionDelta expected, SessionDelta actual) {
+        assertEquals(expected.type, actual.type);
+        assertEquals(expected.playerId, actual.playerId);
+        assertEquals(expected.sessionId, actual.sessionId);
+        assertEquals(expected.playerName, actual.playerName);
+        assertEquals(expected.startTime, actual.startTime);
+        assertEquals(expected.idleMillis, actual.idleMillis);
+        assertEquals(expected.quitTime, actual.quitTime);
+        assertEquals(expected.milestoneIndex, actual.milestoneIndex);
+    }
+}